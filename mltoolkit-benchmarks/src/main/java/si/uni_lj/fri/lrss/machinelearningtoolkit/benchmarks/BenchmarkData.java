@@ -0,0 +1,183 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNumeric;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Builds the signatures and instances the benchmarks run on. All data is drawn from
+ * generators with fixed seeds, so every run measures exactly the same work.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+final class BenchmarkData {
+
+    static final long SEED = 20131105L;
+
+    // Around Ljubljana; GPS clusters are placed within a few kilometres of it.
+    private static final double BASE_LATITUDE = 46.05;
+    private static final double BASE_LONGITUDE = 14.51;
+    private static final double DEGREES_PER_KM = 1.0 / 111.0;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Signature of nominal features with the given number of categories each, followed by
+     * a nominal class feature.
+     */
+    static Signature nominalSignature(int numFeatures, int cardinality, int numClasses) {
+        ArrayList<Feature> features = new ArrayList<Feature>(numFeatures + 1);
+        for (int i = 0; i < numFeatures; i++) {
+            features.add(new FeatureNominal("f" + i, categories("v", cardinality)));
+        }
+        features.add(new FeatureNominal("class", categories("c", numClasses)));
+        return new Signature(features);
+    }
+
+    /**
+     * Signature of numeric coordinates followed by a nominal class feature. Two
+     * coordinates are treated as latitude and longitude by the density clustering.
+     */
+    static Signature numericSignature(int dimensions, int numClasses) {
+        ArrayList<Feature> features = new ArrayList<Feature>(dimensions + 1);
+        for (int i = 0; i < dimensions; i++) {
+            features.add(new FeatureNumeric("x" + i));
+        }
+        features.add(new FeatureNominal("class", categories("c", numClasses)));
+        return new Signature(features);
+    }
+
+    /**
+     * Draws labelled instances of a nominal signature. The class is the sum of the
+     * category indices modulo the number of classes, so it depends on every feature,
+     * except for the given fraction of instances that get a random class.
+     */
+    static ArrayList<Instance> nominalInstances(Signature signature, int count, double noise,
+                                                long seed) {
+        Random random = new Random(seed);
+        int numFeatures = signature.size() - 1;
+        FeatureNominal classFeature = (FeatureNominal) signature.getClassFeature();
+        int numClasses = classFeature.numberOfCategories();
+        ArrayList<Instance> instances = new ArrayList<Instance>(count);
+        for (int n = 0; n < count; n++) {
+            Instance instance = new Instance(numFeatures + 1);
+            int sum = 0;
+            for (int i = 0; i < numFeatures; i++) {
+                FeatureNominal feature = (FeatureNominal) signature.getFeatureAtIndex(i);
+                int category = random.nextInt(feature.numberOfCategories());
+                sum += category;
+                instance.addValue(new Value(feature.categoryOfIndex(category), Value.NOMINAL_VALUE));
+            }
+            int label = random.nextDouble() < noise ? random.nextInt(numClasses) : sum % numClasses;
+            instance.addValue(new Value(classFeature.categoryOfIndex(label), Value.NOMINAL_VALUE));
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+    /**
+     * Draws labelled instances of a nominal signature with large vocabularies, such as
+     * application names or Wi-Fi BSSIDs. Categories follow a power law, so that a few are
+     * frequent and most are rare. Every category leans towards one class; the class of an
+     * instance is the one its categories lean towards most often, except for the given
+     * fraction of instances that get a random class.
+     */
+    static ArrayList<Instance> identifierInstances(Signature signature, int count, double noise,
+                                                   long seed) {
+        Random random = new Random(seed);
+        int numFeatures = signature.size() - 1;
+        FeatureNominal classFeature = (FeatureNominal) signature.getClassFeature();
+        int numClasses = classFeature.numberOfCategories();
+        int[] votes = new int[numClasses];
+        ArrayList<Instance> instances = new ArrayList<Instance>(count);
+        for (int n = 0; n < count; n++) {
+            Instance instance = new Instance(numFeatures + 1);
+            for (int c = 0; c < numClasses; c++) votes[c] = 0;
+            for (int i = 0; i < numFeatures; i++) {
+                FeatureNominal feature = (FeatureNominal) signature.getFeatureAtIndex(i);
+                int vocabulary = feature.numberOfCategories();
+                int category = (int) Math.pow(vocabulary, random.nextDouble()) - 1;
+                votes[(category * 31 + i) % numClasses]++;
+                instance.addValue(new Value(feature.categoryOfIndex(category), Value.NOMINAL_VALUE));
+            }
+            int label = 0;
+            for (int c = 1; c < numClasses; c++) {
+                if (votes[c] > votes[label]) label = c;
+            }
+            if (random.nextDouble() < noise) label = random.nextInt(numClasses);
+            instance.addValue(new Value(classFeature.categoryOfIndex(label), Value.NOMINAL_VALUE));
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+    /**
+     * Draws labelled instances around one centre per class. With two dimensions the points
+     * are GPS coordinates spread over about a kilometre, otherwise they are normally
+     * distributed with unit variance around centres ten units apart. The centres only
+     * depend on the signature, so instances drawn with different seeds share them.
+     */
+    static ArrayList<Instance> clusteredInstances(Signature signature, int count, long seed) {
+        Random random = new Random(SEED);
+        int dimensions = signature.size() - 1;
+        boolean gps = dimensions == 2;
+        FeatureNominal classFeature = (FeatureNominal) signature.getClassFeature();
+        int numClasses = classFeature.numberOfCategories();
+        double[][] centres = new double[numClasses][dimensions];
+        for (int c = 0; c < numClasses; c++) {
+            for (int i = 0; i < dimensions; i++) {
+                centres[c][i] = gps ? 5 * DEGREES_PER_KM * random.nextGaussian() : 10.0 * random.nextInt(10);
+            }
+            if (gps) {
+                centres[c][0] += BASE_LATITUDE;
+                centres[c][1] += BASE_LONGITUDE;
+            }
+        }
+        double spread = gps ? DEGREES_PER_KM : 1.0;
+        random = new Random(seed);
+        ArrayList<Instance> instances = new ArrayList<Instance>(count);
+        for (int n = 0; n < count; n++) {
+            int label = random.nextInt(numClasses);
+            Instance instance = new Instance(dimensions + 1);
+            for (int i = 0; i < dimensions; i++) {
+                double coordinate = centres[label][i] + spread * random.nextGaussian();
+                instance.addValue(new Value(coordinate, Value.NUMERIC_VALUE));
+            }
+            instance.addValue(new Value(classFeature.categoryOfIndex(label), Value.NOMINAL_VALUE));
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+    /**
+     * Returns copies of the instances without their class value, as passed to classify.
+     * The class feature has to be the last one.
+     */
+    static ArrayList<Instance> unlabelled(ArrayList<Instance> instances) {
+        ArrayList<Instance> result = new ArrayList<Instance>(instances.size());
+        for (Instance instance : instances) {
+            Instance copy = new Instance(instance.size() - 1);
+            for (int i = 0; i < instance.size() - 1; i++) {
+                copy.addValue(instance.getValueAtIndex(i));
+            }
+            result.add(copy);
+        }
+        return result;
+    }
+
+    private static ArrayList<String> categories(String prefix, int count) {
+        ArrayList<String> categories = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            categories.add(prefix + i);
+        }
+        return categories;
+    }
+}
@@ -0,0 +1,88 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.DensityClustering;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Training and classification of the density clustering across dataset sizes, on GPS
+ * coordinates (two dimensions, haversine distance) and on n-dimensional points (Euclidean
+ * distance).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class DensityClusteringBenchmark {
+
+    private static final int POOL_SIZE = 1024;
+
+    @Param({"2", "8"})
+    public int dimensions;
+
+    @Param({"100", "1000", "5000"})
+    public int size;
+
+    private Signature mSignature;
+
+    private ClassifierConfig mConfig;
+
+    private ArrayList<Instance> mTraining;
+
+    private ArrayList<Instance> mQueries;
+
+    private DensityClustering mClassifier;
+
+    private int mNext;
+
+    @Setup
+    public void setUp() throws MLException {
+        mSignature = BenchmarkData.numericSignature(dimensions, 4);
+        mConfig = new ClassifierConfig();
+        // Kilometres for GPS coordinates, units of the coordinates otherwise
+        mConfig.addParam(Constants.MAX_CLUSTER_DISTANCE, dimensions == 2 ? 1.0 : 2.0);
+        mTraining = BenchmarkData.clusteredInstances(mSignature, size, BenchmarkData.SEED);
+        mQueries = BenchmarkData.unlabelled(
+                BenchmarkData.clusteredInstances(mSignature, POOL_SIZE, BenchmarkData.SEED + 1));
+        mClassifier = train();
+    }
+
+    /**
+     * Training removes outliers from the list it is given, so every invocation trains on a
+     * fresh copy. Copying the references is negligible next to the training itself.
+     */
+    @Benchmark
+    public DensityClustering train() throws MLException {
+        DensityClustering classifier = new DensityClustering(mSignature, mConfig);
+        classifier.train(new ArrayList<Instance>(mTraining));
+        return classifier;
+    }
+
+    @Benchmark
+    public Value classify() throws MLException {
+        Value label = mClassifier.classify(mQueries.get(mNext));
+        mNext = (mNext + 1) & (POOL_SIZE - 1);
+        return label;
+    }
+}
@@ -0,0 +1,80 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.ID3;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Training and classification of ID3 trees across tree depths. ID3 splits on every feature
+ * at most once and the class depends on all features, so the depth of the tree equals the
+ * number of features.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ID3Benchmark {
+
+    private static final int POOL_SIZE = 1024;
+
+    private static final int TRAINING_SIZE = 2000;
+
+    @Param({"2", "4", "6", "8"})
+    public int depth;
+
+    @Param({"3"})
+    public int cardinality;
+
+    private Signature mSignature;
+
+    private ArrayList<Instance> mTraining;
+
+    private ArrayList<Instance> mQueries;
+
+    private ID3 mTree;
+
+    private int mNext;
+
+    @Setup
+    public void setUp() throws MLException {
+        mSignature = BenchmarkData.nominalSignature(depth, cardinality, 2);
+        mTraining = BenchmarkData.nominalInstances(mSignature, TRAINING_SIZE, 0.0, BenchmarkData.SEED);
+        mQueries = BenchmarkData.unlabelled(
+                BenchmarkData.nominalInstances(mSignature, POOL_SIZE, 0.0, BenchmarkData.SEED + 1));
+        mTree = train();
+    }
+
+    @Benchmark
+    public ID3 train() throws MLException {
+        ID3 tree = new ID3(mSignature, new ClassifierConfig());
+        tree.train(mTraining);
+        return tree;
+    }
+
+    @Benchmark
+    public Value classify() throws MLException {
+        Value label = mTree.classify(mQueries.get(mNext));
+        mNext = (mNext + 1) & (POOL_SIZE - 1);
+        return label;
+    }
+}
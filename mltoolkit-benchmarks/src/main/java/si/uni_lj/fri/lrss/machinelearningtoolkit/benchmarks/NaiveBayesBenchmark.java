@@ -0,0 +1,90 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.NaiveBayes;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Online updates and classification of a trained Naive Bayes classifier, across the number
+ * of features and the number of categories per feature.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class NaiveBayesBenchmark {
+
+    // Power of two, so that the next instance is picked with a mask.
+    private static final int POOL_SIZE = 1024;
+
+    private static final int TRAINING_SIZE = 10000;
+
+    static final int BATCH_SIZE = 64;
+
+    @Param({"4", "16", "64"})
+    public int numFeatures;
+
+    @Param({"2", "8", "32"})
+    public int cardinality;
+
+    private NaiveBayes mClassifier;
+
+    private ArrayList<Instance> mUpdates;
+
+    private ArrayList<Instance> mQueries;
+
+    private ArrayList<Instance> mBatch;
+
+    private int mNext;
+
+    @Setup
+    public void setUp() throws MLException {
+        Signature signature = BenchmarkData.nominalSignature(numFeatures, cardinality, 4);
+        mClassifier = new NaiveBayes(signature, new ClassifierConfig());
+        mClassifier.train(BenchmarkData.nominalInstances(signature, TRAINING_SIZE, 0.1,
+                BenchmarkData.SEED));
+        mUpdates = BenchmarkData.nominalInstances(signature, POOL_SIZE, 0.1, BenchmarkData.SEED + 1);
+        mQueries = BenchmarkData.unlabelled(mUpdates);
+        mBatch = new ArrayList<Instance>(mQueries.subList(0, BATCH_SIZE));
+    }
+
+    @Benchmark
+    public void update() throws MLException {
+        mClassifier.update(mUpdates.get(mNext));
+        mNext = (mNext + 1) & (POOL_SIZE - 1);
+    }
+
+    @Benchmark
+    public Value classify() throws MLException {
+        Value label = mClassifier.classify(mQueries.get(mNext));
+        mNext = (mNext + 1) & (POOL_SIZE - 1);
+        return label;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Value[] classifyBatch() throws MLException {
+        return mClassifier.classify(mBatch);
+    }
+}
@@ -0,0 +1,104 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.ClassifierManager;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FileStorage;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+
+/**
+ * Saving and loading a store of trained Naive Bayes classifiers. MachineLearningManager
+ * only maps the store onto the application's files, so the benchmark drives
+ * {@link ClassifierManager} over a temporary directory. Loading includes deserializing every
+ * classifier, which otherwise continues in the background after the manager is created.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class PersistenceBenchmark {
+
+    private static final String STORE_NAME = "benchmark";
+
+    @Param({"1", "10", "100"})
+    public int numClassifiers;
+
+    @Param({"16"})
+    public int numFeatures;
+
+    private File mDirectory;
+
+    private FileStorage mStorage;
+
+    private ClassifierManager mManager;
+
+    @Setup
+    public void setUp() throws IOException, MLException {
+        mDirectory = File.createTempFile("mltoolkit", "bench");
+        if (!mDirectory.delete() || !mDirectory.mkdir()) {
+            throw new IOException("Could not create "+mDirectory);
+        }
+        mStorage = new FileStorage(mDirectory);
+        mManager = new ClassifierManager(STORE_NAME, mStorage);
+        Signature signature = BenchmarkData.nominalSignature(numFeatures, 8, 4);
+        for (int i = 0; i < numClassifiers; i++) {
+            String name = "nb" + i;
+            mManager.addClassifier(Constants.TYPE_NAIVE_BAYES, signature, new ClassifierConfig(), name);
+            ArrayList<Instance> instances =
+                    BenchmarkData.nominalInstances(signature, 1000, 0.1, BenchmarkData.SEED + i);
+            mManager.train(name, instances);
+        }
+        mManager.saveToPersistent();
+    }
+
+    @TearDown
+    public void tearDown() {
+        deleteRecursively(mDirectory);
+    }
+
+    @Benchmark
+    public void save() throws MLException {
+        mManager.saveToPersistent();
+    }
+
+    @Benchmark
+    public void load(Blackhole blackhole) throws MLException {
+        ClassifierManager manager = new ClassifierManager(STORE_NAME, mStorage);
+        for (int i = 0; i < numClassifiers; i++) {
+            blackhole.consume(manager.getClassifier("nb" + i));
+        }
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,47 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks;
+
+import java.util.ArrayList;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Classifier;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Reports the accuracy on held-out instances and the memory footprint of the exact and
+ * the sketched Naive Bayes of {@link SketchNaiveBayesBenchmark}, trained with the same
+ * instances, for every vocabulary size of the benchmark. Kept out of the benchmark, so
+ * that nothing but the measured operations runs in its trials.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class SketchNaiveBayesAccuracy {
+
+    private static final int TEST_SIZE = 5000;
+
+    private static final int[] VOCABULARIES = {1000, 100000};
+
+    private static final String[] MODELS = {"exact", "sketch"};
+
+    public static void main(String[] args) throws MLException {
+        for (int vocabulary : VOCABULARIES) {
+            Signature signature = BenchmarkData.nominalSignature(SketchNaiveBayesBenchmark.NUM_FEATURES,
+                    vocabulary, SketchNaiveBayesBenchmark.NUM_CLASSES);
+            ArrayList<Instance> test = BenchmarkData.identifierInstances(signature, TEST_SIZE,
+                    SketchNaiveBayesBenchmark.NOISE, BenchmarkData.SEED + 2);
+            ArrayList<Instance> queries = BenchmarkData.unlabelled(test);
+            for (String model : MODELS) {
+                Classifier classifier = SketchNaiveBayesBenchmark.trainedClassifier(model, signature);
+                Value[] labels = classifier.classify(queries);
+                int correct = 0;
+                for (int i = 0; i < labels.length; i++) {
+                    Value actual = test.get(i).getValueAtIndex(signature.getClassIndex());
+                    if (labels[i] != null && actual.getValue().equals(labels[i].getValue())) correct++;
+                }
+                System.out.println(model + " vocabulary " + vocabulary + ": accuracy "
+                        + (double) correct / labels.length + ", " + classifier.memoryFootprint() + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Classifier;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.NaiveBayes;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.OnlineClassifier;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.SketchNaiveBayes;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Exact against sketched Naive Bayes on features with large vocabularies. The sketch trades
+ * accuracy for memory; {@link SketchNaiveBayesAccuracy} reports both for the same data.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SketchNaiveBayesBenchmark {
+
+    // Power of two, so that the next instance is picked with a mask.
+    private static final int POOL_SIZE = 1024;
+
+    static final int TRAINING_SIZE = 50000;
+
+    static final int NUM_FEATURES = 8;
+
+    static final int NUM_CLASSES = 4;
+
+    // Fraction of the values that do not follow the class
+    static final double NOISE = 0.1;
+
+    @Param({"1000", "100000"})
+    public int vocabulary;
+
+    @Param({"exact", "sketch"})
+    public String model;
+
+    private Classifier mClassifier;
+
+    private OnlineClassifier mOnline;
+
+    private ArrayList<Instance> mUpdates;
+
+    private ArrayList<Instance> mQueries;
+
+    private int mNext;
+
+    @Setup
+    public void setUp() throws MLException {
+        Signature signature = BenchmarkData.nominalSignature(NUM_FEATURES, vocabulary, NUM_CLASSES);
+        mClassifier = trainedClassifier(model, signature);
+        mOnline = (OnlineClassifier) mClassifier;
+        mUpdates = BenchmarkData.identifierInstances(signature, POOL_SIZE, NOISE, BenchmarkData.SEED + 1);
+        mQueries = BenchmarkData.unlabelled(mUpdates);
+    }
+
+    /**
+     * @return The exact ("exact") or sketched ("sketch") classifier, trained with the
+     * instances of the benchmark.
+     */
+    static Classifier trainedClassifier(String model, Signature signature) throws MLException {
+        Classifier classifier = "sketch".equals(model)
+                ? new SketchNaiveBayes(signature, new ClassifierConfig())
+                : new NaiveBayes(signature, new ClassifierConfig());
+        classifier.train(BenchmarkData.identifierInstances(signature, TRAINING_SIZE, NOISE,
+                BenchmarkData.SEED));
+        return classifier;
+    }
+
+    @Benchmark
+    public void update() throws MLException {
+        mOnline.update(mUpdates.get(mNext));
+        mNext = (mNext + 1) & (POOL_SIZE - 1);
+    }
+
+    @Benchmark
+    public Value classify() throws MLException {
+        Value label = mClassifier.classify(mQueries.get(mNext));
+        mNext = (mNext + 1) & (POOL_SIZE - 1);
+        return label;
+    }
+}
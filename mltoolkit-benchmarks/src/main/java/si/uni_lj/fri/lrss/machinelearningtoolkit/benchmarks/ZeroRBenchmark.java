@@ -0,0 +1,71 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.ZeroR;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Updates and classification of ZeroR across the number of classes. It serves as the
+ * baseline cost of a classifier call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class ZeroRBenchmark {
+
+    private static final int POOL_SIZE = 1024;
+
+    @Param({"2", "32"})
+    public int numClasses;
+
+    private ZeroR mClassifier;
+
+    private ArrayList<Instance> mUpdates;
+
+    private ArrayList<Instance> mQueries;
+
+    private int mNext;
+
+    @Setup
+    public void setUp() throws MLException {
+        Signature signature = BenchmarkData.nominalSignature(4, 4, numClasses);
+        mClassifier = new ZeroR(signature, new ClassifierConfig());
+        mUpdates = BenchmarkData.nominalInstances(signature, POOL_SIZE, 0.5, BenchmarkData.SEED);
+        mQueries = BenchmarkData.unlabelled(mUpdates);
+        mClassifier.train(mUpdates);
+    }
+
+    @Benchmark
+    public void update() throws MLException {
+        mClassifier.update(mUpdates.get(mNext));
+        mNext = (mNext + 1) & (POOL_SIZE - 1);
+    }
+
+    @Benchmark
+    public Value classify() throws MLException {
+        Value label = mClassifier.classify(mQueries.get(mNext));
+        mNext = (mNext + 1) & (POOL_SIZE - 1);
+        return label;
+    }
+}
@@ -0,0 +1,201 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks.load;
+
+import java.util.Random;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Endless stream of labelled instances, created by {@link WorkloadGenerator}. The class of
+ * an instance is drawn from Zipf-distributed priors, its nominal features from categorical
+ * distributions and its numeric features from normal distributions that depend on the class.
+ * These class-conditional distributions form a concept; with drift enabled the stream moves
+ * from one concept to the next every period. Not thread-safe.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class InstanceStream {
+
+    // Larger values make the nominal features more informative about the class.
+    private static final double CATEGORY_SHARPNESS = 1.5;
+
+    private final Signature mSignature;
+
+    private final long mConceptSeed;
+
+    private final Random mRandom;
+
+    private final double[] mClassCumulative;
+
+    private final long mDriftPeriod;
+
+    private final boolean mAbruptDrift;
+
+    private long mPosition;
+
+    private long mConceptIndex = -1;
+
+    private Concept mConcept;
+
+    private Concept mNextConcept;
+
+    InstanceStream(Signature signature, long conceptSeed, long sampleSeed, double classSkew,
+                   long driftPeriod, boolean abruptDrift) {
+        mSignature = signature;
+        mConceptSeed = conceptSeed;
+        mRandom = new Random(sampleSeed);
+        mDriftPeriod = driftPeriod;
+        mAbruptDrift = abruptDrift;
+
+        // Zipf priors over a permutation of the classes that is shared by all streams
+        int numClasses = classFeature().numberOfCategories();
+        int[] ranks = new int[numClasses];
+        for (int i = 0; i < numClasses; i++) ranks[i] = i;
+        Random shuffle = new Random(conceptSeed);
+        for (int i = numClasses - 1; i > 0; i--) {
+            int j = shuffle.nextInt(i + 1);
+            int tmp = ranks[i];
+            ranks[i] = ranks[j];
+            ranks[j] = tmp;
+        }
+        mClassCumulative = new double[numClasses];
+        double total = 0;
+        for (int i = 0; i < numClasses; i++) {
+            total += 1.0 / Math.pow(ranks[i] + 1, classSkew);
+            mClassCumulative[i] = total;
+        }
+        for (int i = 0; i < numClasses; i++) mClassCumulative[i] /= total;
+    }
+
+    public Signature getSignature() {
+        return mSignature;
+    }
+
+    /**
+     * @return Number of instances drawn so far.
+     */
+    public long position() {
+        return mPosition;
+    }
+
+    /**
+     * Draws the next labelled instance. Its last value is the class.
+     */
+    public Instance next() {
+        double progress = updateConcepts();
+        int numFeatures = mSignature.size() - 1;
+        int label = sample(mClassCumulative, mRandom.nextDouble());
+        Instance instance = new Instance(numFeatures + 1);
+        for (int i = 0; i < numFeatures; i++) {
+            Feature feature = mSignature.getFeatureAtIndex(i);
+            if (feature.getFeatureType() == Feature.NOMINAL) {
+                double[] current = mConcept.mCategories[label][i];
+                double[] next = mNextConcept.mCategories[label][i];
+                double u = mRandom.nextDouble();
+                double cumulative = 0;
+                int category = current.length - 1;
+                for (int j = 0; j < current.length; j++) {
+                    cumulative += (1 - progress) * current[j] + progress * next[j];
+                    if (u < cumulative) {
+                        category = j;
+                        break;
+                    }
+                }
+                instance.addValue(new Value(((FeatureNominal) feature).categoryOfIndex(category),
+                        Value.NOMINAL_VALUE));
+            } else {
+                double mean = (1 - progress) * mConcept.mMeans[label][i] + progress * mNextConcept.mMeans[label][i];
+                double stdDev = (1 - progress) * mConcept.mStdDevs[label][i] + progress * mNextConcept.mStdDevs[label][i];
+                instance.addValue(new Value(mean + stdDev * mRandom.nextGaussian(), Value.NUMERIC_VALUE));
+            }
+        }
+        instance.addValue(new Value(classFeature().categoryOfIndex(label), Value.NOMINAL_VALUE));
+        mPosition++;
+        return instance;
+    }
+
+    /**
+     * Returns the instance without its class value, as passed to classify.
+     */
+    public static Instance unlabelled(Instance labelled) {
+        Instance instance = new Instance(labelled.size() - 1);
+        for (int i = 0; i < labelled.size() - 1; i++) {
+            instance.addValue(labelled.getValueAtIndex(i));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the class value of a labelled instance.
+     */
+    public static String labelOf(Instance labelled) {
+        return (String) labelled.getValueAtIndex(labelled.size() - 1).getValue();
+    }
+
+    // Returns how far the stream has moved from the current to the next concept.
+    private double updateConcepts() {
+        long index = mDriftPeriod > 0 ? mPosition / mDriftPeriod : 0;
+        if (index != mConceptIndex) {
+            mConcept = (mNextConcept != null && index == mConceptIndex + 1)
+                    ? mNextConcept : new Concept(index);
+            mNextConcept = mDriftPeriod > 0 ? new Concept(index + 1) : mConcept;
+            mConceptIndex = index;
+        }
+        if (mDriftPeriod == 0 || mAbruptDrift) return 0;
+        return (mPosition % mDriftPeriod) / (double) mDriftPeriod;
+    }
+
+    private FeatureNominal classFeature() {
+        return (FeatureNominal) mSignature.getClassFeature();
+    }
+
+    private static int sample(double[] cumulative, double u) {
+        for (int i = 0; i < cumulative.length; i++) {
+            if (u < cumulative[i]) return i;
+        }
+        return cumulative.length - 1;
+    }
+
+    /**
+     * Class-conditional distributions of all features, indexed by class and feature.
+     */
+    private class Concept {
+
+        final double[][][] mCategories;
+
+        final double[][] mMeans;
+
+        final double[][] mStdDevs;
+
+        Concept(long index) {
+            Random random = new Random(mConceptSeed * 1000003L + index);
+            int numClasses = classFeature().numberOfCategories();
+            int numFeatures = mSignature.size() - 1;
+            mCategories = new double[numClasses][numFeatures][];
+            mMeans = new double[numClasses][numFeatures];
+            mStdDevs = new double[numClasses][numFeatures];
+            for (int c = 0; c < numClasses; c++) {
+                for (int i = 0; i < numFeatures; i++) {
+                    Feature feature = mSignature.getFeatureAtIndex(i);
+                    if (feature.getFeatureType() == Feature.NOMINAL) {
+                        double[] weights = new double[((FeatureNominal) feature).numberOfCategories()];
+                        double total = 0;
+                        for (int j = 0; j < weights.length; j++) {
+                            weights[j] = Math.exp(CATEGORY_SHARPNESS * random.nextGaussian());
+                            total += weights[j];
+                        }
+                        for (int j = 0; j < weights.length; j++) weights[j] /= total;
+                        mCategories[c][i] = weights;
+                    } else {
+                        mMeans[c][i] = 2.0 * random.nextGaussian();
+                        mStdDevs[c][i] = 0.5 + random.nextDouble();
+                    }
+                }
+            }
+        }
+    }
+}
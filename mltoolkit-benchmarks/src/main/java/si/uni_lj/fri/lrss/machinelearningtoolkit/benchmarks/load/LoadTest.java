@@ -0,0 +1,294 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.ClassifierManager;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.metrics.LatencyHistogram;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FileStorage;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Drives a classifier manager with concurrent, mixed update and classify traffic generated
+ * by {@link WorkloadGenerator}, and periodically reports throughput, latency percentiles,
+ * prequential accuracy and heap usage. The manager is the one MachineLearningManager is
+ * built on, over a temporary directory.
+ *
+ * Options are given as --name=value, e.g.
+ * <pre>
+ * --threads=8 --classifiers=4 --duration=60 --updateRatio=0.2 --skew=1 --drift=100000
+ * </pre>
+ * See {@link Options} for all of them.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class LoadTest {
+
+    private static final String STORE_NAME = "loadtest";
+
+    /**
+     * Configuration of a load test run.
+     */
+    public static class Options {
+        /** Number of threads issuing requests. */
+        public int threads = 4;
+        /** Number of classifiers, every one with a signature of its own. */
+        public int classifiers = 4;
+        /** Classifier type, naivebayes, zeror or logistic. */
+        public String type = "naivebayes";
+        /** Length of the run in seconds. */
+        public int duration = 30;
+        /** Seconds between reports. */
+        public int report = 5;
+        /** Fraction of requests that are updates; the rest are classifications. */
+        public double updateRatio = 0.2;
+        /** Number of nominal and numeric features. */
+        public int nominal = 8;
+        public int numeric = 4;
+        /** Range of the number of categories of nominal features. */
+        public int minCardinality = 2;
+        public int maxCardinality = 16;
+        public int classes = 4;
+        /** Zipf exponent of the class priors, zero for balanced classes. */
+        public double skew = 1.0;
+        /** Instances per concept, zero for no drift. */
+        public long drift = 0;
+        /** Whether concepts change at once rather than gradually. */
+        public boolean abrupt = false;
+        /** Instances every classifier is trained with before the run. */
+        public int warmup = 1000;
+        /** Memory budget of the manager in bytes, zero for none. */
+        public long memoryBudget = 0;
+        public long seed = 42;
+    }
+
+    /**
+     * Counters of one reporting interval, or of the whole run.
+     */
+    private static class Stats {
+        final LatencyHistogram mUpdates = new LatencyHistogram();
+        final LatencyHistogram mClassifications = new LatencyHistogram();
+        final AtomicLong mCorrect = new AtomicLong();
+        final AtomicLong mErrors = new AtomicLong();
+    }
+
+    private final Options mOptions;
+
+    private ClassifierManager mManager;
+
+    private Signature[] mSignatures;
+
+    private WorkloadGenerator mGenerator;
+
+    private final Stats mTotal = new Stats();
+
+    private volatile Stats mInterval = new Stats();
+
+    private volatile boolean mStopped;
+
+    public LoadTest(Options options) {
+        mOptions = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(parse(args)).run();
+    }
+
+    public void run() throws IOException, MLException, InterruptedException {
+        File directory = File.createTempFile("mltoolkit", "load");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Could not create "+directory);
+        }
+        try {
+            setUp(directory);
+            drive();
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    private void setUp(File directory) throws MLException {
+        int type = classifierType(mOptions.type);
+        mManager = new ClassifierManager(STORE_NAME, new FileStorage(directory));
+        if (mOptions.memoryBudget > 0) {
+            mManager.setMemoryBudget(mOptions.memoryBudget);
+        }
+        mGenerator = new WorkloadGenerator(mOptions.seed);
+        mSignatures = new Signature[mOptions.classifiers];
+        for (int k = 0; k < mOptions.classifiers; k++) {
+            mSignatures[k] = mGenerator.randomSignature(mOptions.nominal, mOptions.numeric,
+                    mOptions.minCardinality, mOptions.maxCardinality, mOptions.classes);
+            mManager.addClassifier(type, mSignatures[k], new ClassifierConfig(), name(k));
+            InstanceStream stream = newStream(k);
+            ArrayList<Instance> instances = new ArrayList<Instance>(mOptions.warmup);
+            for (int i = 0; i < mOptions.warmup; i++) {
+                instances.add(stream.next());
+            }
+            mManager.train(name(k), instances);
+        }
+    }
+
+    private void drive() throws InterruptedException {
+        Thread[] workers = new Thread[mOptions.threads];
+        for (int t = 0; t < workers.length; t++) {
+            workers[t] = new Thread(new Worker(mOptions.seed + t), "mltoolkit-load-" + t);
+            workers[t].start();
+        }
+        System.out.println(String.format(Locale.ROOT,
+                "%d threads, %d %s classifiers, %.0f%% updates, %d features, class skew %.2f, drift %d%s",
+                mOptions.threads, mOptions.classifiers, mOptions.type, 100 * mOptions.updateRatio,
+                mOptions.nominal + mOptions.numeric, mOptions.skew, mOptions.drift,
+                mOptions.abrupt ? " (abrupt)" : ""));
+        long start = System.nanoTime();
+        long end = start + mOptions.duration * 1000000000L;
+        long last = start;
+        while (true) {
+            long now = System.nanoTime();
+            long next = Math.min(end, last + mOptions.report * 1000000000L);
+            if (next > now) {
+                Thread.sleep((next - now) / 1000000L);
+                continue;
+            }
+            Stats interval = mInterval;
+            mInterval = new Stats();
+            report((now - start) / 1e9, interval, (now - last) / 1e9);
+            last = now;
+            if (now >= end) break;
+        }
+        mStopped = true;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.println("total:");
+        report((System.nanoTime() - start) / 1e9, mTotal, (System.nanoTime() - start) / 1e9);
+    }
+
+    private void report(double elapsed, Stats stats, double seconds) {
+        long classifications = stats.mClassifications.getCount();
+        long operations = classifications + stats.mUpdates.getCount();
+        Runtime runtime = Runtime.getRuntime();
+        double heap = (runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0);
+        System.out.println(String.format(Locale.ROOT,
+                "%7.1fs %10.0f ops/s  classify %s  update %s  accuracy %.3f  errors %d  heap %.1fMB  resident %dB",
+                elapsed, operations / seconds, percentiles(stats.mClassifications),
+                percentiles(stats.mUpdates),
+                classifications == 0 ? 0.0 : stats.mCorrect.get() / (double) classifications,
+                stats.mErrors.get(), heap, mManager.getResidentSize()));
+    }
+
+    private static String percentiles(LatencyHistogram histogram) {
+        return String.format(Locale.ROOT, "p50/p99/p99.9 %.1f/%.1f/%.1fus",
+                histogram.getPercentileNanos(50) / 1e3,
+                histogram.getPercentileNanos(99) / 1e3,
+                histogram.getPercentileNanos(99.9) / 1e3);
+    }
+
+    private InstanceStream newStream(int classifier) {
+        return mGenerator.stream(mSignatures[classifier], mOptions.skew, mOptions.drift, mOptions.abrupt);
+    }
+
+    private static String name(int classifier) {
+        return "classifier" + classifier;
+    }
+
+    private class Worker implements Runnable {
+
+        private final Random mRandom;
+
+        private final InstanceStream[] mStreams;
+
+        Worker(long seed) {
+            mRandom = new Random(seed);
+            mStreams = new InstanceStream[mOptions.classifiers];
+            for (int k = 0; k < mStreams.length; k++) {
+                mStreams[k] = newStream(k);
+            }
+        }
+
+        public void run() {
+            while (!mStopped) {
+                int k = mRandom.nextInt(mStreams.length);
+                Instance instance = mStreams[k].next();
+                Stats interval = mInterval;
+                try {
+                    if (mRandom.nextDouble() < mOptions.updateRatio) {
+                        long start = System.nanoTime();
+                        mManager.update(name(k), instance);
+                        long nanos = System.nanoTime() - start;
+                        interval.mUpdates.record(nanos);
+                        mTotal.mUpdates.record(nanos);
+                    } else {
+                        Instance query = InstanceStream.unlabelled(instance);
+                        long start = System.nanoTime();
+                        Value label = mManager.classify(name(k), query);
+                        long nanos = System.nanoTime() - start;
+                        interval.mClassifications.record(nanos);
+                        mTotal.mClassifications.record(nanos);
+                        if (InstanceStream.labelOf(instance).equals(label.getValue())) {
+                            interval.mCorrect.incrementAndGet();
+                            mTotal.mCorrect.incrementAndGet();
+                        }
+                    }
+                } catch (MLException e) {
+                    interval.mErrors.incrementAndGet();
+                    mTotal.mErrors.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private static int classifierType(String type) throws MLException {
+        if (type.equalsIgnoreCase("naivebayes")) return Constants.TYPE_NAIVE_BAYES;
+        if (type.equalsIgnoreCase("zeror")) return Constants.TYPE_ZERO_R;
+        if (type.equalsIgnoreCase("logistic")) return Constants.TYPE_LOGISTIC_REGRESSION;
+        throw new MLException(MLException.INVALID_PARAMETER,
+                "Unsupported classifier type "+type+"; online classifiers are required.");
+    }
+
+    static Options parse(String[] args) {
+        Options options = new Options();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got "+arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            try {
+                Field field = Options.class.getField(name);
+                Class<?> type = field.getType();
+                if (type == int.class) field.setInt(options, Integer.parseInt(value));
+                else if (type == long.class) field.setLong(options, Long.parseLong(value));
+                else if (type == double.class) field.setDouble(options, Double.parseDouble(value));
+                else if (type == boolean.class) field.setBoolean(options, Boolean.parseBoolean(value));
+                else field.set(options, value);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalArgumentException("Unknown option "+name);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Unknown option "+name);
+            }
+        }
+        return options;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,91 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.benchmarks.load;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNumeric;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+
+/**
+ * Generates synthetic workloads: random signatures of mixed nominal and numeric features,
+ * and streams of labelled instances that follow them. Everything is derived from the seed
+ * given to the constructor, so a workload can be reproduced exactly.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class WorkloadGenerator {
+
+    private final long mSeed;
+
+    private final Random mRandom;
+
+    private int mStreams;
+
+    public WorkloadGenerator(long seed) {
+        mSeed = seed;
+        mRandom = new Random(seed);
+    }
+
+    /**
+     * Creates a signature with the nominal and numeric features shuffled together and a
+     * nominal class feature at the end.
+     * @param numNominal Number of nominal features.
+     * @param numNumeric Number of numeric features.
+     * @param minCardinality Smallest number of categories of a nominal feature.
+     * @param maxCardinality Largest number of categories of a nominal feature.
+     * @param numClasses Number of class values.
+     */
+    public synchronized Signature randomSignature(int numNominal, int numNumeric,
+                                                  int minCardinality, int maxCardinality,
+                                                  int numClasses) {
+        if (minCardinality < 1 || maxCardinality < minCardinality || numClasses < 1) {
+            throw new IllegalArgumentException("Invalid cardinalities or number of classes");
+        }
+        ArrayList<Feature> features = new ArrayList<Feature>(numNominal + numNumeric + 1);
+        int nominal = 0;
+        int numeric = 0;
+        while (nominal < numNominal || numeric < numNumeric) {
+            int remaining = (numNominal - nominal) + (numNumeric - numeric);
+            if (mRandom.nextInt(remaining) < numNominal - nominal) {
+                int cardinality = minCardinality + mRandom.nextInt(maxCardinality - minCardinality + 1);
+                features.add(new FeatureNominal("n" + nominal, categories("v", cardinality)));
+                nominal++;
+            } else {
+                features.add(new FeatureNumeric("x" + numeric));
+                numeric++;
+            }
+        }
+        features.add(new FeatureNominal("class", categories("c", numClasses)));
+        return new Signature(features);
+    }
+
+    /**
+     * Creates a stream of labelled instances of the given signature. Streams created by
+     * the same generator for the same signature share their concepts, i.e. the class
+     * priors and the class-conditional distributions of the features, and only differ in
+     * the instances drawn from them. Every thread should use a stream of its own.
+     * @param signature Signature with the class feature at the end.
+     * @param classSkew Zipf exponent of the class priors, zero for balanced classes.
+     * @param driftPeriod Number of instances after which the stream has moved to a new
+     *                    concept, zero for a stationary stream.
+     * @param abruptDrift Whether the concept changes at once at the end of every period,
+     *                    rather than gradually over it.
+     */
+    public synchronized InstanceStream stream(Signature signature, double classSkew,
+                                              long driftPeriod, boolean abruptDrift) {
+        mStreams++;
+        return new InstanceStream(signature, mSeed, mSeed * 31 + mStreams,
+                classSkew, driftPeriod, abruptDrift);
+    }
+
+    private static ArrayList<String> categories(String prefix, int count) {
+        ArrayList<String> categories = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            categories.add(prefix + i);
+        }
+        return categories;
+    }
+}
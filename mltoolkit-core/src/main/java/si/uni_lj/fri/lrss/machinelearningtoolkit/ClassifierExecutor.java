@@ -0,0 +1,233 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+
+/**
+ * Runs classifier operations on a bounded pool of worker threads. Operations on the same
+ * classifier run one at a time, in the order in which they were submitted, while operations
+ * on different classifiers run in parallel. The number of operations that are queued or
+ * running is bounded; once the bound is reached, new submissions either fail or wait,
+ * depending on the rejection policy.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+class ClassifierExecutor {
+
+    private static final String TAG = "ClassifierExecutor";
+
+    private final ExecutorService mExecutor;
+
+    private final Semaphore mPermits;
+
+    private final int mRejectionPolicy;
+
+    // Operations waiting for their classifier, by classifier name. A queue exists only
+    // while one of its operations is running.
+    private final HashMap<String, LinkedList<Task<?>>> mQueues;
+
+    // Executor that took over the queues when this one was replaced. Guarded by mQueues.
+    private ClassifierExecutor mSuccessor;
+
+    /**
+     * @param numThreads Number of worker threads, zero or less for one per core.
+     * @param capacity Maximum number of queued and running operations.
+     * @param rejectionPolicy {@link Constants#ASYNC_REJECT_ABORT} or
+     *                        {@link Constants#ASYNC_REJECT_BLOCK}.
+     */
+    ClassifierExecutor(int numThreads, int capacity, int rejectionPolicy) {
+        if (numThreads <= 0) {
+            numThreads = Runtime.getRuntime().availableProcessors();
+        }
+        mExecutor = Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "mltoolkit-async-" + mCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        mPermits = new Semaphore(Math.max(1, capacity));
+        mRejectionPolicy = rejectionPolicy;
+        mQueues = new HashMap<String, LinkedList<Task<?>>>();
+    }
+
+    /**
+     * Schedules an operation on the named classifier.
+     * @param name Classifier name.
+     * @param operation The operation.
+     * @param callback Optional callback notified of the outcome.
+     * @return Future holding the result of the operation.
+     * @throws MLException If the executor is full and the policy is to abort, or if the
+     * caller is interrupted while waiting for space.
+     */
+    <V> Future<V> submit(String name, Callable<V> operation, MLCallback<V> callback)
+            throws MLException {
+
+        ClassifierExecutor successor = successor();
+        if (successor != null) {
+            return successor.submit(name, operation, callback);
+        }
+        if (mRejectionPolicy == Constants.ASYNC_REJECT_BLOCK) {
+            try {
+                mPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MLException(MLException.QUEUE_FULL,
+                        "Interrupted while waiting for the asynchronous queue.");
+            }
+        } else if (!mPermits.tryAcquire()) {
+            throw new MLException(MLException.QUEUE_FULL, "Asynchronous queue is full.");
+        }
+
+        Task<V> task = new Task<V>(name, operation, callback);
+        boolean runNow = false;
+        synchronized (mQueues) {
+            successor = mSuccessor;
+            if (successor == null) {
+                LinkedList<Task<?>> queue = mQueues.get(name);
+                runNow = (queue == null);
+                if (runNow) {
+                    mQueues.put(name, new LinkedList<Task<?>>());
+                } else {
+                    queue.add(task);
+                }
+            }
+        }
+        if (successor != null) {
+            // Replaced while the caller was waiting for space
+            mPermits.release();
+            return successor.submit(name, operation, callback);
+        }
+        if (runNow) run(task);
+        return task;
+    }
+
+    /**
+     * Hands the queued operations over to another executor and shuts this one down.
+     * Running operations finish on the threads of this executor, and the operations queued
+     * behind them run on the threads of the successor, still one at a time and in order.
+     * Operations that are handed over do not count against the capacity of the successor.
+     * @param successor Executor that has not been used yet.
+     */
+    void replaceWith(ClassifierExecutor successor) {
+        synchronized (mQueues) {
+            synchronized (successor.mQueues) {
+                successor.mQueues.putAll(mQueues);
+            }
+            mQueues.clear();
+            mSuccessor = successor;
+        }
+        mExecutor.shutdown();
+    }
+
+    private ClassifierExecutor successor() {
+        synchronized (mQueues) {
+            return mSuccessor;
+        }
+    }
+
+    // The next operation on a classifier is started only once the previous one has returned,
+    // even if the previous one was cancelled while running.
+    private void run(final Task<?> task) {
+        try {
+            mExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        scheduleNext(task.mName);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            ClassifierExecutor successor = successor();
+            if (successor != null) {
+                // Replaced after the task was taken off its queue, which the successor now
+                // holds, so the task still runs before the rest of the queue
+                successor.run(task);
+            } else {
+                task.fail(new MLException(MLException.INVALID_STATE,
+                        "Asynchronous executor is shut down."));
+                scheduleNext(task.mName);
+            }
+        }
+    }
+
+    private void scheduleNext(String name) {
+        Task<?> next = null;
+        ClassifierExecutor successor;
+        synchronized (mQueues) {
+            successor = mSuccessor;
+            if (successor == null) {
+                LinkedList<Task<?>> queue = mQueues.get(name);
+                next = queue.poll();
+                if (next == null) mQueues.remove(name);
+            }
+        }
+        if (successor != null) {
+            successor.scheduleNext(name);
+        } else if (next != null) {
+            run(next);
+        }
+    }
+
+    private class Task<V> extends FutureTask<V> {
+
+        private final String mName;
+        private final MLCallback<V> mCallback;
+
+        Task(String name, Callable<V> operation, MLCallback<V> callback) {
+            super(operation);
+            mName = name;
+            mCallback = callback;
+        }
+
+        // Completes the task without running it, e.g. when it cannot be scheduled
+        void fail(Throwable cause) {
+            setException(cause);
+        }
+
+        @Override
+        protected void done() {
+            mPermits.release();
+            notifyCallback(this, mCallback);
+        }
+    }
+
+    /**
+     * Passes the outcome of a completed future to the callback, if there is one.
+     */
+    static <V> void notifyCallback(Future<V> future, MLCallback<V> callback) {
+        if (callback == null || future.isCancelled()) return;
+        try {
+            callback.onResult(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MLException) {
+                callback.onError((MLException) cause);
+            } else {
+                MLLog.e(TAG, "Asynchronous operation failed: "+cause);
+                callback.onError(new MLException(MLException.INVALID_STATE, String.valueOf(cause)));
+            }
+        }
+    }
+}
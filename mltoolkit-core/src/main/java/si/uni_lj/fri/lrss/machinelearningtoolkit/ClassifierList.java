@@ -0,0 +1,675 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit;
+
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Classifier;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.DensityClustering;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Ensemble;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.ID3;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.KNearestNeighbours;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.LogisticRegression;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.NaiveBayes;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Pipeline;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.RandomForest;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.SketchNaiveBayes;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.ZeroR;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.WorkerPool;
+
+/**
+ *
+ * Takes care of classifier instantiation and registration.
+ * Every classifier that is created has a unique name.
+ *
+ * Optionally, the list keeps only a bounded amount of classifiers in memory. Once the
+ * estimated size of the resident classifiers exceeds the memory budget, the least recently
+ * used ones are serialized to the cache directory and evicted. An evicted classifier is
+ * transparently reloaded the next time it is requested.
+ *
+ * Classifiers read from storage may still be deserializing in the background; requesting
+ * such a classifier waits for its deserialization to complete.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class ClassifierList {
+
+    private static final String TAG = "ClassifierList";
+
+    private HashMap<String, Classifier> mNamedClassifiers;
+
+    // Resident classifiers in access order (eldest first), with their estimated sizes in bytes.
+    private transient LinkedHashMap<String, Long> mResident;
+
+    // Names of classifiers that currently live in the cache directory only.
+    private transient HashSet<String> mEvicted;
+
+    // Classifiers that are being deserialized in the background, or reloaded from the cache.
+    private transient HashMap<String, PendingClassifier> mPending;
+
+    // Classifiers chosen for eviction whose cache files are still being written, with their
+    // estimated sizes. They stay in the list, but no longer count as resident.
+    private transient HashMap<String, Long> mEvicting;
+
+    // Names of the classifiers in mEvicting that no thread has started to write yet.
+    private transient ArrayList<String> mEvictionQueue;
+
+    // Number of operations using each classifier. Pinned classifiers are never evicted.
+    private transient HashMap<String, Integer> mPins;
+
+    // Read without the lock by the threads that write and reload cache files.
+    private transient volatile File mCacheDir;
+
+    // Memory budget in bytes, zero means that the list is unbounded.
+    private transient long mMemoryBudget;
+
+    private transient long mResidentSize;
+
+    private transient long mHits;
+    private transient long mMisses;
+    private transient long mEvictions;
+
+    private transient Gson mGson;
+
+    // Members are pinned while an ensemble uses them, like the classifiers of the manager's
+    // own operations.
+    private final transient Ensemble.MemberResolver mResolver = new Ensemble.MemberResolver() {
+        public Classifier resolve(String name) {
+            return acquireClassifier(name);
+        }
+
+        public void release(String name, boolean modified) {
+            releaseClassifier(name, modified);
+        }
+    };
+
+    //private final Random d_keyGenerator;
+
+    protected ClassifierList(){
+        if (Constants.DEBUG) MLLog.d(TAG, "ClassifierList empty constructor");
+        mNamedClassifiers = new HashMap<String, Classifier>();
+        mResident = new LinkedHashMap<String, Long>(16, 0.75f, true);
+        mEvicted = new HashSet<String>();
+        mPending = new HashMap<String, PendingClassifier>();
+        mEvicting = new HashMap<String, Long>();
+        mEvictionQueue = new ArrayList<String>();
+        mPins = new HashMap<String, Integer>();
+        mMemoryBudget = Constants.DEFAULT_MEMORY_BUDGET;
+        mGson = new GsonBuilder()
+                .registerTypeHierarchyAdapter(Classifier.class,
+                        new ClassifierManager.ClassifierAdapter())
+                .create();
+        //d_keyGenerator = new Random();
+    }
+
+    /**
+     * Instantiates an untrained classifier of the given type.
+     * @param type One of the classifier types in {@link Constants}.
+     */
+    public static Classifier createClassifier (
+            int type,
+            Signature signature,
+            ClassifierConfig config) throws MLException{
+
+        if (Constants.DEBUG) MLLog.d(TAG, "createClassifier");
+
+        switch (type) {
+            case Constants.TYPE_NAIVE_BAYES:
+                if (Constants.DEBUG) MLLog.d(TAG, "create NaiveBayes");
+                return new NaiveBayes(signature, config);
+            case Constants.TYPE_ID3:
+                if (Constants.DEBUG) MLLog.d(TAG, "create ID3");
+                return new ID3(signature, config);
+            case Constants.TYPE_DENSITY_CLUSTER:
+                if (Constants.DEBUG) MLLog.d(TAG, "create DensityClustering");
+                return new DensityClustering(signature, config);
+            case Constants.TYPE_ZERO_R:
+                if (Constants.DEBUG) MLLog.d(TAG, "create ZeroR");
+                return new ZeroR(signature, config);
+            case Constants.TYPE_LOGISTIC_REGRESSION:
+                if (Constants.DEBUG) MLLog.d(TAG, "create LogisticRegression");
+                return new LogisticRegression(signature, config);
+            case Constants.TYPE_K_NEAREST_NEIGHBOURS:
+                if (Constants.DEBUG) MLLog.d(TAG, "create KNearestNeighbours");
+                return new KNearestNeighbours(signature, config);
+            case Constants.TYPE_RANDOM_FOREST:
+                if (Constants.DEBUG) MLLog.d(TAG, "create RandomForest");
+                return new RandomForest(signature, config);
+            case Constants.TYPE_ENSEMBLE:
+                if (Constants.DEBUG) MLLog.d(TAG, "create Ensemble");
+                return new Ensemble(signature, config);
+            case Constants.TYPE_SKETCH_NAIVE_BAYES:
+                if (Constants.DEBUG) MLLog.d(TAG, "create SketchNaiveBayes");
+                return new SketchNaiveBayes(signature, config);
+            case Constants.TYPE_PIPELINE:
+                if (Constants.DEBUG) MLLog.d(TAG, "create Pipeline");
+                return new Pipeline(signature, config);
+            default:
+                if (Constants.DEBUG) MLLog.d(TAG, "create default (NaiveBayes)");
+                return new NaiveBayes(signature, config);
+        }
+    }
+
+    protected synchronized void removeClassifier(String a_classifierID) {
+        PendingClassifier pending = mPending.remove(a_classifierID);
+        if (pending != null) {
+            pending.cancel(false);
+            // A classifier that is being reloaded still has its cache file
+            if (pending.isReload()) cacheFile(a_classifierID).delete();
+        }
+        if (mNamedClassifiers.containsKey(a_classifierID)) {
+            mNamedClassifiers.remove(a_classifierID);
+            Long size = mResident.remove(a_classifierID);
+            if (size != null) mResidentSize -= size;
+            mEvicting.remove(a_classifierID);
+        }
+        if (mEvicted.remove(a_classifierID)) {
+            cacheFile(a_classifierID).delete();
+        }
+    }
+
+    /**
+     * Returns the classifier with the given name, reloading it from the cache directory if it
+     * has been evicted. The classifier is not pinned, so when a memory budget is set, it may
+     * be evicted and reloaded as a different object; operations that modify it should use
+     * {@link #acquireClassifier(String)} instead.
+     */
+    protected Classifier getClassifier(String a_classifierID)
+    {
+        return getLoadedClassifier(a_classifierID, false);
+    }
+
+    /**
+     * Returns the classifier with the given name and pins it in memory, so that it is not
+     * evicted while an operation is using it. Every classifier that is returned has to be
+     * released with {@link #releaseClassifier(String, boolean)} once the operation is done.
+     * @return The classifier, or null if it does not exist, in which case nothing is pinned.
+     */
+    protected Classifier acquireClassifier(String a_classifierID)
+    {
+        return getLoadedClassifier(a_classifierID, true);
+    }
+
+    /**
+     * Releases a classifier pinned by {@link #acquireClassifier(String)}.
+     * @param resized Whether the operation may have changed the size of the classifier,
+     *                e.g. because it trained or updated it.
+     */
+    protected void releaseClassifier(String a_classifierID, boolean resized)
+    {
+        Classifier classifier = null;
+        long size = 0;
+        if (resized) {
+            synchronized (this) {
+                if (mMemoryBudget > 0) classifier = mNamedClassifiers.get(a_classifierID);
+            }
+            // Measured while still pinned, but outside the lock, as it walks the whole model
+            if (classifier != null) size = classifier.memoryFootprint();
+        }
+        synchronized (this) {
+            Integer pins = mPins.remove(a_classifierID);
+            if (pins != null && pins > 1) mPins.put(a_classifierID, pins - 1);
+            if (classifier != null && mNamedClassifiers.get(a_classifierID) == classifier) {
+                admit(a_classifierID, size);
+            }
+            trim();
+        }
+        writeEvictions();
+    }
+
+    // Looks the classifier up, waiting for it if it is being deserialized, and reloads it if
+    // it has been evicted. The cache file is read outside the lock by the thread that finds
+    // the classifier evicted; threads that request it meanwhile wait for the same reload.
+    private Classifier getLoadedClassifier(final String a_classifierID, boolean pin)
+    {
+        boolean reloaded = false;
+        while (true) {
+            if (!awaitPending(a_classifierID)) return null;
+            Classifier classifier;
+            PendingClassifier reload = null;
+            synchronized (this) {
+                // Reloaded again by another thread after an eviction
+                if (mPending.containsKey(a_classifierID)) continue;
+                classifier = mNamedClassifiers.get(a_classifierID);
+                if (classifier != null) {
+                    if (!reloaded) mHits++;
+                    touch(a_classifierID, classifier);
+                    if (pin) {
+                        Integer pins = mPins.get(a_classifierID);
+                        mPins.put(a_classifierID, pins == null ? 1 : pins + 1);
+                    }
+                } else if (mEvicted.remove(a_classifierID)) {
+                    mMisses++;
+                    reload = new PendingClassifier(a_classifierID, true, new Callable<Classifier>() {
+                        public Classifier call() throws MLException {
+                            return readCached(a_classifierID);
+                        }
+                    });
+                    mPending.put(a_classifierID, reload);
+                } else {
+                    return null;
+                }
+            }
+            if (reload == null) {
+                writeEvictions();
+                return classifier;
+            }
+            // Run by this thread rather than the worker pool, which may be busy
+            reload.run();
+            try {
+                reload.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                return null;
+            } catch (CancellationException e) {
+                return null;
+            }
+            reloaded = true;
+        }
+    }
+
+    // Marks the classifier as the most recently used one. Its size is only measured again
+    // when an operation that may have changed it is released. A classifier that is being
+    // evicted stays in memory instead.
+    private void touch(String name, Classifier classifier) {
+        if (mMemoryBudget <= 0 || mResident.get(name) != null) return;
+        Long size = mEvicting.get(name);
+        if (size != null) {
+            admit(name, size);
+        } else {
+            admit(name, classifier);
+        }
+        trim();
+    }
+
+    protected Classifier addClassifier(
+            int type, Signature signature, ClassifierConfig config, String name) throws MLException {
+
+        if (Constants.DEBUG) MLLog.d(TAG, "addClassifier");
+
+        Classifier classifier;
+        synchronized (this) {
+            removeClassifier(name);
+            classifier = createClassifier(type, signature, config);
+            attach(classifier);
+            mNamedClassifiers.put(name, classifier);
+            admit(name, classifier);
+            trim();
+        }
+        writeEvictions();
+        return classifier;
+    }
+
+    protected synchronized boolean containsClassifier(String a_classifierID) {
+        return mNamedClassifiers.containsKey(a_classifierID) || mEvicted.contains(a_classifierID)
+                || mPending.containsKey(a_classifierID);
+    }
+
+    /**
+     * Registers a stored classifier and deserializes it on the {@link WorkerPool}. The
+     * classifier becomes available as soon as its deserialization completes.
+     * @param name Classifier name.
+     * @param json Serialized classifier, UTF-8 encoded. It is parsed on the worker pool as
+     *             well, so that only the classifiers being deserialized are held as trees.
+     */
+    protected synchronized void addSerialized(final String name, final byte[] json) {
+        removeClassifier(name);
+        PendingClassifier pending = new PendingClassifier(name, false, new Callable<Classifier>() {
+            public Classifier call() throws IOException {
+                Reader reader = new InputStreamReader(new ByteArrayInputStream(json), "UTF-8");
+                try {
+                    return mGson.fromJson(reader, Classifier.class);
+                } finally {
+                    reader.close();
+                }
+            }
+        });
+        mPending.put(name, pending);
+        WorkerPool.getExecutor().execute(pending);
+    }
+
+    // Waits for the classifier to be deserialized, if it is still pending.
+    // Returns false if the thread was interrupted while waiting.
+    private boolean awaitPending(String name) {
+        PendingClassifier pending;
+        synchronized (this) {
+            pending = mPending.get(name);
+        }
+        if (pending == null) return true;
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            // Reported when the pending classifier is completed.
+        } catch (CancellationException e) {
+            return true;
+        }
+        completePending(name, pending);
+        return true;
+    }
+
+    private void awaitAllPending() {
+        ArrayList<String> names;
+        synchronized (this) {
+            names = new ArrayList<String>(mPending.keySet());
+        }
+        for (String name : names) {
+            awaitPending(name);
+        }
+    }
+
+    // Moves a deserialized classifier to the list, unless it was removed or replaced meanwhile.
+    private void completePending(String name, PendingClassifier pending) {
+        synchronized (this) {
+            if (mPending.get(name) != pending) return;
+            mPending.remove(name);
+            try {
+                Classifier classifier = pending.get();
+                if (classifier == null) return;
+                if (pending.isReload()) cacheFile(name).delete();
+                attach(classifier);
+                mNamedClassifiers.put(name, classifier);
+                admit(name, classifier);
+                trim();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                MLLog.e(TAG, "Could not load classifier "+name+": "+e.getCause());
+                // The cache file is kept, so that a later request tries again
+                if (pending.isReload()) mEvicted.add(name);
+            }
+        }
+        writeEvictions();
+    }
+
+    private class PendingClassifier extends FutureTask<Classifier> {
+
+        private final String mName;
+
+        // Whether the classifier is read from the cache directory, rather than from storage
+        private final boolean mReload;
+
+        PendingClassifier(String name, boolean reload, Callable<Classifier> callable) {
+            super(callable);
+            mName = name;
+            mReload = reload;
+        }
+
+        boolean isReload() {
+            return mReload;
+        }
+
+        @Override
+        protected void done() {
+            if (!isCancelled()) completePending(mName, this);
+        }
+    }
+
+    /**
+     * Bounds the memory used by the resident classifiers.
+     * @param cacheDir Directory to which the evicted classifiers are written.
+     * @param budget Memory budget in bytes, zero or less for an unbounded list.
+     */
+    protected void setMemoryBudget(File cacheDir, long budget) {
+        synchronized (this) {
+            mCacheDir = cacheDir;
+            mMemoryBudget = budget;
+            // Classifiers restored from a stored list are not yet accounted for.
+            for (Map.Entry<String, Classifier> entry : mNamedClassifiers.entrySet()) {
+                if (!mResident.containsKey(entry.getKey()) && !mEvicting.containsKey(entry.getKey())) {
+                    admit(entry.getKey(), entry.getValue());
+                }
+            }
+            trim();
+        }
+        writeEvictions();
+    }
+
+    protected synchronized long getMemoryBudget() {
+        return mMemoryBudget;
+    }
+
+    /**
+     * @return Estimated size in bytes of a resident classifier, or -1 if the classifier is
+     * not in memory.
+     */
+    protected synchronized long getEstimatedSize(String a_classifierID) {
+        Classifier classifier = mNamedClassifiers.get(a_classifierID);
+        return classifier == null ? -1 : classifier.memoryFootprint();
+    }
+
+    protected synchronized long getResidentSize() {
+        return mResidentSize;
+    }
+
+    protected synchronized long getHits() {
+        return mHits;
+    }
+
+    protected synchronized long getMisses() {
+        return mMisses;
+    }
+
+    protected synchronized long getEvictions() {
+        return mEvictions;
+    }
+
+    /**
+     * Writes the whole list, including the evicted classifiers, in the same JSON form that
+     * Gson produces for the list itself. Evicted classifiers are copied from their cache
+     * files without being loaded back into memory.
+     */
+    protected void writeTo(Writer writer) throws MLException {
+        awaitAllPending();
+        synchronized (this) {
+            writeLoaded(writer);
+        }
+    }
+
+    private void writeLoaded(Writer writer) throws MLException {
+        try {
+            writer.write("{\"mNamedClassifiers\":{");
+            boolean first = true;
+            for (Map.Entry<String, Classifier> entry : mNamedClassifiers.entrySet()) {
+                if (!first) writer.write(',');
+                first = false;
+                writer.write(mGson.toJson(entry.getKey()));
+                writer.write(':');
+                mGson.toJson(entry.getValue(), writer);
+            }
+            // Classifiers that are being reloaded still have their cache files
+            ArrayList<String> cached = new ArrayList<String>(mEvicted);
+            for (PendingClassifier pending : mPending.values()) {
+                if (pending.isReload()) cached.add(pending.mName);
+            }
+            char[] buffer = new char[8192];
+            for (String name : cached) {
+                if (!first) writer.write(',');
+                first = false;
+                writer.write(mGson.toJson(name));
+                writer.write(':');
+                Reader reader = new InputStreamReader(new FileInputStream(cacheFile(name)), "UTF-8");
+                try {
+                    int read;
+                    while ((read = reader.read(buffer)) != -1) {
+                        writer.write(buffer, 0, read);
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+            writer.write("}}");
+            writer.flush();
+        } catch (IOException e) {
+            throw new MLException(MLException.IO_ERROR, "IO exception while writing classifiers.");
+        }
+    }
+
+    // Every classifier that enters the list goes through here, whether it is created,
+    // deserialized or reloaded from the cache. Ensembles look up their members in this list.
+    private void attach(Classifier classifier) {
+        if (classifier instanceof Ensemble) {
+            ((Ensemble) classifier).setResolver(mResolver);
+        }
+    }
+
+    private void admit(String name, Classifier classifier) {
+        if (mMemoryBudget <= 0) return;
+        admit(name, classifier.memoryFootprint());
+    }
+
+    private void admit(String name, long size) {
+        if (mMemoryBudget <= 0) return;
+        // A classifier that is used again before its cache file is complete stays in memory
+        mEvicting.remove(name);
+        Long previous = mResident.put(name, size);
+        if (previous != null) mResidentSize -= previous;
+        mResidentSize += size;
+    }
+
+    // Chooses the least recently used classifiers for eviction until the budget is met. The
+    // most recently used classifier always stays in memory, even if it alone exceeds the
+    // budget, and so do the pinned ones, which an operation may still be changing. The
+    // chosen ones are written to the cache directory by writeEvictions(), outside the lock.
+    private void trim() {
+        if (mMemoryBudget <= 0 || mCacheDir == null) return;
+
+        Iterator<Map.Entry<String, Long>> it = mResident.entrySet().iterator();
+        int candidates = mResident.size() - 1;
+        while (mResidentSize > mMemoryBudget && candidates-- > 0) {
+            Map.Entry<String, Long> eldest = it.next();
+            String name = eldest.getKey();
+            if (mPins.containsKey(name)) continue;
+            mResidentSize -= eldest.getValue();
+            it.remove();
+            mEvicting.put(name, eldest.getValue());
+            mEvictionQueue.add(name);
+        }
+    }
+
+    // Writes the classifiers chosen by trim() to the cache directory and evicts them. Called
+    // without holding the lock, after every operation that may have chosen some; each
+    // classifier is written by the first thread that takes it from the queue.
+    private void writeEvictions() {
+        while (true) {
+            String name;
+            Classifier classifier;
+            synchronized (this) {
+                if (mEvictionQueue.isEmpty()) return;
+                name = mEvictionQueue.remove(0);
+                // Used again or removed since it was chosen
+                if (!mEvicting.containsKey(name)) continue;
+                classifier = mNamedClassifiers.get(name);
+            }
+            File file = null;
+            try {
+                file = writeCached(name, classifier);
+            } catch (MLException e) {
+                MLLog.e(TAG, "Could not evict classifier "+name+": "+e.getMessage());
+            }
+            finishEviction(name, classifier, file);
+        }
+    }
+
+    // Moves the written cache file in place and drops the classifier from memory, unless it
+    // was used again, removed or replaced while it was written.
+    private synchronized void finishEviction(String name, Classifier classifier, File file) {
+        Long size = mEvicting.get(name);
+        if (size == null || mNamedClassifiers.get(name) != classifier) {
+            if (file != null) file.delete();
+            return;
+        }
+        mEvicting.remove(name);
+        if (file == null || !file.renameTo(cacheFile(name))) {
+            if (file != null) file.delete();
+            admit(name, size);
+            return;
+        }
+        mNamedClassifiers.remove(name);
+        mEvicted.add(name);
+        mEvictions++;
+        if (Constants.DEBUG) MLLog.d(TAG, "Evicted "+name+", resident size "+mResidentSize);
+    }
+
+    private File cacheFile(String name) {
+        try {
+            return new File(mCacheDir, URLEncoder.encode(name, "UTF-8") + ".json");
+        } catch (UnsupportedEncodingException e) {
+            return new File(mCacheDir, Integer.toHexString(name.hashCode()) + ".json");
+        }
+    }
+
+    // Writes the classifier to a temporary file in the cache directory and returns the file.
+    private File writeCached(String name, Classifier classifier) throws MLException {
+        File cacheDir = mCacheDir;
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            throw new MLException(MLException.IO_ERROR, "Cannot create "+cacheDir+".");
+        }
+        File file = null;
+        try {
+            file = File.createTempFile("evict", ".tmp", cacheDir);
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try {
+                // Online classifiers update under their own lock, so the copy is consistent
+                synchronized (classifier) {
+                    mGson.toJson(classifier, writer);
+                }
+            } finally {
+                writer.close();
+            }
+            return file;
+        } catch (IOException e) {
+            if (file != null) file.delete();
+            throw new MLException(MLException.IO_ERROR, "IO exception while evicting "+name+".");
+        }
+    }
+
+    private Classifier readCached(String name) throws MLException {
+        try {
+            Reader reader = new InputStreamReader(new FileInputStream(cacheFile(name)), "UTF-8");
+            try {
+                return mGson.fromJson(reader, Classifier.class);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new MLException(MLException.IO_ERROR, "IO exception while reloading "+name+".");
+        } catch (JsonParseException e) {
+            throw new MLException(MLException.IO_ERROR, "Malformed cache file for "+name+".");
+        }
+    }
+
+}
@@ -0,0 +1,789 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit;
+
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Classifier;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.DensityClustering;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Ensemble;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.ID3;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.KNearestNeighbours;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.LogisticRegression;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.NaiveBayes;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Pipeline;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.RandomForest;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.SketchNaiveBayes;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.OnlineClassifier;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.ZeroR;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.metrics.ClassifierMetrics;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.metrics.MetricsRegistry;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing.Discretizer;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing.FeatureSelector;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing.Imputer;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing.Standardizer;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing.Transformer;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureHashed;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNumeric;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Storage;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Deals with instantiating classifiers, sending training/test data
+ * to the right classifier, namely the one that an application has instantiated earlier.
+ * Has methods that allow it to save classifiers to a file, and load them from a file.
+ * Every manager has its own named store, which it keeps in a {@link Storage}, so
+ * independent workloads can load and save their classifiers separately.
+ *
+ * This class does not depend on Android and can be used on any JVM, e.g. with a
+ * {@link si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FileStorage}. Android applications
+ * use MachineLearningManager from the Android library instead.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class ClassifierManager {
+
+    private static final String TAG = "ClassifierManager";
+
+    private final ClassifierList mClassifiers;
+    private ClassifierExecutor mExecutor;
+    private final HashMap<String, ClassifyCoalescer> mCoalescers;
+    private ScheduledExecutorService mCoalescerTimer;
+    // Null while metrics are disabled.
+    private volatile MetricsRegistry mMetrics;
+    private final Storage mStorage;
+    private final String mStoreName;
+    private final String mStorageFile;
+    // Serializes saving and loading of this manager's store only.
+    private final Object mStoreLock = new Object();
+
+    /**
+     * Instantiates a manager for the store with the given name and loads the store if it
+     * already exists in the given storage. Only one manager should use a store at a time.
+     * @param storeName Store name, consisting of letters, digits, '_' and '-' only.
+     * @param storage Storage holding the store.
+     * @throws MLException
+     */
+    public ClassifierManager(String storeName, Storage storage) throws MLException {
+        if (storeName == null || !storeName.matches("[A-Za-z0-9_-]+")) {
+            throw new MLException(MLException.INVALID_PARAMETER,
+                    " Invalid parameter, store name "+storeName+" is not valid");
+        }
+        if (storage == null) {
+            throw new MLException(MLException.INVALID_PARAMETER,
+                    " Invalid parameter, storage object passed is null");
+        }
+        mStorage = storage;
+        mStoreName = storeName;
+        mCoalescers = new HashMap<String, ClassifyCoalescer>();
+        if (storeName.equals(Constants.DEFAULT_STORE_NAME)) {
+            mStorageFile = Constants.CLASSIFIER_STORAGE_FILE;
+        } else {
+            mStorageFile = storeName + Constants.CLASSIFIER_STORAGE_EXTENSION;
+        }
+        // automatic loading if classifiers exist in the storage
+        if (mStorage.exists(mStorageFile)){
+            mClassifiers = loadFromPersistent();
+        }
+        else{
+            mClassifiers = new ClassifierList();
+        }
+    }
+
+    public String getStoreName() {
+        return mStoreName;
+    }
+
+    /**
+     * Instantiates a new, or returns an existing classifier with the given name and properties.
+     * Properties include classifier type (available options can be found in {@link Constants}),
+     * classifier signature ({@link Signature}) and classifier configuration
+     * ({@link ClassifierConfig}).
+     * @param type Type of classifier. One of the options from {@link Constants}).
+     * @param signature Classifier signature
+     * @param config Classifier configuration, if any.
+     * @param name Unique classifier name.
+     * @return A new, or an existing classifier if one with the given name is already instantiated.
+     */
+    public Classifier addClassifier(int type, Signature signature,
+                                    ClassifierConfig config, String name) throws MLException {
+
+        if (Constants.DEBUG) MLLog.d(TAG, "addClassifier");
+
+        Classifier cls = mClassifiers.getClassifier(name);
+
+        // TODO: Expose classifier properties so that we can check
+        // if the existing classifier is the same as the one we require.
+        if (cls != null) {
+            //Log.d(TAG, "return existing classifier");
+            return cls;
+        }
+        //throw new MLException(MLException.CLASSIFIER_EXISTS, "Classifier "+name+" already exists.");
+        //Log.d(TAG, "return brand new classifier");
+        return mClassifiers.addClassifier(type, signature, config, name);
+    }
+
+    /**
+     * Removes a classifier if it exists. If a classifier with the given name does not exist, nothing
+     * will happen.
+     * @param name Classifier name.
+     */
+    public void removeClassifier(String name){
+        mClassifiers.removeClassifier(name);
+        MetricsRegistry metrics = mMetrics;
+        if (metrics != null) metrics.remove(name);
+    }
+
+    /**
+     * Returns a classifier with the given name, or null if such a classifier doesn't exist.
+     * @param name Classifier name.
+     * @return An instance of the classifier with the given name.
+     */
+    public Classifier getClassifier(String name){
+        return mClassifiers.getClassifier(name);
+    }
+
+    /**
+     * Configures the worker threads used by {@link #classifyAsync(String, Instance)} and
+     * {@link #updateAsync(String, Instance)}. Operations that are already running finish on
+     * the previous threads. Those still queued are handed over to the new threads and run in
+     * the order they were submitted, without counting against the new queue capacity.
+     * @param numThreads Number of worker threads, zero for one per core.
+     * @param queueCapacity Maximum number of operations that are queued or running.
+     * @param rejectionPolicy What happens once the queue is full, either
+     *                        {@link Constants#ASYNC_REJECT_ABORT} or
+     *                        {@link Constants#ASYNC_REJECT_BLOCK}.
+     */
+    public void setAsyncLimits(int numThreads, int queueCapacity, int rejectionPolicy)
+            throws MLException {
+        if (queueCapacity <= 0 || (rejectionPolicy != Constants.ASYNC_REJECT_ABORT
+                && rejectionPolicy != Constants.ASYNC_REJECT_BLOCK)) {
+            throw new MLException(MLException.INVALID_PARAMETER,
+                    " Invalid parameter, queue capacity or rejection policy not valid");
+        }
+        synchronized (this) {
+            ClassifierExecutor executor =
+                    new ClassifierExecutor(numThreads, queueCapacity, rejectionPolicy);
+            if (mExecutor != null) mExecutor.replaceWith(executor);
+            mExecutor = executor;
+        }
+    }
+
+    synchronized ClassifierExecutor getExecutor() {
+        if (mExecutor == null) {
+            mExecutor = new ClassifierExecutor(Constants.DEFAULT_ASYNC_THREADS,
+                    Constants.DEFAULT_ASYNC_QUEUE_CAPACITY, Constants.DEFAULT_ASYNC_REJECTION_POLICY);
+        }
+        return mExecutor;
+    }
+
+    /**
+     * Classifies an instance on a worker thread. Operations on the same classifier are
+     * executed in submission order.
+     * @param name Classifier name.
+     * @param instance Instance to be classified.
+     * @return Future holding the inferred label.
+     * @throws MLException If the asynchronous queue is full.
+     */
+    public Future<Value> classifyAsync(String name, Instance instance) throws MLException {
+        return classifyAsync(name, instance, null);
+    }
+
+    /**
+     * Classifies an instance on a worker thread and passes the inferred label to the callback.
+     * @param name Classifier name.
+     * @param instance Instance to be classified.
+     * @param callback Callback notified on the worker thread, may be null.
+     * @return Future holding the inferred label.
+     * @throws MLException If the asynchronous queue is full.
+     */
+    public Future<Value> classifyAsync(final String name, final Instance instance,
+                                       MLCallback<Value> callback) throws MLException {
+        ClassifyCoalescer coalescer;
+        synchronized (mCoalescers) {
+            coalescer = mCoalescers.get(name);
+        }
+        if (coalescer != null) {
+            return coalescer.classify(instance, callback);
+        }
+        return getExecutor().submit(name, new Callable<Value>() {
+            public Value call() throws MLException {
+                return classify(name, instance);
+            }
+        }, callback);
+    }
+
+    /**
+     * Updates an online classifier on a worker thread. Updates of the same classifier are
+     * applied in submission order.
+     * @param name Classifier name.
+     * @param instance Labelled instance.
+     * @return Future that completes when the update has been applied.
+     * @throws MLException If the asynchronous queue is full.
+     */
+    public Future<Void> updateAsync(String name, Instance instance) throws MLException {
+        return updateAsync(name, instance, null);
+    }
+
+    /**
+     * Updates an online classifier on a worker thread and notifies the callback when done.
+     * @param name Classifier name.
+     * @param instance Labelled instance.
+     * @param callback Callback notified on the worker thread, may be null.
+     * @return Future that completes when the update has been applied.
+     * @throws MLException If the asynchronous queue is full.
+     */
+    public Future<Void> updateAsync(final String name, final Instance instance,
+                                    MLCallback<Void> callback) throws MLException {
+        ClassifyCoalescer coalescer;
+        synchronized (mCoalescers) {
+            coalescer = mCoalescers.get(name);
+        }
+        // Classifications collected for a batch were submitted first, so they run first
+        if (coalescer != null) coalescer.flush();
+        return getExecutor().submit(name, new Callable<Void>() {
+            public Void call() throws MLException {
+                update(name, instance);
+                return null;
+            }
+        }, callback);
+    }
+
+    /**
+     * Trains the named classifier. Unlike calling the classifier directly, the call is
+     * recorded in the metrics, if enabled.
+     * @param name Classifier name.
+     * @param instances Labelled instances.
+     * @throws MLException
+     */
+    public void train(String name, ArrayList<Instance> instances) throws MLException {
+        MetricsRegistry metrics = mMetrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Classifier classifier = null;
+        try {
+            classifier = acquireClassifier(name);
+            classifier.train(instances);
+        } catch (MLException e) {
+            if (metrics != null) {
+                metrics.recordError(name, ClassifierMetrics.OPERATION_TRAIN, e.getErrorCode());
+            }
+            throw e;
+        } finally {
+            if (classifier != null) mClassifiers.releaseClassifier(name, true);
+        }
+        if (metrics != null) {
+            metrics.recordOperation(name, ClassifierMetrics.OPERATION_TRAIN, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Updates the named online classifier. Unlike calling the classifier directly, the call
+     * is recorded in the metrics, if enabled.
+     * @param name Classifier name.
+     * @param instance Labelled instance.
+     * @throws MLException
+     */
+    public void update(String name, Instance instance) throws MLException {
+        MetricsRegistry metrics = mMetrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Classifier classifier = null;
+        try {
+            classifier = acquireClassifier(name);
+            if (!(classifier instanceof OnlineClassifier)) {
+                throw new MLException(MLException.INVALID_PARAMETER,
+                        "Classifier "+name+" does not support online updates.");
+            }
+            ((OnlineClassifier) classifier).update(instance);
+        } catch (MLException e) {
+            if (metrics != null) {
+                metrics.recordError(name, ClassifierMetrics.OPERATION_UPDATE, e.getErrorCode());
+            }
+            throw e;
+        } finally {
+            if (classifier != null) mClassifiers.releaseClassifier(name, true);
+        }
+        if (metrics != null) {
+            metrics.recordOperation(name, ClassifierMetrics.OPERATION_UPDATE, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Classifies an instance with the named classifier. Unlike calling the classifier
+     * directly, the call is recorded in the metrics, if enabled.
+     * @param name Classifier name.
+     * @param instance Instance to be classified.
+     * @return The inferred label.
+     * @throws MLException
+     */
+    public Value classify(String name, Instance instance) throws MLException {
+        MetricsRegistry metrics = mMetrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Classifier classifier = null;
+        Value label;
+        try {
+            classifier = acquireClassifier(name);
+            label = classifier.classify(instance);
+        } catch (MLException e) {
+            if (metrics != null) {
+                metrics.recordError(name, ClassifierMetrics.OPERATION_CLASSIFY, e.getErrorCode());
+            }
+            throw e;
+        } finally {
+            if (classifier != null) mClassifiers.releaseClassifier(name, false);
+        }
+        if (metrics != null) {
+            metrics.recordOperation(name, ClassifierMetrics.OPERATION_CLASSIFY, System.nanoTime() - start);
+        }
+        return label;
+    }
+
+    /**
+     * Classifies a batch of instances with the named classifier. In the metrics, every
+     * instance counts as one classification taking an equal share of the batch time.
+     * @param name Classifier name.
+     * @param instances Instances to be classified.
+     * @return The inferred labels, in the order of the given instances.
+     * @throws MLException
+     */
+    public Value[] classify(String name, ArrayList<Instance> instances) throws MLException {
+        MetricsRegistry metrics = mMetrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        Classifier classifier = null;
+        Value[] labels;
+        try {
+            classifier = acquireClassifier(name);
+            labels = classifier.classify(instances);
+        } catch (MLException e) {
+            if (metrics != null) {
+                metrics.recordError(name, ClassifierMetrics.OPERATION_CLASSIFY, e.getErrorCode());
+            }
+            throw e;
+        } finally {
+            if (classifier != null) mClassifiers.releaseClassifier(name, false);
+        }
+        if (metrics != null && labels.length > 0) {
+            long share = (System.nanoTime() - start) / labels.length;
+            for (int i = 0; i < labels.length; i++) {
+                metrics.recordOperation(name, ClassifierMetrics.OPERATION_CLASSIFY, share);
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Turns collection of per-classifier metrics on or off. Metrics are collected for the
+     * train, update and classify calls made through the manager, both synchronous and
+     * asynchronous. While disabled, the calls pay no metrics overhead at all. Disabling
+     * discards the metrics collected so far.
+     * @param enabled Whether metrics should be collected.
+     */
+    public synchronized void setMetricsEnabled(boolean enabled) {
+        if (enabled && mMetrics == null) {
+            mMetrics = new MetricsRegistry();
+        } else if (!enabled) {
+            mMetrics = null;
+        }
+    }
+
+    /**
+     * @return Registry holding the metrics of all classifiers, for registering
+     * {@link si.uni_lj.fri.lrss.machinelearningtoolkit.metrics.MetricsListener}s,
+     * or null if metrics are disabled.
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return mMetrics;
+    }
+
+    /**
+     * Returns the metrics of a classifier, with its model size gauge refreshed.
+     * @param name Classifier name.
+     * @return Metrics of the classifier, or null if metrics are disabled.
+     */
+    public ClassifierMetrics getMetrics(String name) {
+        MetricsRegistry metrics = mMetrics;
+        if (metrics == null) return null;
+        ClassifierMetrics classifierMetrics = metrics.getMetrics(name);
+        classifierMetrics.setModelSize(mClassifiers.getEstimatedSize(name));
+        return classifierMetrics;
+    }
+
+    /**
+     * Makes {@link #classifyAsync(String, Instance)} collect requests for the classifier and
+     * classify them in batches, which lowers the per-instance cost under heavy load.
+     * A batch is classified once it holds maxBatchSize instances, or once its oldest request
+     * has waited maxDelayMicros, so the added latency never exceeds maxDelayMicros.
+     * {@link #updateAsync(String, Instance)} dispatches the collected requests right away,
+     * so that they are still classified before the update is applied.
+     * @param name Classifier name.
+     * @param maxBatchSize Maximum number of instances per batch.
+     * @param maxDelayMicros Maximum time a request waits for its batch to fill up.
+     */
+    public void enableCoalescing(String name, int maxBatchSize, long maxDelayMicros)
+            throws MLException {
+        if (maxBatchSize < 1 || maxDelayMicros < 0) {
+            throw new MLException(MLException.INVALID_PARAMETER,
+                    " Invalid parameter, batch size or delay not valid");
+        }
+        ClassifyCoalescer previous;
+        synchronized (mCoalescers) {
+            if (mCoalescerTimer == null) {
+                mCoalescerTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "mltoolkit-coalescer");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            previous = mCoalescers.put(name, new ClassifyCoalescer(this, name, maxBatchSize,
+                    maxDelayMicros, mCoalescerTimer));
+        }
+        if (previous != null) previous.flush();
+    }
+
+    /**
+     * Stops batching classification requests for the classifier. Requests that have already
+     * been collected are classified right away.
+     * @param name Classifier name.
+     */
+    public void disableCoalescing(String name) {
+        ClassifyCoalescer coalescer;
+        synchronized (mCoalescers) {
+            coalescer = mCoalescers.remove(name);
+        }
+        if (coalescer != null) coalescer.flush();
+    }
+
+    // The classifier is looked up when the operation runs, as it may have been evicted
+    // and reloaded since the operation was submitted. It stays pinned in memory until it
+    // is released, so that an eviction cannot lose what the operation changes.
+    private Classifier acquireClassifier(String name) throws MLException {
+        Classifier classifier = mClassifiers.acquireClassifier(name);
+        if (classifier == null) {
+            throw new MLException(MLException.INVALID_PARAMETER, "Classifier "+name+" does not exist.");
+        }
+        return classifier;
+    }
+
+    public String getJSON() {
+        StringWriter writer = new StringWriter();
+        try {
+            mClassifiers.writeTo(writer);
+        } catch (MLException e) {
+            MLLog.e(TAG, "Could not serialize classifiers: "+e.getMessage());
+            return null;
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Bounds the memory used by the classifiers of this manager. When the estimated size of
+     * the classifiers in memory exceeds the budget, the least recently used ones are written
+     * to the internal storage and evicted. Classifiers are not evicted while the train, update
+     * and classify calls of this manager use them. Those obtained through
+     * {@link #getClassifier(String)} are not protected, so they should be trained and
+     * updated through the manager while a budget is set, rather than directly.
+     * @param bytes Memory budget in bytes, zero or less for no limit.
+     */
+    public void setMemoryBudget(long bytes) {
+        mClassifiers.setMemoryBudget(new File(mStorage.getCacheDir(), mStoreName), bytes);
+    }
+
+    public long getMemoryBudget() {
+        return mClassifiers.getMemoryBudget();
+    }
+
+    /**
+     * Returns the estimated size of a classifier that is currently in memory.
+     * @param name Classifier name.
+     * @return Size estimate in bytes, or -1 if the classifier is not in memory.
+     */
+    public long getEstimatedSize(String name) {
+        return mClassifiers.getEstimatedSize(name);
+    }
+
+    /**
+     * @return Estimated size in bytes of all classifiers in memory, if a memory budget is set.
+     */
+    public long getResidentSize() {
+        return mClassifiers.getResidentSize();
+    }
+
+    /**
+     * @return Number of {@link #getClassifier(String)} calls served from memory.
+     */
+    public long getCacheHits() {
+        return mClassifiers.getHits();
+    }
+
+    /**
+     * @return Number of {@link #getClassifier(String)} calls that reloaded an evicted classifier.
+     */
+    public long getCacheMisses() {
+        return mClassifiers.getMisses();
+    }
+
+    /**
+     * @return Number of classifiers evicted from memory so far.
+     */
+    public long getCacheEvictions() {
+        return mClassifiers.getEvictions();
+    }
+
+    /**
+     * Saves classifiers to the given json-formatted file.
+     * @param file Destination file.
+     */
+    public void saveToFile(File file) throws MLException {
+        synchronized (mStoreLock) {
+            try {
+                write(new FileOutputStream(file));
+            } catch (FileNotFoundException e) {
+                throw new MLException(MLException.IO_FILE_NOT_FOUND_ERROR, "File "+file.getName()+" not found.");
+            }
+        }
+    }
+
+    /**
+     * Saves classifiers to the file of this store in the storage. The overlying application
+     * should call this method before the application is closed/destroyed.
+     */
+    public void saveToPersistent() throws MLException {
+        synchronized (mStoreLock) {
+            try {
+                write(mStorage.openOutput(mStorageFile));
+            } catch (FileNotFoundException e) {
+                throw new MLException(MLException.IO_FILE_NOT_FOUND_ERROR, "Classifier file not found.");
+            } catch (IOException e) {
+                throw new MLException(MLException.IO_ERROR, "IO exception while writing internal storage.");
+            }
+        }
+    }
+
+    private void write(OutputStream out) throws MLException {
+        try {
+            OutputStreamWriter osw = new OutputStreamWriter(out, "UTF-8");
+            try {
+                mClassifiers.writeTo(osw);
+            } finally {
+                osw.close();
+            }
+        } catch (IOException e) {
+            throw new MLException(MLException.IO_ERROR, "IO exception while writing classifiers.");
+        }
+    }
+
+    /**
+     * Loads classifiers from the given json-formatted file.
+     * @param file JSON formatted file with classifier information.
+     * @return List of classifiers loaded from the file.
+     */
+    public ClassifierList loadFromFile(File file) throws MLException {
+        synchronized (mStoreLock) {
+            return readFile(file);
+        }
+    }
+
+    /**
+     * Loads classifiers from the file of this store in the storage. The method is called
+     * automatically when the manager is instantiated.
+     */
+    public ClassifierList loadFromPersistent() throws MLException {
+        synchronized (mStoreLock) {
+            return readFile(mStorage.getFile(mStorageFile));
+        }
+    }
+
+    /**
+     * Streams the given file and splits it into the serialized classifiers, which are then
+     * parsed and deserialized in parallel. Neither the file nor the parsed tree of the whole
+     * store is ever held in memory. The returned list is usable right away and waits for a
+     * classifier only if it is requested before it has been deserialized.
+     * @param file JSON formatted file with classifier information.
+     * @return List of classifiers loaded from the file.
+     */
+    private ClassifierList readFile(File file) throws MLException {
+
+        FileInputStream in;
+        try {
+            in = new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            throw new MLException(MLException.IO_FILE_NOT_FOUND_ERROR, "File "+file.getName()+" not found.");
+        }
+
+        // The file is only split into its classifiers here. Classifiers are independent of
+        // each other, so each one is parsed and deserialized on the worker pool as soon as
+        // its bytes have been read.
+        final ClassifierList classifiers = new ClassifierList();
+        try {
+            StoreSplitter.split(in, new StoreSplitter.Handler() {
+                public void onClassifier(String name, byte[] json) {
+                    classifiers.addSerialized(name, json);
+                }
+            });
+        } catch (IOException e) {
+            throw new MLException(MLException.IO_ERROR, "IO exception while reading "+file.getName()+".");
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                MLLog.e(TAG, "Could not close "+file.getName()+".");
+            }
+        }
+        return classifiers;
+    }
+
+    static class ClassifierAdapter implements JsonDeserializer<Classifier> {
+
+        Gson gson;
+
+        ClassifierAdapter(){
+            GsonBuilder gsonBuilder = new GsonBuilder();
+            gsonBuilder.registerTypeHierarchyAdapter(Feature.class, new FeatureAdapter());
+            // Pipelines hold a classifier and their stages. The adapter is registered for the
+            // abstract type only, so that the concrete classes are still read field by field.
+            gsonBuilder.registerTypeAdapter(Classifier.class, this);
+            gsonBuilder.registerTypeHierarchyAdapter(Transformer.class, new TransformerAdapter());
+            gson = gsonBuilder.create();
+        }
+
+        public Classifier deserialize(JsonElement elem, Type type, JsonDeserializationContext context)
+                throws JsonParseException {
+            Classifier result = null;
+
+            JsonObject object = elem.getAsJsonObject();
+            int intType = object.get("mType").getAsInt();
+            switch(intType){
+                case Constants.TYPE_NAIVE_BAYES:
+                    result = gson.fromJson(elem, NaiveBayes.class);
+                    break;
+                case Constants.TYPE_ID3:
+                    result = gson.fromJson(elem, ID3.class);
+                    break;
+                case Constants.TYPE_DENSITY_CLUSTER:
+                    result = gson.fromJson(elem, DensityClustering.class);
+                    break;
+                case Constants.TYPE_ZERO_R:
+                    result = gson.fromJson(elem, ZeroR.class);
+                    break;
+                case Constants.TYPE_LOGISTIC_REGRESSION:
+                    result = gson.fromJson(elem, LogisticRegression.class);
+                    break;
+                case Constants.TYPE_K_NEAREST_NEIGHBOURS:
+                    result = gson.fromJson(elem, KNearestNeighbours.class);
+                    break;
+                case Constants.TYPE_RANDOM_FOREST:
+                    result = gson.fromJson(elem, RandomForest.class);
+                    break;
+                case Constants.TYPE_ENSEMBLE:
+                    result = gson.fromJson(elem, Ensemble.class);
+                    break;
+                case Constants.TYPE_SKETCH_NAIVE_BAYES:
+                    result = gson.fromJson(elem, SketchNaiveBayes.class);
+                    break;
+                case Constants.TYPE_PIPELINE:
+                    result = gson.fromJson(elem, Pipeline.class);
+                    break;
+            }
+            if (Constants.DEBUG && result != null) result.printClassifierInfo();
+            return result;
+        }
+    }
+
+    /**
+     * Pipeline stages are stored as a list of the abstract {@link Transformer} type, so the
+     * concrete class has to be picked from the stored stage type.
+     */
+    static class TransformerAdapter implements JsonDeserializer<Transformer> {
+
+        Gson gson;
+
+        TransformerAdapter(){
+            GsonBuilder gsonBuilder = new GsonBuilder();
+            gsonBuilder.registerTypeHierarchyAdapter(Feature.class, new FeatureAdapter());
+            gson = gsonBuilder.create();
+        }
+
+        public Transformer deserialize(JsonElement elem, Type type, JsonDeserializationContext context)
+                throws JsonParseException {
+
+            JsonObject object = elem.getAsJsonObject();
+            int intType = object.get("mType").getAsInt();
+            switch(intType){
+                case Constants.STAGE_IMPUTE:
+                    return gson.fromJson(elem, Imputer.class);
+                case Constants.STAGE_STANDARDIZE:
+                    return gson.fromJson(elem, Standardizer.class);
+                case Constants.STAGE_DISCRETIZE:
+                    return gson.fromJson(elem, Discretizer.class);
+                case Constants.STAGE_SELECT:
+                    return gson.fromJson(elem, FeatureSelector.class);
+                default:
+                    throw new JsonParseException("Unknown pipeline stage "+intType);
+            }
+        }
+    }
+
+    /**
+     * Features are stored as a list of the abstract {@link Feature} type, so the concrete
+     * class has to be picked from the stored feature type. Hashed features are nominal
+     * features that also store their number of buckets.
+     */
+    static class FeatureAdapter implements JsonDeserializer<Feature> {
+
+        Gson gson;
+
+        FeatureAdapter(){
+            gson = new Gson();
+        }
+
+        public Feature deserialize(JsonElement elem, Type type, JsonDeserializationContext context)
+                throws JsonParseException {
+
+            JsonObject object = elem.getAsJsonObject();
+            int intType = object.get("mType").getAsInt();
+            switch(intType){
+                case Feature.NOMINAL:
+                    if (object.has("mNumBuckets")) {
+                        return gson.fromJson(elem, FeatureHashed.class);
+                    }
+                    return gson.fromJson(elem, FeatureNominal.class);
+                case Feature.NUMERIC:
+                    return gson.fromJson(elem, FeatureNumeric.class);
+                default:
+                    throw new JsonParseException("Unknown feature type "+intType);
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Collects asynchronous classification requests for a single classifier and classifies them
+ * in batches, through {@link ClassifierManager#classify(String, ArrayList)}. A batch is dispatched once it
+ * holds the maximum number of instances, or once its oldest request has waited for the
+ * maximum delay, whichever comes first. Batches run on the manager's
+ * {@link ClassifierExecutor}, in order with the other operations on the classifier.
+ * An operation that is submitted while requests are being collected has to flush them
+ * first, so that it does not overtake them.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+class ClassifyCoalescer {
+
+    private final ClassifierManager mManager;
+    private final String mName;
+    private final int mMaxBatchSize;
+    private final long mMaxDelayMicros;
+    private final ScheduledExecutorService mTimer;
+
+    private ArrayList<Request> mBatch;
+    private ScheduledFuture<?> mScheduledFlush;
+
+    private final Runnable mFlush = new Runnable() {
+        public void run() {
+            flush();
+        }
+    };
+
+    ClassifyCoalescer(ClassifierManager manager, String name, int maxBatchSize,
+                      long maxDelayMicros, ScheduledExecutorService timer) {
+        mManager = manager;
+        mName = name;
+        mMaxBatchSize = maxBatchSize;
+        mMaxDelayMicros = maxDelayMicros;
+        mTimer = timer;
+        mBatch = new ArrayList<Request>(maxBatchSize);
+    }
+
+    Future<Value> classify(Instance instance, MLCallback<Value> callback) {
+        Request request = new Request(instance, callback);
+        synchronized (this) {
+            mBatch.add(request);
+            if (mBatch.size() >= mMaxBatchSize) {
+                dispatch(takeBatch());
+            } else if (mBatch.size() == 1) {
+                mScheduledFlush = mTimer.schedule(mFlush, mMaxDelayMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Dispatches the requests collected so far without waiting for the batch to fill up.
+     * Once the call returns, they are queued on the executor ahead of any operation that
+     * is submitted afterwards.
+     */
+    void flush() {
+        synchronized (this) {
+            if (mBatch.isEmpty()) return;
+            dispatch(takeBatch());
+        }
+    }
+
+    private ArrayList<Request> takeBatch() {
+        ArrayList<Request> batch = mBatch;
+        mBatch = new ArrayList<Request>(mMaxBatchSize);
+        if (mScheduledFlush != null) {
+            mScheduledFlush.cancel(false);
+            mScheduledFlush = null;
+        }
+        return batch;
+    }
+
+    // Called with the lock held, so that a batch that has been taken is queued before a
+    // concurrent flush returns.
+    private void dispatch(final ArrayList<Request> batch) {
+        try {
+            mManager.getExecutor().submit(mName, new Callable<Void>() {
+                public Void call() {
+                    classifyBatch(batch);
+                    return null;
+                }
+            }, null);
+        } catch (MLException e) {
+            for (Request request : batch) request.fail(e);
+        }
+    }
+
+    private void classifyBatch(ArrayList<Request> batch) {
+        ArrayList<Instance> instances = new ArrayList<Instance>(batch.size());
+        for (Request request : batch) instances.add(request.mInstance);
+        try {
+            Value[] labels = mManager.classify(mName, instances);
+            for (int i = 0; i < labels.length; i++) batch.get(i).complete(labels[i]);
+        } catch (MLException e) {
+            // A single bad instance fails the whole batch; classify the instances one by one
+            // so that only the offending requests fail.
+            for (Request request : batch) {
+                try {
+                    request.complete(mManager.classify(mName, request.mInstance));
+                } catch (MLException instanceException) {
+                    request.fail(instanceException);
+                }
+            }
+        } catch (RuntimeException e) {
+            for (Request request : batch) request.fail(e);
+        }
+    }
+
+    private static final Callable<Value> NO_OPERATION = new Callable<Value>() {
+        public Value call() {
+            return null;
+        }
+    };
+
+    // A future that is completed by the batch rather than by running its own operation.
+    private static class Request extends FutureTask<Value> {
+
+        private final Instance mInstance;
+        private final MLCallback<Value> mCallback;
+
+        Request(Instance instance, MLCallback<Value> callback) {
+            super(NO_OPERATION);
+            mInstance = instance;
+            mCallback = callback;
+        }
+
+        void complete(Value label) {
+            set(label);
+        }
+
+        void fail(Exception exception) {
+            setException(exception);
+        }
+
+        @Override
+        protected void done() {
+            ClassifierExecutor.notifyCallback(this, mCallback);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+
+/**
+ * Receives the outcome of an asynchronous classifier operation. The methods are called on
+ * the worker thread that executed the operation, so implementations that touch the UI have
+ * to post the result to the main thread themselves.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ * @param <V> Result type of the operation.
+ */
+public interface MLCallback<V> {
+
+    /**
+     * Called when the operation completes successfully.
+     * @param result Result of the operation, null for updates.
+     */
+    public void onResult(V result);
+
+    /**
+     * Called when the operation fails.
+     * @param exception Cause of the failure.
+     */
+    public void onError(MLException exception);
+}
@@ -0,0 +1,200 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+
+import com.google.gson.stream.JsonReader;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+
+/**
+ * Splits a stored classifier list into the serialized forms of its classifiers, without
+ * parsing them. The file is scanned byte by byte for the structure of the JSON text only;
+ * every classifier is handed over as the raw bytes of its value as soon as the value ends,
+ * so that it can be parsed and deserialized on another thread while the scan goes on.
+ * <p>
+ * The scan relies on UTF-8 encoding every structural character as a single byte, which
+ * never occurs within a multi-byte sequence.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+class StoreSplitter {
+
+    /**
+     * Receives the classifiers found in the stored list.
+     */
+    interface Handler {
+        /**
+         * @param name Classifier name.
+         * @param json Serialized classifier, UTF-8 encoded.
+         */
+        void onClassifier(String name, byte[] json);
+    }
+
+    // Field of the stored list that holds the classifiers by name
+    private static final String CLASSIFIERS_FIELD = "mNamedClassifiers";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Handler mHandler;
+
+    // Nesting of objects and arrays; the stored list itself is at depth 1
+    private int mDepth;
+
+    // Whether the scan is within the object of named classifiers, which is at depth 2
+    private boolean mInClassifiers;
+
+    private boolean mInString;
+    private boolean mEscaped;
+
+    // Whether the next string is the name of a field of the list or of a classifier
+    private boolean mExpectKey;
+    private boolean mReadingKey;
+    private final ByteArrayOutputStream mKey = new ByteArrayOutputStream();
+
+    private String mField;
+    private String mName;
+
+    // Whether the bytes scanned belong to the value of the classifier mName
+    private boolean mCapturing;
+    private final ByteArrayOutputStream mValue = new ByteArrayOutputStream();
+
+    private StoreSplitter(Handler handler) {
+        mHandler = handler;
+    }
+
+    /**
+     * Scans a stored classifier list and passes each of its classifiers to the handler,
+     * in the order in which they are stored.
+     * @throws MLException If the structure of the list is malformed. The classifiers
+     * themselves are not checked.
+     */
+    static void split(InputStream in, Handler handler) throws IOException, MLException {
+        new StoreSplitter(handler).scan(in);
+    }
+
+    private void scan(InputStream in) throws IOException, MLException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        boolean started = false;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            // Start of the part of the buffer that belongs to the captured value
+            int from = 0;
+            for (int i = 0; i < read; i++) {
+                byte b = buffer[i];
+                if (mInString) {
+                    if (mEscaped) {
+                        mEscaped = false;
+                    } else if (b == '\\') {
+                        mEscaped = true;
+                    } else if (b == '"') {
+                        mInString = false;
+                        if (mReadingKey) endKey();
+                        continue;
+                    }
+                    if (mReadingKey) mKey.write(b);
+                    continue;
+                }
+                switch (b) {
+                    case ' ':
+                    case '\t':
+                    case '\n':
+                    case '\r':
+                    case ':':
+                        break;
+                    case '"':
+                        if (mExpectKey) {
+                            mReadingKey = true;
+                            mKey.reset();
+                        } else if (startValue()) {
+                            from = i;
+                        }
+                        mInString = true;
+                        break;
+                    case '{':
+                    case '[':
+                        if (mDepth == 0) {
+                            if (started || b != '{') throw malformed();
+                            started = true;
+                        }
+                        if (startValue()) from = i;
+                        if (mDepth == 1 && b == '{' && CLASSIFIERS_FIELD.equals(mField)) {
+                            mInClassifiers = true;
+                        }
+                        mDepth++;
+                        mExpectKey = b == '{' && isKeyDepth();
+                        break;
+                    case '}':
+                    case ']':
+                        if (mDepth == 0) throw malformed();
+                        if (isClassifierDepth()) {
+                            // A value that is not an object, e.g. null, ends before the bracket
+                            if (mCapturing) endValue(buffer, from, i);
+                            mInClassifiers = false;
+                        }
+                        mDepth--;
+                        if (mCapturing && isClassifierDepth()) endValue(buffer, from, i + 1);
+                        break;
+                    case ',':
+                        if (mCapturing && isClassifierDepth()) endValue(buffer, from, i);
+                        mExpectKey = isKeyDepth();
+                        break;
+                    default:
+                        if (mDepth == 0) throw malformed();
+                        if (startValue()) from = i;
+                        break;
+                }
+            }
+            if (mCapturing) mValue.write(buffer, from, read - from);
+        }
+        if (!started || mDepth != 0 || mInString) throw malformed();
+    }
+
+    private boolean isKeyDepth() {
+        return mDepth == 1 || isClassifierDepth();
+    }
+
+    private boolean isClassifierDepth() {
+        return mInClassifiers && mDepth == 2;
+    }
+
+    // Starts capturing if a classifier value starts here
+    private boolean startValue() {
+        if (mCapturing || mName == null || !isClassifierDepth()) return false;
+        mCapturing = true;
+        mValue.reset();
+        return true;
+    }
+
+    private void endValue(byte[] buffer, int from, int to) {
+        mValue.write(buffer, from, to - from);
+        mHandler.onClassifier(mName, mValue.toByteArray());
+        mCapturing = false;
+        mName = null;
+    }
+
+    private void endKey() throws IOException {
+        mReadingKey = false;
+        mExpectKey = false;
+        String key = decode(mKey.toByteArray());
+        if (mDepth == 1) {
+            mField = key;
+        } else {
+            mName = key;
+        }
+    }
+
+    private static String decode(byte[] bytes) throws IOException {
+        String raw = new String(bytes, "UTF-8");
+        if (raw.indexOf('\\') < 0) return raw;
+        JsonReader reader = new JsonReader(new StringReader("\"" + raw + "\""));
+        reader.setLenient(true);
+        return reader.nextString();
+    }
+
+    private static MLException malformed() {
+        return new MLException(MLException.IO_ERROR, "Malformed classifier file.");
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ *  Copyright (c) 2013, University of Birmingham, UK,
+ *  Copyright (c) 2013, University of Ljubljana, Slovenia,
+ *  Veljko Pejovic,  <Veljko.Pejovic@fri.uni-lj.si>
+ *
+ *
+ *  This library was developed as part of the EPSRC Ubhave (Ubiquitous and Social
+ *  Computing for Positive Behaviour Change) Project. For more information, please visit
+ *  http://www.ubhave.org
+ *
+ *  Permission to use, copy, modify, and/or distribute this software for any purpose with
+ *  or without fee is hereby granted, provided that the above copyright notice and this
+ *  permission notice appear in all copies.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ *  WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ *  MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ *  ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ *  WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ *  ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ *  OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package si.uni_lj.fri.lrss.machinelearningtoolkit.classifier;
+
+import java.util.ArrayList;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureHashed;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Every classifier has a signature that defines the features it uses,
+ * as well as the class feature. It needs to support training and classification. 
+ * 
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public abstract class Classifier {
+	
+	protected Signature mSignature;
+	
+	protected int mType;
+	
+	protected ClassifierConfig mConfig;
+
+    protected boolean mTrained;
+
+	private static final String TAG = "Classifier";
+
+	// Approximate JVM object sizes in bytes (64-bit VM with compressed references),
+	// used for memory footprint estimation.
+	protected static final int OBJECT_HEADER_SIZE = 12;
+	protected static final int ARRAY_HEADER_SIZE = 16;
+	protected static final int REFERENCE_SIZE = 4;
+	protected static final int HASH_MAP_SIZE = 48;
+	protected static final int HASH_MAP_ENTRY_SIZE = 32;
+
+	// Lazily decayed counts are renormalized once new instances weigh this much
+	protected static final double MAX_DECAY_SCALE = 1e30;
+
+	public Classifier(Signature a_signature, ClassifierConfig a_config) {
+		mSignature = a_signature;
+		mConfig = a_config;
+	}
+
+	/**
+	 * Train the classifier with labelled data instances.
+	 * @param instances Labelled data instances. The instances have to correspond to the classifier
+	 *                  signature.
+	 * @throws MLException
+	 */
+	public abstract void train(ArrayList<Instance> instances) throws MLException;
+
+	/**
+	 * Classify an unlabelled instance.
+	 * @param instance Instance to be classified.
+	 * @return The inferred label corresponding to the given instance.
+	 * @throws MLException
+	 */
+	public abstract Value classify(Instance instance) throws MLException;
+
+	/**
+	 * Classify a batch of unlabelled instances. Classifiers may override this method to
+	 * share per-call work among the instances of the batch.
+	 * @param instances Instances to be classified.
+	 * @return The inferred labels, in the order of the given instances.
+	 * @throws MLException
+	 */
+	public Value[] classify(ArrayList<Instance> instances) throws MLException {
+		Value[] labels = new Value[instances.size()];
+		for (int i=0; i<labels.length; i++) {
+			labels[i] = classify(instances.get(i));
+		}
+		return labels;
+	}
+
+	/**
+	 * Estimates how likely every class value is for an unlabelled instance. Classifiers
+	 * that do not model probabilities give the whole mass to the label they infer.
+	 * @param instance Instance to be classified.
+	 * @return A score for every class value, in the order of the class feature categories.
+	 * Scores are non-negative, but do not necessarily sum up to one.
+	 * @throws MLException
+	 */
+	public double[] getDistribution(Instance instance) throws MLException {
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		double[] distribution = new double[classFeature.numberOfCategories()];
+		Value label = classify(instance);
+		if (label != null && label.getValue() instanceof String) {
+			int index = classFeature.indexOfCategory((String) label.getValue());
+			if (index >= 0) distribution[index] = 1;
+		}
+		return distribution;
+	}
+
+	/**
+	 * @return Label of the class value with the given index, or null if the class feature
+	 * has no such value, e.g. a growable class feature that has not learnt any values yet.
+	 */
+	protected Value classLabel(int index) {
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		if (index < 0 || index >= classFeature.numberOfCategories()) return null;
+		return new Value(classFeature.categoryOfIndex(index), Value.NOMINAL_VALUE);
+	}
+
+	public abstract void printClassifierInfo();
+
+	/**
+	 * Estimates the heap memory held by the classifier model, i.e. its count tables, trees or
+	 * centroids. The signature and the configuration, which may be shared among classifiers,
+	 * are not included.
+	 * @return Estimated size of the model in bytes.
+	 */
+	public abstract long memoryFootprint();
+
+    public boolean isTrained() {
+        return mTrained;
+    }
+
+	public Signature getSignature() {
+		return mSignature;
+	}
+
+	/**
+	 * Throws if the class feature is a {@link FeatureHashed}. Class values that share a
+	 * bucket could not be told apart, so a label could not be given back.
+	 * @throws MLException
+	 */
+	protected void checkClassFeature() throws MLException {
+		if (mSignature.getClassFeature() instanceof FeatureHashed) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+					"A hashed feature cannot be the class feature.");
+		}
+	}
+
+	/**
+	 * @return Memory quota in bytes set through {@link Constants#MAX_MEMORY_FOOTPRINT},
+	 * or zero if the classifier is not limited.
+	 */
+	protected long getMemoryQuota() {
+		if (mConfig != null && mConfig.containsParam(Constants.MAX_MEMORY_FOOTPRINT)) {
+			return ((Number) mConfig.getParam(Constants.MAX_MEMORY_FOOTPRINT)).longValue();
+		}
+		return 0;
+	}
+
+	/**
+	 * Throws if the classifier model exceeds its memory quota.
+	 * @throws MLException
+	 */
+	protected void checkMemoryQuota() throws MLException {
+		if (getMemoryQuota() > 0) checkMemoryQuota(memoryFootprint());
+	}
+
+	/**
+	 * Throws if a model of the given size would exceed the memory quota. Classifiers that
+	 * grow during training call it with the size the model would have, before they change
+	 * anything, so that a rejected change leaves the model as it was.
+	 * @param footprint Size of the model in bytes.
+	 * @throws MLException
+	 */
+	protected void checkMemoryQuota(long footprint) throws MLException {
+		long quota = getMemoryQuota();
+		if (quota > 0) {
+			if (footprint > quota) {
+				throw new MLException(MLException.MEMORY_QUOTA_EXCEEDED,
+						"Classifier needs "+footprint+" bytes, the quota is "+quota+" bytes.");
+			}
+		}
+	}
+
+	protected static long alignedSize(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	protected static long arraySize(int length, int elementSize) {
+		return alignedSize(ARRAY_HEADER_SIZE + (long) length * elementSize);
+	}
+
+	/**
+	 * Returns the array if it has at least the given length, otherwise a copy that does,
+	 * padded with zeros. The length at least doubles, so that tables that grow one
+	 * category at a time are copied a logarithmic number of times.
+	 */
+	protected static double[] ensureLength(double[] array, int length) {
+		if (array.length >= length) return array;
+		double[] grown = new double[grownLength(array.length, length)];
+		System.arraycopy(array, 0, grown, 0, array.length);
+		return grown;
+	}
+
+	/**
+	 * @return Number of bytes that {@link #ensureLength(double[], int)} adds to an array
+	 * of the given length.
+	 */
+	protected static long growth(int arrayLength, int length) {
+		if (arrayLength >= length) return 0;
+		return arraySize(grownLength(arrayLength, length), 8) - arraySize(arrayLength, 8);
+	}
+
+	private static int grownLength(int arrayLength, int length) {
+		return Math.max(2 * arrayLength, length);
+	}
+
+	/**
+	 * @return Decay factor set through {@link Constants#DECAY_FACTOR}, or
+	 * {@link Constants#DEFAULT_DECAY_FACTOR} if none is set.
+	 * @throws MLException If the factor is not within (0, 1].
+	 */
+	protected static double decayFactor(ClassifierConfig config) throws MLException {
+		double decayFactor = Constants.DEFAULT_DECAY_FACTOR;
+		if (config.containsParam(Constants.DECAY_FACTOR)) {
+			decayFactor = ((Number) config.getParam(Constants.DECAY_FACTOR)).doubleValue();
+		}
+		if (!(decayFactor > 0 && decayFactor <= 1)) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, decay factor has to be within (0, 1]");
+		}
+		return decayFactor;
+	}
+
+	protected static void scale(double[] array, double factor) {
+		for (int i=0; i<array.length; i++) array[i] *= factor;
+	}
+
+	protected static long hashMapSize(int entries) {
+		int capacity = 16;
+		while (capacity * 0.75 < entries) capacity <<= 1;
+		return HASH_MAP_SIZE + arraySize(capacity, REFERENCE_SIZE) + (long) entries * HASH_MAP_ENTRY_SIZE;
+	}
+	
+}
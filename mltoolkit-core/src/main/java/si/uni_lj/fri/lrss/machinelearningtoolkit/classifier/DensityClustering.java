@@ -24,16 +24,16 @@ package si.uni_lj.fri.lrss.machinelearningtoolkit.classifier;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 
-import android.util.Log;
-
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
 
@@ -118,11 +118,12 @@ public class DensityClustering extends Classifier {
      * @param signature Signature of the classifier.
      * @param config Optional configuration parameters.
      */
-	public DensityClustering(Signature signature, ClassifierConfig config){
+	public DensityClustering(Signature signature, ClassifierConfig config) throws MLException {
 		
 		super(signature, config);
 		
 		mType = Constants.TYPE_DENSITY_CLUSTER;
+		checkClassFeature();
 		
 		if (config.containsParam(Constants.MAX_CLUSTER_DISTANCE)) {
 			mMaxDistance = (Double) config.getParam(Constants.MAX_CLUSTER_DISTANCE);
@@ -144,13 +145,13 @@ public class DensityClustering extends Classifier {
 			mCentroids.put(classValue, new double[mSignature.size() - 1]);
 			mNumTrains.put(classValue, 0);
 		}
-
+		checkMemoryQuota();
 	}
 
 	@Override
 	public void train(ArrayList<Instance> instances) throws MLException {
 
-		if (Constants.DEBUG) Log.d(TAG, "train with "+instances.size()+" instances");
+		if (Constants.DEBUG) MLLog.d(TAG, "train with "+instances.size()+" instances");
 		
 		// Remove outliers (density based)
 		String curLabel;
@@ -205,30 +206,55 @@ public class DensityClustering extends Classifier {
 				}
 			}
 			
-			if (Constants.DEBUG) Log.d(TAG, "Points: "+totalInside+"/"+total+" vs "
+			if (Constants.DEBUG) MLLog.d(TAG, "Points: "+totalInside+"/"+total+" vs "
                     +mMinInclusionPct+"/100");
 			if (total > 0) {
 				if (totalInside/(double)total < (mMinInclusionPct /100.0)){
-                    if (Constants.DEBUG) Log.d(TAG, "Remove instance");
+                    if (Constants.DEBUG) MLLog.d(TAG, "Remove instance");
 					curIter.remove();					
 	    		}
 			}
 			
 		}
 		// At this point only those instances that are tightly packed are in d_instanceQ
-        if (Constants.DEBUG) Log.d(TAG, "Outliers removed. "+instances.size()+" instances left.");
+        if (Constants.DEBUG) MLLog.d(TAG, "Outliers removed. "+instances.size()+" instances left.");
 		
+		// Class values the feature did not have when the classifier was created get
+		// centroids of their own, if they fit into the memory quota
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		HashSet<String> newLabels = new HashSet<String>();
+		for (Instance curInstance : instances) {
+			curLabel = (String) curInstance.getValueAtIndex(mSignature.getClassIndex()).getValue();
+			if (!mCentroids.containsKey(curLabel) && newLabels.add(curLabel)
+					&& classFeature.learnCategory(curLabel) < 0) {
+				throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+						"Unknown class value "+curLabel);
+			}
+		}
+		if (!newLabels.isEmpty()) {
+			int centroids = mCentroids.size() + newLabels.size();
+			checkMemoryQuota(memoryFootprint()
+					+ 2 * (hashMapSize(centroids) - hashMapSize(mCentroids.size()))
+					+ newLabels.size() * (arraySize(mSignature.size() - 1, 8)
+							+ alignedSize(OBJECT_HEADER_SIZE + 4)));
+		}
+
 		// Find cluster centroids
 		double centroidCoords[];
 		for (Instance curInstance : instances) {
 			
 			curLabel = (String) curInstance.getValueAtIndex(mSignature.getClassIndex()).getValue();
 			centroidCoords = mCentroids.get(curLabel);
+			if (centroidCoords == null) {
+				centroidCoords = new double[mSignature.size() - 1];
+				mCentroids.put(curLabel, centroidCoords);
+				mNumTrains.put(curLabel, 0);
+			}
 
-            if (Constants.DEBUG) Log.d(TAG, "Current instance label "+curLabel);
+            if (Constants.DEBUG) MLLog.d(TAG, "Current instance label "+curLabel);
 			
 			for(int i=0; i< mSignature.size()-1; i++) {
-                if (Constants.DEBUG) Log.d(TAG, "added coord "+i+ " with value "
+                if (Constants.DEBUG) MLLog.d(TAG, "added coord "+i+ " with value "
                         +(Double) curInstance.getValueAtIndex(i).getValue());
 				centroidCoords[i] += (Double) curInstance.getValueAtIndex(i).getValue();
 			}
@@ -242,7 +268,7 @@ public class DensityClustering extends Classifier {
 			centroidCoords = mCentroids.get(classValue);
 			numTrains = mNumTrains.get(classValue);
 
-            if (Constants.DEBUG) Log.d(TAG, "Centroid with label "+classValue
+            if (Constants.DEBUG) MLLog.d(TAG, "Centroid with label "+classValue
                     +" contains " +numTrains+ " points.");
 			
 			for (int i=0; i< mSignature.size()-1; i++) {
@@ -297,8 +323,21 @@ public class DensityClustering extends Classifier {
         return mCentroids;
     }
 
+	@Override
+	public long memoryFootprint() {
+		long size = alignedSize(OBJECT_HEADER_SIZE + 5 * REFERENCE_SIZE + 4 + 1 + 2 * 8);
+		size += hashMapSize(mCentroids.size());
+		for (double[] centroidCoords : mCentroids.values()) {
+			size += arraySize(centroidCoords.length, 8);
+		}
+		// Boxed train counts
+		size += hashMapSize(mNumTrains.size()) + mNumTrains.size() * alignedSize(OBJECT_HEADER_SIZE + 4);
+		return size;
+	}
+
 	@Override
 	public void printClassifierInfo() {
+		if (!MLLog.isLoggable(MLLog.INFO)) return;
 		StringBuilder builder = new StringBuilder();
 		builder.append("Classifer type: "+ mType +"\n");
 		builder.append("Signature: "+ mSignature.toString()+"\n");
@@ -312,6 +351,6 @@ public class DensityClustering extends Classifier {
 			coords += (centroidCoords[centroidCoords.length-1]+"]");
 			builder.append(classValue+"("+ mNumTrains.get(classValue)+")\t"+coords+"\n");
 		}		
-		Log.i(TAG, builder.toString());
+		MLLog.i(TAG, builder.toString());
 	}
 }
@@ -0,0 +1,514 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.classifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.WorkerPool;
+
+/**
+ * Combines the predictions of other classifiers, its members, which are referenced by
+ * name and looked up through a {@link MemberResolver} on every call, so that members can
+ * be retrained, evicted or replaced independently of the ensemble. Classifiers obtained
+ * from a ClassifierManager get the manager's classifiers as their members.
+ *
+ * Members have to share the signature of the ensemble. An instance is checked against the
+ * signature once and handed to all members, which are evaluated concurrently on the
+ * {@link WorkerPool}. Their results are combined either by a weighted vote of their labels
+ * ({@link Constants#COMBINE_WEIGHTED_VOTE}) or by the weighted average of their class
+ * distributions ({@link Constants#COMBINE_AVERAGE_PROBABILITIES}). With early termination,
+ * the combination stops as soon as the members that have not answered yet cannot change
+ * the outcome any more.
+ *
+ * Training the ensemble trains all of its members.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class Ensemble extends Classifier {
+
+	private static final String TAG = "Ensemble";
+
+	/**
+	 * Looks up the members of an ensemble by name. Every member that is resolved is
+	 * released once the ensemble call that uses it returns, so a resolver may keep the
+	 * member in place, e.g. pinned in memory, until then.
+	 */
+	public interface MemberResolver {
+		/**
+		 * @return The classifier with the given name, or null if it does not exist.
+		 */
+		Classifier resolve(String name);
+
+		/**
+		 * Called once the ensemble no longer uses a member it has resolved.
+		 * @param name Name of the member.
+		 * @param modified Whether the member was trained.
+		 */
+		void release(String name, boolean modified);
+	}
+
+	private String[] mMembers;
+
+	private double[] mWeights;
+
+	private int mCombination;
+
+	private boolean mEarlyTermination;
+
+	private transient MemberResolver mResolver;
+
+	/**
+	 * Creates a new ensemble with the given signature and configuration. The members are
+	 * given through {@link Constants#ENSEMBLE_MEMBERS}.
+	 * @param signature Classifier signature, shared with the members.
+	 * @param config Configuration parameters.
+	 */
+	public Ensemble(Signature signature, ClassifierConfig config) throws MLException {
+		super(signature, config);
+		mType = Constants.TYPE_ENSEMBLE;
+
+		if (mSignature.getClassFeature().getFeatureType() != Feature.NOMINAL) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE, "class feature must be nominal");
+		}
+		checkClassFeature();
+		Object[] members = toArray(config.getParam(Constants.ENSEMBLE_MEMBERS));
+		if (members == null || members.length == 0) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, an ensemble needs at least one member");
+		}
+		mMembers = new String[members.length];
+		for (int i=0; i<members.length; i++) {
+			mMembers[i] = (String) members[i];
+		}
+
+		mWeights = new double[mMembers.length];
+		Object weightsParam = config.getParam(Constants.ENSEMBLE_WEIGHTS);
+		if (weightsParam instanceof double[]) {
+			double[] weights = (double[]) weightsParam;
+			if (weights.length != mWeights.length) {
+				throw new MLException(MLException.INVALID_PARAMETER,
+						" Invalid parameter, there has to be one weight per member");
+			}
+			System.arraycopy(weights, 0, mWeights, 0, weights.length);
+		} else if (weightsParam != null) {
+			Object[] weights = toArray(weightsParam);
+			if (weights == null || weights.length != mWeights.length) {
+				throw new MLException(MLException.INVALID_PARAMETER,
+						" Invalid parameter, there has to be one weight per member");
+			}
+			for (int i=0; i<weights.length; i++) {
+				mWeights[i] = ((Number) weights[i]).doubleValue();
+			}
+		} else {
+			for (int i=0; i<mWeights.length; i++) mWeights[i] = 1;
+		}
+		for (double weight : mWeights) {
+			if (weight < 0) {
+				throw new MLException(MLException.INVALID_PARAMETER,
+						" Invalid parameter, member weights cannot be negative");
+			}
+		}
+
+		if (config.containsParam(Constants.ENSEMBLE_COMBINATION)) {
+			mCombination = ((Number) config.getParam(Constants.ENSEMBLE_COMBINATION)).intValue();
+		} else {
+			mCombination = Constants.DEFAULT_ENSEMBLE_COMBINATION;
+		}
+		if (mCombination != Constants.COMBINE_WEIGHTED_VOTE
+				&& mCombination != Constants.COMBINE_AVERAGE_PROBABILITIES) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, unknown ensemble combination "+mCombination);
+		}
+		if (config.containsParam(Constants.EARLY_TERMINATION)) {
+			mEarlyTermination = (Boolean) config.getParam(Constants.EARLY_TERMINATION);
+		} else {
+			mEarlyTermination = Constants.DEFAULT_EARLY_TERMINATION;
+		}
+	}
+
+	private static Object[] toArray(Object param) {
+		if (param instanceof Object[]) return (Object[]) param;
+		if (param instanceof List) return ((List<?>) param).toArray();
+		return null;
+	}
+
+	public void setResolver(MemberResolver resolver) {
+		mResolver = resolver;
+	}
+
+	public MemberResolver getResolver() {
+		return mResolver;
+	}
+
+	public String[] getMembers() {
+		return mMembers.clone();
+	}
+
+	/**
+	 * Trains every member with the given instances, concurrently. Every member gets its own
+	 * copy of the list, as some classifiers, e.g. the density clustering, modify it.
+	 */
+	@Override
+	public void train(ArrayList<Instance> instances) throws MLException {
+		Classifier[] members = resolveMembers();
+		try {
+			ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>(members.length);
+			for (final Classifier member : members) {
+				final ArrayList<Instance> memberInstances = new ArrayList<Instance>(instances);
+				tasks.add(new Callable<Void>() {
+					public Void call() throws MLException {
+						member.train(memberInstances);
+						return null;
+					}
+				});
+			}
+			runAll(tasks);
+		} finally {
+			releaseMembers(members.length, true);
+		}
+		mTrained = true;
+	}
+
+	@Override
+	public Value classify(Instance instance) throws MLException {
+		return label(combine(instance));
+	}
+
+	/**
+	 * @return Weighted average of the members' class distributions or, when voting, the
+	 * share of the weight that every class value got. With early termination, members that
+	 * did not answer before the outcome was decided are left out.
+	 */
+	@Override
+	public double[] getDistribution(Instance instance) throws MLException {
+		double[] scores = combine(instance);
+		double total = 0;
+		for (double score : scores) total += score;
+		if (total > 0) {
+			for (int k=0; k<scores.length; k++) scores[k] /= total;
+		}
+		return scores;
+	}
+
+	/**
+	 * Classifies the batch with every member concurrently, using the members' own batch
+	 * classification where voting. There is no early termination for batches.
+	 */
+	@Override
+	public Value[] classify(final ArrayList<Instance> instances) throws MLException {
+		for (Instance instance : instances) {
+			checkInstance(instance);
+		}
+		Classifier[] members = resolveMembers();
+		try {
+			return classify(members, instances);
+		} finally {
+			releaseMembers(members.length, false);
+		}
+	}
+
+	private Value[] classify(Classifier[] members, final ArrayList<Instance> instances)
+			throws MLException {
+		final int numClasses = numClasses();
+		ArrayList<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>(members.length);
+		for (final Classifier member : members) {
+			tasks.add(new Callable<double[]>() {
+				public double[] call() throws MLException {
+					double[] results = new double[instances.size() * numClasses];
+					if (mCombination == Constants.COMBINE_WEIGHTED_VOTE) {
+						Value[] labels = member.classify(instances);
+						for (int n=0; n<labels.length; n++) {
+							int label = indexOf(labels[n]);
+							if (label >= 0 && label < numClasses) results[n * numClasses + label] = 1;
+						}
+					} else {
+						for (int n=0; n<instances.size(); n++) {
+							normalize(member.getDistribution(instances.get(n)), results, n * numClasses, numClasses);
+						}
+					}
+					return results;
+				}
+			});
+		}
+		List<double[]> results = runAll(tasks);
+
+		Value[] labels = new Value[instances.size()];
+		double[] scores = new double[numClasses];
+		for (int n=0; n<labels.length; n++) {
+			for (int k=0; k<numClasses; k++) {
+				scores[k] = 0;
+				for (int m=0; m<members.length; m++) {
+					scores[k] += mWeights[m] * results.get(m)[n * numClasses + k];
+				}
+			}
+			labels[n] = label(scores);
+		}
+		return labels;
+	}
+
+	// Weighted scores of the class values, possibly from a subset of the members
+	private double[] combine(Instance instance) throws MLException {
+		checkInstance(instance);
+		Classifier[] members = resolveMembers();
+		try {
+			return combine(members, instance);
+		} finally {
+			releaseMembers(members.length, false);
+		}
+	}
+
+	private double[] combine(Classifier[] members, final Instance instance) throws MLException {
+		double[] scores = new double[numClasses()];
+		double remaining = 0;
+		for (double weight : mWeights) remaining += weight;
+
+		if (members.length == 1 || WorkerPool.isWorkerThread()) {
+			// Tasks of the pool must not wait for the pool
+			for (int m=0; m<members.length; m++) {
+				add(scores, evaluate(members[m], instance), mWeights[m]);
+				remaining -= mWeights[m];
+				if (mEarlyTermination && decided(scores, remaining)) break;
+			}
+			return scores;
+		}
+
+		CompletionService<double[]> completion =
+				new ExecutorCompletionService<double[]>(WorkerPool.getExecutor());
+		ArrayList<Future<double[]>> futures = new ArrayList<Future<double[]>>(members.length);
+		for (int m=0; m<members.length; m++) {
+			final Classifier member = members[m];
+			futures.add(completion.submit(new Callable<double[]>() {
+				public double[] call() throws MLException {
+					return evaluate(member, instance);
+				}
+			}));
+		}
+		try {
+			for (int received=0; received<members.length; received++) {
+				Future<double[]> done = completion.take();
+				int m = futures.indexOf(done);
+				add(scores, done.get(), mWeights[m]);
+				remaining -= mWeights[m];
+				if (mEarlyTermination && decided(scores, remaining)) {
+					if (Constants.DEBUG) MLLog.d(TAG, "Decided after "+(received + 1)+" members");
+					break;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MLException(MLException.INVALID_STATE, "Classification was interrupted.");
+		} catch (ExecutionException e) {
+			throw unwrap(e);
+		} finally {
+			for (Future<double[]> future : futures) {
+				future.cancel(false);
+			}
+		}
+		return scores;
+	}
+
+	// Unweighted contribution of a member
+	private double[] evaluate(Classifier member, Instance instance) throws MLException {
+		double[] result = new double[numClasses()];
+		if (mCombination == Constants.COMBINE_WEIGHTED_VOTE) {
+			int label = indexOf(member.classify(instance));
+			if (label >= 0 && label < result.length) result[label] = 1;
+		} else {
+			normalize(member.getDistribution(instance), result, 0, result.length);
+		}
+		return result;
+	}
+
+	private static void add(double[] scores, double[] result, double weight) {
+		for (int k=0; k<scores.length; k++) {
+			scores[k] += weight * result[k];
+		}
+	}
+
+	// Every member adds at most its weight to a class, so the leader is safe once its lead
+	// exceeds the weight of the members still to come
+	private static boolean decided(double[] scores, double remaining) {
+		double first = Double.NEGATIVE_INFINITY;
+		double second = Double.NEGATIVE_INFINITY;
+		for (double score : scores) {
+			if (score > first) {
+				second = first;
+				first = score;
+			} else if (score > second) {
+				second = score;
+			}
+		}
+		return first - second > remaining;
+	}
+
+	// Writes the normalized distribution into target[offset, offset + length); class values
+	// the ensemble does not have yet are left out
+	private static void normalize(double[] distribution, double[] target, int offset, int length) {
+		double total = 0;
+		for (double p : distribution) total += p;
+		if (total <= 0 || Double.isNaN(total) || Double.isInfinite(total)) return;
+		for (int k=0; k<distribution.length && k<length; k++) {
+			target[offset + k] = distribution[k] / total;
+		}
+	}
+
+	private int indexOf(Value label) {
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		if (label == null || !(label.getValue() instanceof String)) return -1;
+		return classFeature.indexOfCategory((String) label.getValue());
+	}
+
+	private Value label(double[] scores) {
+		// If no member contributed, we return the first label
+		int best = 0;
+		for (int k=1; k<scores.length; k++) {
+			if (scores[k] > scores[best]) best = k;
+		}
+		return classLabel(best);
+	}
+
+	private int numClasses() {
+		return ((FeatureNominal) mSignature.getClassFeature()).numberOfCategories();
+	}
+
+	private void checkInstance(Instance instance) throws MLException {
+		if (!mSignature.checkCompliance(instance, false)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the dataset used for classifier construction.");
+		}
+	}
+
+	// Every member that is resolved has to be released with releaseMembers
+	private Classifier[] resolveMembers() throws MLException {
+		MemberResolver resolver = mResolver;
+		if (resolver == null) {
+			throw new MLException(MLException.INVALID_STATE, "Ensemble members cannot be resolved.");
+		}
+		FeatureNominal ensembleClassFeature = (FeatureNominal) mSignature.getClassFeature();
+		Classifier[] members = new Classifier[mMembers.length];
+		int resolved = 0;
+		try {
+			for (int m=0; m<mMembers.length; m++) {
+				members[m] = resolver.resolve(mMembers[m]);
+				if (members[m] == null) {
+					throw new MLException(MLException.INVALID_STATE,
+							"Ensemble member "+mMembers[m]+" does not exist.");
+				}
+				resolved++;
+				if (members[m] == this) {
+					throw new MLException(MLException.INVALID_STATE, "Ensemble cannot be its own member.");
+				}
+				Feature classFeature = members[m].getSignature().getClassFeature();
+				if (classFeature.getFeatureType() != Feature.NOMINAL
+						|| !sameClassValues(ensembleClassFeature, (FeatureNominal) classFeature)) {
+					throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+							"Ensemble member "+mMembers[m]+" has different class values.");
+				}
+			}
+		} catch (MLException e) {
+			releaseMembers(resolved, false);
+			throw e;
+		}
+		return members;
+	}
+
+	// Releases the first count members
+	private void releaseMembers(int count, boolean modified) {
+		MemberResolver resolver = mResolver;
+		for (int m=0; m<count; m++) {
+			resolver.release(mMembers[m], modified);
+		}
+	}
+
+	/**
+	 * Class values of a member have to match those of the ensemble. With growable class
+	 * features either may have learnt values the other has not seen yet, so it is enough
+	 * that one list starts with the other. Values only the member knows are added to the
+	 * ensemble.
+	 */
+	private static boolean sameClassValues(FeatureNominal ensembleFeature, FeatureNominal memberFeature) {
+		ArrayList<String> ensembleValues = ensembleFeature.getValues();
+		ArrayList<String> memberValues = memberFeature.getValues();
+		int common = Math.min(ensembleValues.size(), memberValues.size());
+		if (!ensembleValues.subList(0, common).equals(memberValues.subList(0, common))) return false;
+		if (memberValues.size() > common && !ensembleFeature.isGrowable()) return false;
+		for (int k=common; k<memberValues.size(); k++) {
+			if (ensembleFeature.addCategory(memberValues.get(k)) != k) return false;
+		}
+		return true;
+	}
+
+	private static <T> List<T> runAll(ArrayList<Callable<T>> tasks) throws MLException {
+		ArrayList<T> results = new ArrayList<T>(tasks.size());
+		try {
+			if (tasks.size() == 1 || WorkerPool.isWorkerThread()) {
+				for (Callable<T> task : tasks) {
+					results.add(task.call());
+				}
+			} else {
+				for (Future<T> future : WorkerPool.getExecutor().invokeAll(tasks)) {
+					results.add(future.get());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MLException(MLException.INVALID_STATE, "Ensemble operation was interrupted.");
+		} catch (ExecutionException e) {
+			throw unwrap(e);
+		} catch (MLException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new MLException(MLException.INVALID_STATE, "Ensemble operation failed: "+e);
+		}
+		return results;
+	}
+
+	private static MLException unwrap(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof MLException) return (MLException) cause;
+		if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+		if (cause instanceof Error) throw (Error) cause;
+		return new MLException(MLException.INVALID_STATE, "Member failed: "+cause);
+	}
+
+	@Override
+	public long memoryFootprint() {
+		long size = alignedSize(OBJECT_HEADER_SIZE + 5 * REFERENCE_SIZE + 2 * 4 + 2);
+		size += arraySize(mMembers.length, REFERENCE_SIZE) + arraySize(mWeights.length, 8);
+		for (String member : mMembers) {
+			size += alignedSize(OBJECT_HEADER_SIZE + REFERENCE_SIZE + 4) + arraySize(member.length(), 2);
+		}
+		return size;
+	}
+
+	@Override
+	public void printClassifierInfo() {
+		if (!MLLog.isLoggable(MLLog.INFO)) return;
+		StringBuilder builder = new StringBuilder();
+		builder.append("Classifier type: "+ mType +"\n");
+		builder.append("Signature: "+ mSignature.toString()+"\n");
+		builder.append(mCombination == Constants.COMBINE_WEIGHTED_VOTE
+				? "Weighted vote" : "Average probabilities");
+		builder.append(mEarlyTermination ? " with early termination\n" : "\n");
+		for (int m=0; m<mMembers.length; m++) {
+			builder.append(mMembers[m]+": "+ mWeights[m] +"\n");
+		}
+		MLLog.i(TAG, builder.toString());
+	}
+}
@@ -29,14 +29,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map.Entry;
 
-import android.util.Log;
-
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
 
@@ -81,6 +80,8 @@ public class ID3 extends Classifier{
 	private Value mMajorValue;
 	private boolean mIsLeaf;
 	private HashMap<Object, ID3> mSubtrees;
+	// Information gain of every feature at the root, null in subtrees and in a single leaf
+	private double[] mInformationGain;
 
 	private static final String TAG = "ID3";
 
@@ -96,8 +97,9 @@ public class ID3 extends Classifier{
 	 * @param signature Classifier signature.
 	 * @param config Optional configuration parameters.
 	 */
-	public ID3(Signature signature, ClassifierConfig config) {
+	public ID3(Signature signature, ClassifierConfig config) throws MLException {
 		this(signature, config, allFeaturesArray(signature));
+		checkClassFeature();
 	}
 	
 	private ID3(Signature signature, ClassifierConfig config, int[] candidateFeatures) {
@@ -111,10 +113,32 @@ public class ID3 extends Classifier{
 		mBestFeatureIndex = 0;
 	}
 
+	/**
+	 * Builds the tree from the given instances. If the tree exceeds the memory quota set
+	 * through {@link Constants#MAX_MEMORY_FOOTPRINT}, its deepest levels are collapsed into
+	 * majority class leaves until it fits.
+	 */
 	@Override
 	public void train(ArrayList<Instance> instances) throws MLException {
+		mInformationGain = grow(instances);
+		long quota = getMemoryQuota();
+		if (quota > 0 && memoryFootprint() > quota) {
+			compact(quota);
+			if (Constants.DEBUG) MLLog.d(TAG, "Tree compacted to "+memoryFootprint()+" bytes");
+		}
+	}
+
+	// Returns the information gain of every feature, or null if the node is a leaf
+	private double[] grow(ArrayList<Instance> instances) throws MLException {
 		// Calculate stats such as:
 		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		for (Instance i : instances) {
+			Value classValue = i.getValueAtIndex(mSignature.getClassIndex());
+			if (classFeature.learnCategory((String) classValue.getValue()) < 0) {
+				throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+						"Unknown class value "+classValue.getValue());
+			}
+		}
 		int[] classCounts = new int[classFeature.numberOfCategories()];	
 		Arrays.fill(classCounts, 0);
 		
@@ -124,6 +148,19 @@ public class ID3 extends Classifier{
 			int classValueInt = classFeature.indexOfCategory((String) classValue.getValue());
 			classCounts[classValueInt] += 1;			
 		}
+
+		// Every node keeps its majority class, so that it can be turned into a leaf.
+		int maxClassValueInt = 0;
+		int maxClassValueCount = 0;
+		for (int i=0; i<classCounts.length; i++){
+			if (maxClassValueCount < classCounts[i]) {
+				maxClassValueInt = i;
+				maxClassValueCount = classCounts[i];
+			}
+		}
+		mMajorValue = new Value(classFeature
+				.categoryOfIndex(maxClassValueInt), Value.NOMINAL_VALUE);
+
 		int NZcounter = 0, nonZeroClassValueIndex = 0;
 		for (int i = 0; i < classCounts.length; i ++)
 		    if (classCounts[i] > 0) {
@@ -134,7 +171,7 @@ public class ID3 extends Classifier{
 			mIsLeaf = true;
 			mMajorValue = new Value(classFeature
                     .categoryOfIndex(nonZeroClassValueIndex), Value.NOMINAL_VALUE);
-			return;
+			return null;
 		}
 		
 		// If number of predicting attributes is empty, then Return the single node tree Root,
@@ -144,16 +181,7 @@ public class ID3 extends Classifier{
 			numCandidateFeatures += indicator;
 		if (numCandidateFeatures == 0) {
 			mIsLeaf = true;
-			int maxClassValueInt = 0;
-			int maxClassValueCount = 0;
-			for (int i=0; i<classCounts.length; i++){
-				if (maxClassValueCount < classCounts[i]) {
-					maxClassValueInt = i;
-					maxClassValueCount = classCounts[i];
-				}
-			}
-			mMajorValue = new Value(classFeature
-                    .categoryOfIndex(maxClassValueInt), Value.NOMINAL_VALUE);
+			return null;
 		}
 		
 		else {
@@ -176,16 +204,14 @@ public class ID3 extends Classifier{
 				if (feature.getFeatureType() == Feature.NOMINAL && mCandidateFeatures[i]==1) {
 					FeatureNominal featureNom = (FeatureNominal) feature;
 					HashMap<String, ArrayList<Instance>> subsets = new HashMap<String, ArrayList<Instance>>();
-					int classFeatureCounts[] = new int[featureNom.numberOfCategories()];
-					Arrays.fill(classFeatureCounts, 0);
 					
 					for (Instance instance : instances) {
 						
 						Value featureValue = instance.getValueAtIndex(i);
-						String featureValueName = (String) featureValue.getValue();
-						int featureValueInt = featureNom.indexOfCategory(featureValueName);
-						
-						classFeatureCounts[featureValueInt] += 1;
+						// Instances are split by the canonical category, so that all values a hashed
+						// feature maps into the same bucket end up in the same subset. Missing and
+						// unknown values are kept together under the null key.
+						String featureValueName = categoryOf(featureNom, featureValue, true);
 						
 						ArrayList<Instance> subset = subsets.get(featureValueName);
 						if (subset == null) {
@@ -219,39 +245,50 @@ public class ID3 extends Classifier{
 			mBestFeatureIndex = maxIGindex;
 			mIsLeaf = false;
 			
-			// TODO: what happens if some of the deciding feature values are not observed
-			// in the training set? Right now we point it to the majority class.
+			// Subtrees are grown only for the feature values observed in the training set,
+			// so that a feature with many categories, e.g. a hashed one, does not fill the node
+			// with leaves. Other values are classified as the majority class of this node.
 
-            if (mBestFeature.getFeatureType() == Feature.NOMINAL) {
-                ArrayList<String> featureValueList = ((FeatureNominal)mBestFeature).getValues();
+            if (mBestFeature.getFeatureType() == Feature.NOMINAL && maxSubsets != null) {
                 int candidateFeatures[] = (int[]) mCandidateFeatures.clone();
                 candidateFeatures[maxIGindex] = 0;
 
-                for (String value : featureValueList) {
-                    ID3 subTree = null;
-                    // TODO: Check what happens if maxSubsets is null
-                    if (maxSubsets.containsKey(value)) {
-                        subTree = new ID3(mSignature, mConfig, candidateFeatures);
-                        subTree.train(maxSubsets.get(value));
-
-                    } else {
-                        // Shortcut to the majority class leaf.
-                        Arrays.fill(candidateFeatures, 0);
-                        subTree = new ID3(mSignature, mConfig, candidateFeatures);
-                    }
-                    mSubtrees.put(value, subTree);
+                for (Entry<String, ArrayList<Instance>> subset : maxSubsets.entrySet()) {
+                    if (subset.getKey() == null) continue;
+                    ID3 subTree = new ID3(mSignature, mConfig, candidateFeatures);
+                    subTree.grow(subset.getValue());
+                    mSubtrees.put(subset.getKey(), subTree);
                 }
             }
+			return IG;
 		}
 		// if no attributes left -> return majority class
 
 	}
 
+	/**
+	 * @return Information gain of every feature about the class, in nats, over the
+	 * instances the tree was trained with, in the order of the signature. It is zero for the
+	 * class feature and for numeric features, and for all features if the tree is a single
+	 * leaf. The feature with the highest gain is the one at the root of the tree.
+	 */
+	public double[] getInformationGain() {
+		if (mInformationGain == null) return new double[mSignature.size()];
+		return mInformationGain.clone();
+	}
+
+	// Canonical category of a nominal value, or null if the value is missing or unknown.
+	// Values learnt from are added to growable features.
+	private static String categoryOf(FeatureNominal feature, Value value, boolean learn) {
+		if (value.getValueType() != Value.NOMINAL_VALUE) return null;
+		int index = learn ? feature.learnCategory((String) value.getValue())
+				: feature.indexOfCategory((String) value.getValue());
+		return index < 0 ? null : feature.categoryOfIndex(index);
+	}
+
 	// H(t) = - sum(p(x)log(p(x))) where x in X (set of class values)
 	private double calculateEntropy (ArrayList<Instance> instances) {
 		
-		double entropy = 0;
-		
 		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
 
 		int classCounts[] = new int[classFeature.numberOfCategories()];
@@ -265,13 +302,21 @@ public class ID3 extends Classifier{
 		}
 
 		for (int j=0; j<classCounts.length; j++) classCountsTotal += classCounts[j];
-		for (int j=0; j<classCounts.length; j++) {
-			double probabilityFeatureValue = (double)classCounts[j]/classCountsTotal;
+		return entropy(classCounts, 0, classCounts.length, classCountsTotal);
+	}
+
+	/**
+	 * Entropy of the class distribution given by the counts in [from, to) of the array.
+	 * @param total Sum of the counts.
+	 */
+	static double entropy(int[] counts, int from, int to, int total) {
+		double entropy = 0;
+		for (int j=from; j<to; j++) {
+			double probabilityFeatureValue = (double)counts[j]/total;
 			if (probabilityFeatureValue > 0) {
 				entropy -= (probabilityFeatureValue)*Math.log(probabilityFeatureValue);
 			}
 		}
-		
 		return entropy;
 	}
 	
@@ -287,11 +332,54 @@ public class ID3 extends Classifier{
 			return mMajorValue;
 		} else {
 			Value v = a_instance.getValueAtIndex(mBestFeatureIndex);
-			ID3 nextTree = mSubtrees.get(v.getValue());
+			ID3 nextTree = mSubtrees.get(categoryOf((FeatureNominal) mBestFeature, v, false));
+			if (nextTree == null) return mMajorValue;
 			return nextTree.classify(a_instance);
 		}
 	}
 	
+	// Collapses the deepest internal nodes until the tree fits the quota.
+	private void compact(long quota) {
+		while (!mIsLeaf && memoryFootprint() > quota) {
+			collapseAtLevel(depth() - 1);
+		}
+	}
+
+	private int depth() {
+		if (mIsLeaf) return 0;
+		int maxDepth = 0;
+		for (ID3 subTree : mSubtrees.values()) {
+			maxDepth = Math.max(maxDepth, subTree.depth());
+		}
+		return maxDepth + 1;
+	}
+
+	private void collapseAtLevel(int level) {
+		if (mIsLeaf) return;
+		if (level == 0) {
+			mIsLeaf = true;
+			mBestFeature = null;
+			mSubtrees = new HashMap<Object, ID3>();
+		} else {
+			for (ID3 subTree : mSubtrees.values()) {
+				subTree.collapseAtLevel(level - 1);
+			}
+		}
+	}
+
+	@Override
+	public long memoryFootprint() {
+		long size = alignedSize(OBJECT_HEADER_SIZE + 8 * REFERENCE_SIZE + 2 * 4 + 2);
+		size += arraySize(mCandidateFeatures.length, 4);
+		if (mInformationGain != null) size += arraySize(mInformationGain.length, 8);
+		if (mMajorValue != null) size += alignedSize(OBJECT_HEADER_SIZE + REFERENCE_SIZE + 4);
+		size += hashMapSize(mSubtrees.size());
+		for (ID3 subTree : mSubtrees.values()) {
+			size += subTree.memoryFootprint();
+		}
+		return size;
+	}
+
 	private String print(int depth) {
 		String output;
 		if (mIsLeaf) {
@@ -313,6 +401,6 @@ public class ID3 extends Classifier{
 	
 	@Override
 	public void printClassifierInfo() {
-		Log.i(TAG, this.print(0));
+		if (MLLog.isLoggable(MLLog.INFO)) MLLog.i(TAG, this.print(0));
 	}
 }
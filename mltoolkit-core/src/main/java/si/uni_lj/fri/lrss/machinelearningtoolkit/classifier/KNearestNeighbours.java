@@ -0,0 +1,469 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.classifier;
+
+import java.util.ArrayList;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * k-nearest-neighbour classifier over numeric features. An instance gets the label held
+ * by most of its k nearest training points; ties go to the label of the nearer point.
+ *
+ * Training points are stored as rows of a single coordinate array, with their labels as
+ * class indices. They are indexed by KD-trees that live in a permutation of the point
+ * indices: a range of the permutation is a tree whose root is the median of the range,
+ * split on the coordinate with the largest spread, with the two halves as subtrees.
+ * Queries therefore take logarithmic time on low-dimensional data.
+ *
+ * To support incremental training, points are grouped into trees whose sizes are the
+ * powers of two in the binary representation of the number of points, oldest points
+ * first. Adding a point rebuilds only the trees of the lowest bits that change, so an
+ * insert takes O(log^2 n) amortized time and a query searches at most log n trees.
+ *
+ * As in {@link DensityClustering}, two features are by default taken as GPS latitude and
+ * longitude in degrees. Such points are mapped to the unit sphere, where the Euclidean
+ * distance orders points the same way as the great-circle distance, so the same trees
+ * serve both cases.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class KNearestNeighbours extends Classifier implements OnlineClassifier {
+
+	private static final String TAG = "KNearestNeighbours";
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int mNumNeighbours;
+
+	private boolean mGeographic;
+
+	private int mDimension;
+
+	// Coordinates of point i are at [i * mDimension, (i + 1) * mDimension)
+	private double[] mPoints;
+
+	private int[] mLabels;
+
+	private int mSize;
+
+	// The index is rebuilt from the points after deserialization
+	private transient int[] mOrder;
+
+	// Split coordinate of the tree node at every position of mOrder
+	private transient int[] mSplits;
+
+	// Scratch buffers of a query, allocated on first use
+	private transient double[] mQuery;
+	private transient double[] mNearestDistances;
+	private transient int[] mNearestLabels;
+	private transient int[] mVotes;
+
+	private transient int mNearestCount;
+
+	/**
+	 * Creates a new kNN classifier with the given signature and configuration. All features
+	 * except the class feature have to be numeric.
+	 * @param signature Classifier signature.
+	 * @param config Optional configuration parameters.
+	 */
+	public KNearestNeighbours(Signature signature, ClassifierConfig config) throws MLException {
+		super(signature, config);
+		mType = Constants.TYPE_K_NEAREST_NEIGHBOURS;
+
+		if (mSignature.getClassFeature().getFeatureType() != Feature.NOMINAL) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE, "class feature must be nominal");
+		}
+		checkClassFeature();
+		for (int i=0; i<mSignature.size(); i++) {
+			if (i != mSignature.getClassIndex()
+					&& mSignature.getFeatureAtIndex(i).getFeatureType() != Feature.NUMERIC) {
+				throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+						"All attribute features have to be numeric.");
+			}
+		}
+		if (config.containsParam(Constants.NUM_NEIGHBOURS)) {
+			mNumNeighbours = ((Number) config.getParam(Constants.NUM_NEIGHBOURS)).intValue();
+		} else {
+			mNumNeighbours = Constants.DEFAULT_NUM_NEIGHBOURS;
+		}
+		if (mNumNeighbours < 1) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, number of neighbours not valid");
+		}
+		int numFeatures = mSignature.size() - 1;
+		if (config.containsParam(Constants.GEOGRAPHIC_COORDINATES)) {
+			mGeographic = (Boolean) config.getParam(Constants.GEOGRAPHIC_COORDINATES);
+		} else {
+			mGeographic = numFeatures == 2;
+		}
+		if (mGeographic && numFeatures != 2) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					"Geographic coordinates need exactly two features, latitude and longitude.");
+		}
+		mDimension = mGeographic ? 3 : numFeatures;
+		mPoints = new double[INITIAL_CAPACITY * mDimension];
+		mLabels = new int[INITIAL_CAPACITY];
+		mSize = 0;
+		checkMemoryQuota();
+	}
+
+	/**
+	 * Adds a training point and updates the index.
+	 */
+	@Override
+	public synchronized void update(Instance instance) throws MLException {
+		add(instance);
+		if (mOrder != null) {
+			ensureIndexCapacity();
+			// Merges the trees of the trailing one bits of the previous size into one
+			int block = Integer.lowestOneBit(mSize);
+			build(mSize - block, mSize);
+		}
+		mTrained = true;
+	}
+
+	@Override
+	public synchronized void train(ArrayList<Instance> instances) throws MLException {
+		// The whole batch is checked against the quota before any point is added
+		ensureCapacity(mSize + instances.size());
+		for (Instance instance : instances) {
+			add(instance);
+		}
+		// Rebuilt on the next query
+		mOrder = null;
+		mTrained = mSize > 0;
+	}
+
+	@Override
+	public synchronized Value classify(Instance instance) throws MLException {
+		return classLabel(vote(instance));
+	}
+
+	/**
+	 * Classifies the whole batch under a single lock acquisition, reusing the query
+	 * buffers. Instances that get the same label share the returned {@link Value} object.
+	 */
+	@Override
+	public synchronized Value[] classify(ArrayList<Instance> instances) throws MLException {
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		Value[] classLabels = new Value[classFeature.numberOfCategories()];
+		Value[] labels = new Value[instances.size()];
+		for (int i=0; i<labels.length; i++) {
+			int label = vote(instances.get(i));
+			if (label >= classLabels.length) {
+				// No class values yet
+				labels[i] = classLabel(label);
+				continue;
+			}
+			if (classLabels[label] == null) {
+				classLabels[label] = classLabel(label);
+			}
+			labels[i] = classLabels[label];
+		}
+		return labels;
+	}
+
+	/**
+	 * @return Share of the k nearest neighbours that hold every class value. Empty if the
+	 * class feature has no values yet.
+	 */
+	@Override
+	public synchronized double[] getDistribution(Instance instance) throws MLException {
+		int label = vote(instance);
+		double[] distribution = new double[mVotes.length];
+		if (distribution.length == 0) return distribution;
+		if (mSize == 0) {
+			distribution[label] = 1;
+			return distribution;
+		}
+		for (int k=0; k<mVotes.length; k++) {
+			distribution[k] = mVotes[k] / (double) mNearestCount;
+		}
+		return distribution;
+	}
+
+	/**
+	 * @return Number of stored training points.
+	 */
+	public synchronized int size() {
+		return mSize;
+	}
+
+	private void add(Instance instance) throws MLException {
+		if (!mSignature.checkCompliance(instance, true)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the dataset used for classifier construction.");
+		}
+		Value classValue = instance.getValueAtIndex(mSignature.getClassIndex());
+		if (classValue.getValueType() != Value.NOMINAL_VALUE) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+					"Class variable has to be of type NOMINAL.");
+		}
+		ensureCapacity(mSize + 1);
+		int label = ((FeatureNominal) mSignature.getClassFeature())
+				.learnCategory((String) classValue.getValue());
+		if (label < 0) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Unknown class value "+classValue.getValue());
+		}
+		coordinates(instance, true, mPoints, mSize * mDimension);
+		mLabels[mSize] = label;
+		mSize++;
+	}
+
+	// Grows the arrays by doubling until they hold the given number of points
+	private void ensureCapacity(int capacity) throws MLException {
+		if (capacity <= mLabels.length) return;
+		int grown = mLabels.length;
+		while (grown < capacity) grown *= 2;
+		checkMemoryQuota(footprint(grown, true));
+		int[] labels = new int[grown];
+		System.arraycopy(mLabels, 0, labels, 0, mSize);
+		mLabels = labels;
+		double[] points = new double[grown * mDimension];
+		System.arraycopy(mPoints, 0, points, 0, mSize * mDimension);
+		mPoints = points;
+	}
+
+	/**
+	 * Writes the coordinates of the instance into the array, starting at the given offset.
+	 * @param labelled Whether the instance contains the class value.
+	 */
+	private void coordinates(Instance instance, boolean labelled, double[] target, int offset)
+			throws MLException {
+		int classIndex = mSignature.getClassIndex();
+		int d = 0;
+		double latitude = 0;
+		for (int i=0; i<mSignature.size(); i++) {
+			if (i == classIndex) continue;
+			// Instances to be classified lack the class value
+			Value value = instance.getValueAtIndex(labelled || i < classIndex ? i : i - 1);
+			if (value.getValueType() != Value.NUMERIC_VALUE) {
+				throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+						"Nearest neighbour search does not support missing values.");
+			}
+			double coordinate = (Double) value.getValue();
+			if (!mGeographic) {
+				target[offset + d] = coordinate;
+			} else if (d == 0) {
+				latitude = Math.toRadians(coordinate);
+			} else {
+				double longitude = Math.toRadians(coordinate);
+				target[offset] = Math.cos(latitude) * Math.cos(longitude);
+				target[offset + 1] = Math.cos(latitude) * Math.sin(longitude);
+				target[offset + 2] = Math.sin(latitude);
+			}
+			d++;
+		}
+	}
+
+	private int vote(Instance instance) throws MLException {
+		if (!mSignature.checkCompliance(instance, false)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the dataset used for classifier construction.");
+		}
+		if (mQuery == null) {
+			mQuery = new double[mDimension];
+			mNearestDistances = new double[mNumNeighbours];
+			mNearestLabels = new int[mNumNeighbours];
+		}
+		// Class values may have been added since the last query
+		int numClasses = ((FeatureNominal) mSignature.getClassFeature()).numberOfCategories();
+		if (mVotes == null || mVotes.length != numClasses) {
+			mVotes = new int[numClasses];
+		}
+		// If not yet trained, we return the first label
+		if (mSize == 0) return 0;
+
+		if (mOrder == null) buildAll();
+		coordinates(instance, false, mQuery, 0);
+		mNearestCount = 0;
+		int end = 0;
+		for (int bit = Integer.highestOneBit(mSize); bit > 0; bit >>>= 1) {
+			if ((mSize & bit) != 0) {
+				search(end, end + bit);
+				end += bit;
+			}
+		}
+
+		for (int i=0; i<mVotes.length; i++) mVotes[i] = 0;
+		int maxVotes = 0;
+		for (int i=0; i<mNearestCount; i++) {
+			int votes = ++mVotes[mNearestLabels[i]];
+			if (votes > maxVotes) maxVotes = votes;
+		}
+		// Neighbours are ordered by distance, so ties go to the nearest label
+		for (int i=0; i<mNearestCount; i++) {
+			if (mVotes[mNearestLabels[i]] == maxVotes) return mNearestLabels[i];
+		}
+		return 0;
+	}
+
+	// Searches the tree over positions [from, to) of mOrder
+	private void search(int from, int to) {
+		if (from >= to) return;
+		int middle = (from + to) >>> 1;
+		int point = mOrder[middle];
+		offer(squaredDistance(point), mLabels[point]);
+
+		int split = mSplits[middle];
+		double difference = mQuery[split] - mPoints[point * mDimension + split];
+		if (difference < 0) {
+			search(from, middle);
+			if (difference * difference < worstDistance()) search(middle + 1, to);
+		} else {
+			search(middle + 1, to);
+			if (difference * difference < worstDistance()) search(from, middle);
+		}
+	}
+
+	private double squaredDistance(int point) {
+		int offset = point * mDimension;
+		double sum = 0;
+		for (int d=0; d<mDimension; d++) {
+			double difference = mQuery[d] - mPoints[offset + d];
+			sum += difference * difference;
+		}
+		return sum;
+	}
+
+	private double worstDistance() {
+		return mNearestCount < mNumNeighbours
+				? Double.POSITIVE_INFINITY : mNearestDistances[mNearestCount - 1];
+	}
+
+	// Inserts a candidate into the neighbours, which are kept sorted by distance
+	private void offer(double distance, int label) {
+		if (distance >= worstDistance()) return;
+		int i = mNearestCount < mNumNeighbours ? mNearestCount++ : mNearestCount - 1;
+		while (i > 0 && mNearestDistances[i - 1] > distance) {
+			mNearestDistances[i] = mNearestDistances[i - 1];
+			mNearestLabels[i] = mNearestLabels[i - 1];
+			i--;
+		}
+		mNearestDistances[i] = distance;
+		mNearestLabels[i] = label;
+	}
+
+	private void ensureIndexCapacity() {
+		if (mOrder.length < mLabels.length) {
+			int[] order = new int[mLabels.length];
+			System.arraycopy(mOrder, 0, order, 0, mOrder.length);
+			mOrder = order;
+			int[] splits = new int[mLabels.length];
+			System.arraycopy(mSplits, 0, splits, 0, mSplits.length);
+			mSplits = splits;
+		}
+	}
+
+	private void buildAll() {
+		mOrder = new int[mLabels.length];
+		mSplits = new int[mLabels.length];
+		int end = 0;
+		for (int bit = Integer.highestOneBit(mSize); bit > 0; bit >>>= 1) {
+			if ((mSize & bit) != 0) {
+				build(end, end + bit);
+				end += bit;
+			}
+		}
+		if (Constants.DEBUG) MLLog.d(TAG, "Index built over "+mSize+" points");
+	}
+
+	// Builds a tree over the points with indices [from, to)
+	private void build(int from, int to) {
+		for (int i=from; i<to; i++) mOrder[i] = i;
+		buildRange(from, to);
+	}
+
+	private void buildRange(int from, int to) {
+		if (from >= to) return;
+		int split = widestCoordinate(from, to);
+		int middle = (from + to) >>> 1;
+		select(from, to - 1, middle, split);
+		mSplits[middle] = split;
+		buildRange(from, middle);
+		buildRange(middle + 1, to);
+	}
+
+	private int widestCoordinate(int from, int to) {
+		int widest = 0;
+		double widestSpread = -1;
+		for (int d=0; d<mDimension; d++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i=from; i<to; i++) {
+				double coordinate = mPoints[mOrder[i] * mDimension + d];
+				if (coordinate < min) min = coordinate;
+				if (coordinate > max) max = coordinate;
+			}
+			if (max - min > widestSpread) {
+				widestSpread = max - min;
+				widest = d;
+			}
+		}
+		return widest;
+	}
+
+	// Reorders positions [left, right] of mOrder so that position k holds the point that
+	// would be there if the range was sorted by the given coordinate
+	private void select(int left, int right, int k, int coordinate) {
+		while (right > left) {
+			double pivot = mPoints[mOrder[(left + right) >>> 1] * mDimension + coordinate];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (mPoints[mOrder[i] * mDimension + coordinate] < pivot) i++;
+				while (mPoints[mOrder[j] * mDimension + coordinate] > pivot) j--;
+				if (i <= j) {
+					int tmp = mOrder[i];
+					mOrder[i] = mOrder[j];
+					mOrder[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	@Override
+	public synchronized long memoryFootprint() {
+		return footprint(mLabels.length, mOrder != null);
+	}
+
+	/**
+	 * @param capacity Number of points the arrays hold.
+	 * @param indexed Whether the index is counted. The next query builds it if it is missing.
+	 */
+	private long footprint(int capacity, boolean indexed) {
+		long size = alignedSize(OBJECT_HEADER_SIZE + 10 * REFERENCE_SIZE + 5 * 4 + 2);
+		size += arraySize(capacity * mDimension, 8) + arraySize(capacity, 4);
+		if (indexed) size += 2 * arraySize(capacity, 4);
+		return size;
+	}
+
+	@Override
+	public void printClassifierInfo() {
+		if (!MLLog.isLoggable(MLLog.INFO)) return;
+		StringBuilder builder = new StringBuilder();
+		builder.append("Classifier type: "+ mType +"\n");
+		builder.append("Signature: "+ mSignature.toString()+"\n");
+		builder.append("Neighbours: "+ mNumNeighbours +", points: "+ mSize
+				+ (mGeographic ? ", geographic coordinates" : "") +"\n");
+		MLLog.i(TAG, builder.toString());
+	}
+}
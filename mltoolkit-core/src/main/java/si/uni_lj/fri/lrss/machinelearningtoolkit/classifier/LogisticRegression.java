@@ -0,0 +1,347 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.classifier;
+
+import java.util.ArrayList;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Multinomial logistic regression, trained online with stochastic gradient descent and
+ * per-weight AdaGrad learning rates. Unlike Naive Bayes it does not assume that the
+ * features are independent given the class.
+ *
+ * Nominal features are one-hot encoded by the index of their category, numeric features
+ * are used as they are, and missing values contribute nothing. The weights of all classes
+ * are kept in a single array, one row of a bias and the encoded features per class. An
+ * instance only activates one input per feature, so updates and classifications take
+ * O(classes * features) time, regardless of the number of nominal categories, and do not
+ * allocate.
+ *
+ * Categories that growable features learn are given weights in place. The block of a
+ * nominal feature, like the rows of the classes, doubles when it fills up, so that the
+ * weights are copied a logarithmic number of times.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class LogisticRegression extends Classifier implements OnlineClassifier {
+
+	private static final String TAG = "LogisticRegression";
+
+	// Keeps AdaGrad from dividing by zero on the first step
+	private static final double ADAGRAD_EPSILON = 1e-8;
+
+	// Row of weights of class k starts at k * mDimension; the bias is the first weight of a row
+	private double[] mWeights;
+
+	// Sums of squared gradients, per weight
+	private double[] mGradientSquares;
+
+	// Position of every feature within a row of weights, -1 for the class feature
+	private int[] mOffsets;
+
+	// Number of weights reserved for every feature within a row
+	private int[] mWidths;
+
+	private int mDimension;
+
+	// Classes with a row of weights; the weight arrays may have room for more rows
+	private int mNumClasses;
+
+	private double mLearningRate;
+
+	private double mRegularization;
+
+	// Scratch buffers, allocated on first use
+	private transient int[] mActiveIndices;
+	private transient double[] mActiveValues;
+	private transient double[] mScores;
+
+	/**
+	 * Creates a new logistic regression classifier with the given signature and configuration.
+	 * @param signature Classifier signature.
+	 * @param config Optional configuration parameters.
+	 */
+	public LogisticRegression(Signature signature, ClassifierConfig config) throws MLException {
+		super(signature, config);
+		mType = Constants.TYPE_LOGISTIC_REGRESSION;
+
+		if (mSignature.getClassFeature().getFeatureType() != Feature.NOMINAL) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE, "class feature must be nominal");
+		}
+		checkClassFeature();
+		if (config.containsParam(Constants.LEARNING_RATE)) {
+			mLearningRate = ((Number) config.getParam(Constants.LEARNING_RATE)).doubleValue();
+		} else {
+			mLearningRate = Constants.DEFAULT_LEARNING_RATE;
+		}
+		if (config.containsParam(Constants.L2_REGULARIZATION)) {
+			mRegularization = ((Number) config.getParam(Constants.L2_REGULARIZATION)).doubleValue();
+		} else {
+			mRegularization = Constants.DEFAULT_L2_REGULARIZATION;
+		}
+		if (mLearningRate <= 0 || mRegularization < 0) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, learning rate or regularization not valid");
+		}
+
+		mOffsets = new int[mSignature.size()];
+		mWidths = new int[mSignature.size()];
+		mDimension = 1;
+		for (int i=0; i<mOffsets.length; i++) {
+			Feature feature = mSignature.getFeatureAtIndex(i);
+			if (i == mSignature.getClassIndex()) {
+				mOffsets[i] = -1;
+			} else if (feature.getFeatureType() == Feature.NOMINAL) {
+				mOffsets[i] = mDimension;
+				mWidths[i] = ((FeatureNominal) feature).numberOfCategories();
+				mDimension += mWidths[i];
+			} else if (feature.getFeatureType() == Feature.NUMERIC) {
+				mOffsets[i] = mDimension;
+				mWidths[i] = 1;
+				mDimension += 1;
+			} else {
+				throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+						"Feature type neither nominal nor numeric");
+			}
+		}
+		mNumClasses = ((FeatureNominal) mSignature.getClassFeature()).numberOfCategories();
+		mWeights = new double[mNumClasses * mDimension];
+		mGradientSquares = new double[mNumClasses * mDimension];
+		checkMemoryQuota();
+	}
+
+	/**
+	 * Takes a single gradient step on the given instance.
+	 */
+	@Override
+	public synchronized void update(Instance instance) throws MLException {
+		if (!mSignature.checkCompliance(instance, true)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the dataset used for classifier construction.");
+		}
+		Value classValue = instance.getValueAtIndex(mSignature.getClassIndex());
+		if (classValue.getValueType() != Value.NOMINAL_VALUE) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+					"Class variable has to be of type NOMINAL.");
+		}
+		int actual = ((FeatureNominal) mSignature.getClassFeature())
+				.learnCategory((String) classValue.getValue());
+		if (actual < 0) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Unknown class value "+classValue.getValue());
+		}
+		if (actual >= mNumClasses) addClasses(actual + 1);
+
+		int active = encode(instance, true);
+		softmax(active);
+
+		for (int k=0; k<mNumClasses; k++) {
+			// Gradient of the log loss with respect to the score of class k
+			double error = mScores[k] - (k == actual ? 1 : 0);
+			int row = k * mDimension;
+			for (int a=0; a<active; a++) {
+				int w = row + mActiveIndices[a];
+				double gradient = error * mActiveValues[a] + mRegularization * mWeights[w];
+				mGradientSquares[w] += gradient * gradient;
+				mWeights[w] -= mLearningRate * gradient / (Math.sqrt(mGradientSquares[w]) + ADAGRAD_EPSILON);
+			}
+		}
+		mTrained = true;
+	}
+
+	@Override
+	public void train(ArrayList<Instance> instances) throws MLException {
+		for (Instance instance : instances) {
+			update(instance);
+		}
+	}
+
+	/**
+	 * @return Estimated probability of every class value, in the order of the class feature
+	 * categories. Class values that have not been learnt yet get zero.
+	 */
+	@Override
+	public synchronized double[] getDistribution(Instance instance) throws MLException {
+		if (!mSignature.checkCompliance(instance, false)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the dataset used for classifier construction.");
+		}
+		softmax(encode(instance, false));
+		double[] distribution = new double[Math.max(mNumClasses,
+				((FeatureNominal) mSignature.getClassFeature()).numberOfCategories())];
+		System.arraycopy(mScores, 0, distribution, 0, mNumClasses);
+		return distribution;
+	}
+
+	@Override
+	public synchronized Value classify(Instance instance) throws MLException {
+		if (!mSignature.checkCompliance(instance, false)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the dataset used for classifier construction.");
+		}
+		int active = encode(instance, false);
+		int best = 0;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (int k=0; k<mNumClasses; k++) {
+			double score = score(k, active);
+			if (score > bestScore) {
+				bestScore = score;
+				best = k;
+			}
+		}
+		return classLabel(best);
+	}
+
+	/**
+	 * Collects the inputs that the instance activates into the scratch buffers.
+	 * @param labelled Whether the instance contains the class value. Labelled instances are
+	 *                 learnt from, so their new categories get weights.
+	 * @return Number of active inputs.
+	 */
+	private int encode(Instance instance, boolean labelled) {
+		if (mActiveIndices == null) {
+			mActiveIndices = new int[mOffsets.length + 1];
+			mActiveValues = new double[mOffsets.length + 1];
+		}
+		if (mScores == null || mScores.length != mNumClasses) {
+			mScores = new double[mNumClasses];
+		}
+		int classIndex = mSignature.getClassIndex();
+		mActiveIndices[0] = 0;
+		mActiveValues[0] = 1;
+		int active = 1;
+		for (int i=0; i<mOffsets.length; i++) {
+			if (i == classIndex) continue;
+			// Instances to be classified lack the class value
+			Value value = instance.getValueAtIndex(labelled || i < classIndex ? i : i - 1);
+			if (value.getValueType() == Value.NOMINAL_VALUE) {
+				FeatureNominal feature = (FeatureNominal) mSignature.getFeatureAtIndex(i);
+				int category = labelled ? feature.learnCategory((String) value.getValue())
+						: feature.indexOfCategory((String) value.getValue());
+				// Categories that are not in the signature, or have no weights yet, are treated
+				// as missing values
+				if (category < 0 || (category >= mWidths[i] && !labelled)) continue;
+				if (category >= mWidths[i]) widen(i, category + 1);
+				mActiveIndices[active] = mOffsets[i] + category;
+				mActiveValues[active] = 1;
+				active++;
+			} else if (value.getValueType() == Value.NUMERIC_VALUE) {
+				mActiveIndices[active] = mOffsets[i];
+				mActiveValues[active] = (Double) value.getValue();
+				active++;
+			}
+		}
+		return active;
+	}
+
+	// Makes room in the weight arrays for at least the given number of classes
+	private void addClasses(int classes) {
+		int rows = mWeights.length / mDimension;
+		if (classes > rows) {
+			rows = Math.max(2 * rows, classes);
+			double[] weights = new double[rows * mDimension];
+			System.arraycopy(mWeights, 0, weights, 0, mNumClasses * mDimension);
+			mWeights = weights;
+			double[] gradientSquares = new double[rows * mDimension];
+			System.arraycopy(mGradientSquares, 0, gradientSquares, 0, mNumClasses * mDimension);
+			mGradientSquares = gradientSquares;
+		}
+		mNumClasses = classes;
+	}
+
+	// Makes room in the block of feature i for at least the given number of categories, by
+	// moving the blocks that follow it in every row
+	private void widen(int i, int categories) {
+		int width = Math.max(2 * mWidths[i], categories);
+		int shift = width - mWidths[i];
+		int end = mOffsets[i] + mWidths[i];
+		int dimension = mDimension + shift;
+		mWeights = widen(mWeights, end, shift, dimension);
+		mGradientSquares = widen(mGradientSquares, end, shift, dimension);
+		for (int j=0; j<mOffsets.length; j++) {
+			if (j != i && mOffsets[j] >= end) mOffsets[j] += shift;
+		}
+		mWidths[i] = width;
+		mDimension = dimension;
+	}
+
+	private double[] widen(double[] weights, int end, int shift, int dimension) {
+		int rows = weights.length / mDimension;
+		double[] widened = new double[rows * dimension];
+		for (int k=0; k<rows; k++) {
+			System.arraycopy(weights, k * mDimension, widened, k * dimension, end);
+			System.arraycopy(weights, k * mDimension + end, widened, k * dimension + end + shift,
+					mDimension - end);
+		}
+		return widened;
+	}
+
+	private double score(int k, int active) {
+		int row = k * mDimension;
+		double score = 0;
+		for (int a=0; a<active; a++) {
+			score += mWeights[row + mActiveIndices[a]] * mActiveValues[a];
+		}
+		return score;
+	}
+
+	// Fills mScores with the class probabilities of the encoded instance
+	private void softmax(int active) {
+		double max = Double.NEGATIVE_INFINITY;
+		for (int k=0; k<mNumClasses; k++) {
+			mScores[k] = score(k, active);
+			if (mScores[k] > max) max = mScores[k];
+		}
+		double sum = 0;
+		for (int k=0; k<mNumClasses; k++) {
+			mScores[k] = Math.exp(mScores[k] - max);
+			sum += mScores[k];
+		}
+		for (int k=0; k<mNumClasses; k++) {
+			mScores[k] /= sum;
+		}
+	}
+
+	@Override
+	public long memoryFootprint() {
+		return alignedSize(OBJECT_HEADER_SIZE + 9 * REFERENCE_SIZE + 3 * 4 + 2 * 8 + 1)
+				+ 2 * arraySize(mWeights.length, 8)
+				+ 2 * arraySize(mOffsets.length, 4)
+				+ arraySize(mOffsets.length + 1, 4) + arraySize(mOffsets.length + 1, 8)
+				+ arraySize(mNumClasses, 8);
+	}
+
+	@Override
+	public void printClassifierInfo() {
+		if (!MLLog.isLoggable(MLLog.INFO)) return;
+
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		StringBuilder builder = new StringBuilder();
+		builder.append("Classifier type: "+ mType +"\n");
+		builder.append("Signature: "+ mSignature.toString()+"\n");
+		builder.append("Learning rate: "+ mLearningRate +", L2 regularization: "+ mRegularization +"\n");
+		for (int k=0; k<mNumClasses; k++) {
+			builder.append(classFeature.categoryOfIndex(k)+": bias "+ mWeights[k * mDimension]);
+			for (int i=0; i<mOffsets.length; i++) {
+				if (mOffsets[i] < 0) continue;
+				Feature feature = mSignature.getFeatureAtIndex(i);
+				builder.append(", "+feature.name()+" [");
+				for (int j=0; j<mWidths[i]; j++) {
+					if (j > 0) builder.append(",");
+					builder.append(mWeights[k * mDimension + mOffsets[i] + j]);
+				}
+				builder.append("]");
+			}
+			builder.append("\n");
+		}
+		MLLog.i(TAG, builder.toString());
+	}
+}
@@ -0,0 +1,508 @@
+/*
+ *  Copyright (c) 2013, University of Birmingham, UK,
+ *  Copyright (c) 2013, University of Ljubljana, Slovenia,
+ *  Veljko Pejovic,  <Veljko.Pejovic@fri.uni-lj.si>
+ *
+ *
+ *  This library was developed as part of the EPSRC Ubhave (Ubiquitous and Social
+ *  Computing for Positive Behaviour Change) Project. For more information, please visit
+ *  http://www.ubhave.org
+ *
+ *  Permission to use, copy, modify, and/or distribute this software for any purpose with
+ *  or without fee is hereby granted, provided that the above copyright notice and this
+ *  permission notice appear in all copies.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ *  WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ *  MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ *  ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ *  WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ *  ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ *  OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package si.uni_lj.fri.lrss.machinelearningtoolkit.classifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Naive Bayesian classifier that supports both nominal and numeric attributes.
+ * Numeric features are modelled with a Gaussian distribution. 
+ * Laplace smoothing is supported for nominal attributes, so that classes with
+ * high preference for a single value do not overfit. 
+ * The classifier is an online classifier, i.e. training can happen iteratively. 
+ * With a {@link Constants#DECAY_FACTOR} below one, the weight of every instance is
+ * multiplied by the factor whenever a newer one is learnt, so that the model follows
+ * behaviour that drifts. Instead of decaying every count, new instances are counted with
+ * a weight that grows by the inverse of the factor, which keeps updates O(features).
+ * The counts are rescaled to a weight of one before the weights grow out of range.
+ * 
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class NaiveBayes extends Classifier implements OnlineClassifier {
+
+	private static final String TAG = "NaiveBayes";
+	
+	// For each feature we hold the count of occurrences of every class variable value.
+	// These are further bisected to the feature values in case of NOMINAL features.
+	// For NUMERIC features we keep stats necessary for Gaussian distribution calculation.
+	private HashMap<String, HashMap<String, double[]>> mValueCounts;
+
+    // Holds the number of occurrences of each value that the class variable may take.
+	private double[] mClassCounts;
+	
+    // Fixes the problem of too few occurrences in certain bins.
+	private boolean mLaplaceSmoothing;
+
+	private double mDecayFactor;
+
+	// Weight the next instance is counted with. Counts are divided by it when they are read.
+	private double mDecayScale;
+
+
+    /**
+     * Creates a new Naive Bayesian classifier with the given signature and configuration.
+     * @param signature Classifier signature.
+     * @param config Optional configuration parameters.
+     */
+	public NaiveBayes(Signature signature, ClassifierConfig config) throws  MLException {
+		super(signature, config);
+		mType = Constants.TYPE_NAIVE_BAYES;
+		checkClassFeature();
+		
+		if (config.containsParam(Constants.LAPLACE_SMOOTHING)) {
+			mLaplaceSmoothing = (Boolean) config.getParam(Constants.LAPLACE_SMOOTHING);
+		} else {
+			mLaplaceSmoothing = Constants.DEFAULT_LAPLACE_SMOOTHING;
+		}
+		mDecayFactor = decayFactor(config);
+		
+		initialize();
+		checkMemoryQuota();
+	}
+
+	public void initialize() throws MLException{
+		
+		mValueCounts = new HashMap<String, HashMap<String, double[]>>();
+		ArrayList<Feature> features = mSignature.getFeatures();
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		ArrayList<String> classValues = classFeature.getValues();
+
+		mClassCounts = new double[classFeature.numberOfCategories()];
+		Arrays.fill(mClassCounts, 0.0);
+		mDecayScale = 1;
+
+		for(Feature feature : features){			
+			HashMap<String, double[]> featureCount = new HashMap<String, double[]>();
+		
+			for (String classValue : classValues){										
+				double[] classFeatureCounts;
+				if (feature.getFeatureType() == Feature.NOMINAL) { 
+					classFeatureCounts = new double[((FeatureNominal)feature).numberOfCategories()];
+				}
+				else if (feature.getFeatureType() == Feature.NUMERIC) {
+					// For NUMERIC values we have to keep:
+					// - count
+					// - sum of values
+					// - sum of square values 
+					// so that we can get the normal distribution in the end
+					classFeatureCounts = new double[3];
+				}
+				else {
+                    throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+                            "Feature type neither nominal nor numeric");
+                }
+
+				Arrays.fill(classFeatureCounts, 0.0);
+				featureCount.put(classValue, classFeatureCounts);
+				//MLLog.d(TAG, "Feature counts put for class value "+classValue);
+			}
+			if (Constants.DEBUG) {
+				String output = "Feature counts put for "+feature.name()+": ";
+				for (String key : featureCount.keySet()) {
+						String miniOutput = "";
+						double classFeatureCountsTest[] = featureCount.get(key);
+						for (int i=0; i<classFeatureCountsTest.length; i++) {
+							miniOutput += classFeatureCountsTest[i]+",";
+						}
+					
+						output +="{ "+key+", ["+miniOutput+"]},";					
+				}
+				MLLog.d(TAG, output);
+			}
+			mValueCounts.put(feature.name(), featureCount);
+		}
+	}
+
+
+	public synchronized void update(Instance instance) throws MLException {
+				
+		if (!mSignature.checkCompliance(instance, true)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE, 
+					"Instance is not compatible with the dataset used for classifier construction.");					
+		}
+
+		FeatureNominal classFeature = (FeatureNominal)mSignature.getClassFeature();
+		
+		Value classValue = instance.getValueAtIndex(mSignature.getClassIndex());
+
+		if (classValue.getValueType() == Value.NUMERIC_VALUE ||
+				classValue.getValueType() == Value.MISSING_VALUE)
+            throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+                    "Class variable has to be of type NOMINAL.");
+
+		int classValueInt = classFeature.learnCategory((String) classValue.getValue());
+		if (classValueInt < 0) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Unknown class value "+classValue.getValue());
+		}
+		
+		String classValueName = classFeature.categoryOfIndex(classValueInt);
+
+		// Categories are learnt and the growth of the tables is checked against the quota
+		// before any count changes, so that an instance that does not fit is not counted.
+		int[] featureValueCats = new int[instance.size()];
+		long growth = growth(mClassCounts.length, classValueInt + 1);
+		for (int i=0; i< instance.size(); i++){
+			Feature feature = mSignature.getFeatureAtIndex(i);
+			Value featureValue = instance.getValueAtIndex(i);
+			featureValueCats[i] = featureValue.getValueType() == Value.NOMINAL_VALUE
+					? ((FeatureNominal) feature).learnCategory((String) featureValue.getValue()) : -1;
+			HashMap<String, double[]> featureCounts = mValueCounts.get(feature.name());
+			double[] classFeatureCounts = featureCounts.get(classValueName);
+			if (classFeatureCounts == null) {
+				growth += hashMapSize(featureCounts.size() + 1) - hashMapSize(featureCounts.size())
+						+ arraySize(Math.max(countsLength(feature), featureValueCats[i] + 1), 8);
+			} else {
+				growth += growth(classFeatureCounts.length, featureValueCats[i] + 1);
+			}
+		}
+		if (growth > 0) checkMemoryQuota(memoryFootprint() + growth);
+
+		double weight = decayScale();
+		// Categories added to a growable feature extend the tables in place.
+		mClassCounts = ensureLength(mClassCounts, classValueInt + 1);
+		mClassCounts[classValueInt] += weight;
+		
+		for (int i=0; i< instance.size(); i++){
+			
+			Feature feature = mSignature.getFeatureAtIndex(i);
+			HashMap<String, double[]> featureCounts = mValueCounts.get(feature.name());
+			double[] classFeatureCounts = featureCounts.get(classValueName);
+			if (classFeatureCounts == null) {
+				classFeatureCounts = new double[Math.max(countsLength(feature), featureValueCats[i] + 1)];
+				featureCounts.put(classValueName, classFeatureCounts);
+			}
+			Value featureValue = instance.getValueAtIndex(i);
+			
+			if (featureValue.getValueType() == Value.NOMINAL_VALUE){
+				int featureValueCat = featureValueCats[i];
+				// A category that is not in the signature is treated as a missing value.
+				if (featureValueCat < 0) continue;
+				if (featureValueCat >= classFeatureCounts.length) {
+					classFeatureCounts = ensureLength(classFeatureCounts, featureValueCat + 1);
+					featureCounts.put(classValueName, classFeatureCounts);
+				}
+				classFeatureCounts[featureValueCat] += weight;
+				if (Constants.DEBUG) {
+					String output = "Update:"+ mSignature.getFeatureAtIndex(i).name()
+							+"["+(String) classValue.getValue()+"] = {";
+					for (int j=0; j<classFeatureCounts.length; j++) {
+						output += classFeatureCounts[j]+",";
+					}
+					MLLog.d(TAG, output + "}");
+				}
+			}
+			if (featureValue.getValueType() == Value.NUMERIC_VALUE){
+				classFeatureCounts[0] += weight; // count				
+				classFeatureCounts[1] += weight * (Double)featureValue.getValue(); // value sum
+				classFeatureCounts[2] += weight * Math.pow((Double)featureValue.getValue(),2); // value square sum
+                if (Constants.DEBUG) MLLog.d(TAG, "Update:"+ mSignature.getFeatureAtIndex(i).name()
+						+"["+(String) classValue.getValue()+"] = "
+						+"{"+classFeatureCounts[0]+","+classFeatureCounts[1]+","+classFeatureCounts[2]+"}");
+			}
+			// Do nothing for a missing value.
+		}
+		decay();
+	}
+
+	// Length of the counts of a feature for a class value that has no counts yet
+	private static int countsLength(Feature feature) {
+		return feature.getFeatureType() == Feature.NOMINAL
+				? ((FeatureNominal) feature).numberOfCategories() : 3;
+	}
+
+	// Models stored before decay was supported have no scale
+	private double decayScale() {
+		return mDecayScale > 0 ? mDecayScale : 1;
+	}
+
+	private void decay() {
+		if (mDecayFactor <= 0 || mDecayFactor >= 1) return;
+		mDecayScale = decayScale() / mDecayFactor;
+		if (mDecayScale > MAX_DECAY_SCALE) {
+			double factor = 1 / mDecayScale;
+			scale(mClassCounts, factor);
+			for (HashMap<String, double[]> featureCounts : mValueCounts.values()) {
+				for (double[] classFeatureCounts : featureCounts.values()) {
+					scale(classFeatureCounts, factor);
+				}
+			}
+			mDecayScale = 1;
+		}
+	}
+
+	
+	@Override
+	public void train(ArrayList<Instance> a_instances) throws MLException {
+		
+		for(Instance a_instance : a_instances){
+			this.update(a_instance);
+		}
+	}
+	
+	
+	@Override
+	public synchronized double[] getDistribution(Instance instance) throws MLException {
+		
+		if (!mSignature.checkCompliance(instance, false)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE, 
+					"Instance is not compatible with the dataset used for classifier construction.");					
+		}
+		
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		ArrayList<String> classValues = classFeature.getValues();
+		double[] classPriors = new double[classValues.size()];
+		double[] classPosteriors = new double[classValues.size()];
+		
+		// Class values may have been added to the feature after the last update
+		double[] classCounts = mClassCounts;
+		double scale = decayScale();
+		double classCountsTotal = 0;
+		for (int j=0; j< classCounts.length; j++) classCountsTotal += classCounts[j];
+		for (int j=0; j<classPriors.length; j++) {
+			if (classCountsTotal == 0) {
+				classPriors[j] = 1.0/classPriors.length; 
+			} else {
+				classPriors[j] = j < classCounts.length ? classCounts[j]/classCountsTotal : 0;
+			}
+			classPosteriors[j] = classPriors[j];
+			
+		}
+
+		if (Constants.DEBUG) {
+			MLLog.d(TAG, "Class values: "+classValues);
+			String outputPrior="[";
+			for (int i=0; i<classPriors.length;i++) {
+				outputPrior += classPriors[i]+",";
+			}
+			MLLog.d(TAG, "Class priors: "+outputPrior);
+		}
+		
+		for (int i=0; i<instance.size(); i++){
+			Value featureValue = instance.getValueAtIndex(i);
+			Feature feature = mSignature.getFeatureAtIndex(i);
+			int featureValueIndex = -1;
+			if (featureValue.getValueType() == Value.NOMINAL_VALUE) {
+				featureValueIndex = ((FeatureNominal) feature).indexOfCategory((String) featureValue.getValue());
+				// Unknown categories carry no evidence, same as missing values.
+				if (featureValueIndex < 0) continue;
+			}
+			// for every feature (a specific value of it) we get a prob of each class
+			double[] classFeatureProbs = new double[classValues.size()];
+			
+			// A map of all class values -> feature counts
+			HashMap<String, double[]> featureCounts = mValueCounts.get(feature.name());
+
+		
+			for (String classValue : classValues){
+				
+				double[] classFeatureCounts = featureCounts.get(classValue);		
+				if (classFeatureCounts == null) {
+					// No instance of this class value has been seen yet
+					classPosteriors[classFeature.indexOfCategory(classValue)] = 0;
+					continue;
+				}
+				int indexOfClassValue = classFeature.indexOfCategory(classValue);
+				double classFeatureTotal = 0;
+				
+				if (featureValue.getValueType() == Value.NOMINAL_VALUE) {
+                    FeatureNominal featureNom = (FeatureNominal) feature;
+                    for (double classFeatureCount : classFeatureCounts) {
+                        classFeatureTotal += classFeatureCount;
+                    }
+                    classFeatureTotal /= scale;
+					if (Constants.DEBUG) MLLog.d(TAG, "Class feature counts: "+Arrays.toString(classFeatureCounts));
+
+                    if (Constants.DEBUG) MLLog.d(TAG, "Feature value "+featureValue.getValue().toString()+" index: "+featureValueIndex);
+
+					// The category may be newer than the counts of this class value
+					double featureValueCount = featureValueIndex < classFeatureCounts.length
+							? classFeatureCounts[featureValueIndex] / scale : 0;
+					if (mLaplaceSmoothing){
+						classFeatureProbs[indexOfClassValue]=(featureValueCount + 1)/
+								(classFeatureTotal + featureNom.numberOfCategories());
+					}
+					else {
+						if (classFeatureTotal > 0){
+							classFeatureProbs[indexOfClassValue]=featureValueCount/classFeatureTotal;
+						}
+					}
+                    if (Constants.DEBUG) MLLog.d(TAG, "classFeatureProbs["+indexOfClassValue+"]= "+classFeatureProbs[indexOfClassValue]);
+					classPosteriors[indexOfClassValue] *= classFeatureProbs[indexOfClassValue];
+					
+				} else if (featureValue.getValueType() == Value.NUMERIC_VALUE) {
+					
+					double mean;
+					double stdDev;
+					// ignore features for which we have no data (those will have normalProb = 1) 
+					double normalProbability = 1; 
+					double featureValueDouble = (Double)featureValue.getValue();
+					
+					if (classFeatureCounts[0] > 0) {
+						// Moments of the weighted values do not depend on the decay scale
+						mean = classFeatureCounts[1]/classFeatureCounts[0];
+						double variance = Math.max(classFeatureCounts[2]/classFeatureCounts[0] - Math.pow(mean,2), 0);
+						stdDev = Math.sqrt(variance);
+						normalProbability = Math.exp(-Math.pow(featureValueDouble - mean ,2)/(2*variance))
+								/(stdDev*Math.sqrt(2*Math.PI));
+						// NOTE: if all values of the class were equal the variance is zero and the
+						// normal probability is not defined; to prevent this we, cap it to 1.0.
+						if (Double.isInfinite(normalProbability) || Double.isNaN(normalProbability)) {
+							normalProbability = 1.0;
+						}
+						
+					}
+
+                    if (Constants.DEBUG) MLLog.d(TAG, "calc for: "+ classValue
+							+" and " + feature.name()
+							+" resulting probability "+normalProbability+" total "+classPosteriors[indexOfClassValue]);
+
+					classPosteriors[indexOfClassValue] *= normalProbability;
+				}
+			}
+		}
+		
+		if (Constants.DEBUG) MLLog.d(TAG, "Class posteriors: "+Arrays.toString(classPosteriors));
+		return classPosteriors;
+	}
+
+
+	@Override
+	public Value classify(Instance a_instance) throws MLException {
+		synchronized (this)
+		{
+			int maxAposterioriIndex = maxAposterioriIndex(getDistribution(a_instance));
+
+            if (mSignature.getClassFeature().getFeatureType() == Feature.NOMINAL) {
+                return classLabel(maxAposterioriIndex);
+            }
+            else {
+                throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE, "class feature must be nominal");
+            }
+		}
+	}
+
+	/**
+	 * Classifies the whole batch under a single lock acquisition. Instances that get the
+	 * same label share the returned {@link Value} object.
+	 */
+	@Override
+	public Value[] classify(ArrayList<Instance> a_instances) throws MLException {
+		if (mSignature.getClassFeature().getFeatureType() != Feature.NOMINAL) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE, "class feature must be nominal");
+		}
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		Value[] classLabels = new Value[classFeature.numberOfCategories()];
+		Value[] labels = new Value[a_instances.size()];
+		synchronized (this)
+		{
+			for (int i=0; i<labels.length; i++) {
+				int maxAposterioriIndex = maxAposterioriIndex(getDistribution(a_instances.get(i)));
+				if (maxAposterioriIndex >= classLabels.length) {
+					// A class value added during the batch
+					labels[i] = classLabel(maxAposterioriIndex);
+					continue;
+				}
+				if (classLabels[maxAposterioriIndex] == null) {
+					classLabels[maxAposterioriIndex] = classLabel(maxAposterioriIndex);
+				}
+				labels[i] = classLabels[maxAposterioriIndex];
+			}
+		}
+		return labels;
+	}
+
+	private static int maxAposterioriIndex(double[] classDistribution) {
+		double maxAposteriori = 0;
+		int maxAposterioriIndex = -1;
+		for (int i=0; i<classDistribution.length; i++){
+			if (classDistribution[i] > maxAposteriori){
+				maxAposteriori = classDistribution[i];
+				maxAposterioriIndex = i;
+			}
+		}
+
+		// When the classifier is not yet trained we return the first class value
+		if (maxAposterioriIndex == -1) {
+			maxAposterioriIndex = 0;
+		}
+		return maxAposterioriIndex;
+	}
+
+	@Override
+	public synchronized long memoryFootprint() {
+		long size = alignedSize(OBJECT_HEADER_SIZE + 5 * REFERENCE_SIZE + 4 + 2 * 8 + 1);
+		size += arraySize(mClassCounts.length, 8);
+		size += hashMapSize(mValueCounts.size());
+		for (HashMap<String, double[]> featureCounts : mValueCounts.values()) {
+			size += hashMapSize(featureCounts.size());
+			for (double[] classFeatureCounts : featureCounts.values()) {
+				size += arraySize(classFeatureCounts.length, 8);
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public void printClassifierInfo() {
+		if (!MLLog.isLoggable(MLLog.INFO)) return;
+
+        FeatureNominal classFeature = (FeatureNominal)mSignature.getClassFeature();
+		StringBuilder builder = new StringBuilder();
+		builder.append("Classifier type: "+ mType +"\n");
+		builder.append("Signature: "+ mSignature.toString()+"\n");
+		builder.append("Class feature value counts: ");
+		for (int i=0; i< classFeature.getValues().size() && i < mClassCounts.length; i++){
+			
+			builder.append("["+ classFeature.getValues().get(i)+":"+ mClassCounts[i]+"]");
+		}
+		builder.append("\nOther feature value counts: \n");
+		for (String featureName : mValueCounts.keySet()){
+			builder.append(featureName+" ");
+			HashMap<String,double[]> counts = mValueCounts.get(featureName);
+			for (String classFeatureValue : counts.keySet()) {
+				builder.append("["+classFeatureValue+":");
+				double[] values = counts.get(classFeatureValue);
+				for (int i=0; i<values.length; i++) {
+					builder.append(values[i]+",");
+				}
+				builder.append("],");
+			}
+			builder.append("\n");
+		}
+        MLLog.i(TAG, builder.toString());
+	}
+}
@@ -0,0 +1,381 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.classifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.ClassifierList;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing.Discretizer;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing.FeatureSelector;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing.Imputer;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing.Standardizer;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing.Transformer;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Chains preprocessing stages with a classifier, so that instances are preprocessed the
+ * same way for training and classification, and the stages are stored with the classifier.
+ * <p>
+ * The stages, given in order through {@link Constants#PIPELINE_STAGES}, impute missing
+ * values ({@link Constants#STAGE_IMPUTE}), standardize numeric features
+ * ({@link Constants#STAGE_STANDARDIZE}), bin them ({@link Constants#STAGE_DISCRETIZE},
+ * with {@link Constants#NUM_BINS} bins) or keep only the features named in
+ * {@link Constants#SELECTED_FEATURES} ({@link Constants#STAGE_SELECT}). The classifier,
+ * of the type given through {@link Constants#PIPELINE_CLASSIFIER}, gets the configuration
+ * of the pipeline and is created once the stages are fitted, as only then is the
+ * signature of the preprocessed instances known.
+ * <p>
+ * The stages are fused: a row is unpacked into a buffer of doubles and a buffer of values
+ * once, every stage is applied to a feature before the next feature is processed, and a
+ * single instance is built for the classifier at the end. Preprocessing thus allocates
+ * nothing per stage, and numeric values are boxed only once. Training fits the stages in
+ * order, with one pass over the instances per stage that has to learn.
+ * <p>
+ * The pipeline is an online classifier if its classifier is, once it has been trained.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class Pipeline extends Classifier implements OnlineClassifier {
+
+	private static final String TAG = "Pipeline";
+
+	// Immutable, so shared by all rows
+	private static final Value MISSING = new Value(null, Value.MISSING_VALUE);
+
+	private ArrayList<Transformer> mStages;
+
+	private int mClassifierType;
+
+	// Created once all stages are fitted
+	private Classifier mClassifier;
+
+	// Row buffers, indexed by the features of the pipeline signature
+	private transient double[] mNumbers;
+
+	private transient Value[] mValues;
+
+	private transient boolean[] mKept;
+
+	// Whether the class feature is shared with the classifier, it is not after reloading
+	private transient boolean mBound;
+
+	public Pipeline(Signature signature, ClassifierConfig config) throws MLException {
+		super(signature, config);
+		mType = Constants.TYPE_PIPELINE;
+		checkClassFeature();
+
+		if (config.containsParam(Constants.PIPELINE_CLASSIFIER)) {
+			mClassifierType = ((Number) config.getParam(Constants.PIPELINE_CLASSIFIER)).intValue();
+		} else {
+			mClassifierType = Constants.DEFAULT_PIPELINE_CLASSIFIER;
+		}
+		if (mClassifierType == Constants.TYPE_PIPELINE || mClassifierType == Constants.TYPE_ENSEMBLE) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, a pipeline cannot end in a pipeline or an ensemble");
+		}
+
+		int[] stageTypes = toIntArray(config.getParam(Constants.PIPELINE_STAGES));
+		mStages = new ArrayList<Transformer>(stageTypes.length);
+		// Every stage sees the features as the stages before it leave them
+		Signature shape = signature;
+		for (int type : stageTypes) {
+			Transformer stage = createStage(type, shape, config);
+			mStages.add(stage);
+			ArrayList<Feature> features = new ArrayList<Feature>(shape.size());
+			for (int i=0; i<shape.size(); i++) {
+				features.add(stage.outputFeature(i, shape.getFeatureAtIndex(i)));
+			}
+			shape = new Signature(features, shape.getClassIndex());
+		}
+		if (allFitted()) createClassifier();
+	}
+
+	private static Transformer createStage(int type, Signature shape, ClassifierConfig config)
+			throws MLException {
+		switch (type) {
+			case Constants.STAGE_IMPUTE:
+				return new Imputer(shape);
+			case Constants.STAGE_STANDARDIZE:
+				return new Standardizer(shape);
+			case Constants.STAGE_DISCRETIZE:
+				int numBins = Constants.DEFAULT_NUM_BINS;
+				if (config.containsParam(Constants.NUM_BINS)) {
+					numBins = ((Number) config.getParam(Constants.NUM_BINS)).intValue();
+				}
+				return new Discretizer(shape, numBins);
+			case Constants.STAGE_SELECT:
+				Object[] names = toArray(config.getParam(Constants.SELECTED_FEATURES));
+				if (names == null) {
+					throw new MLException(MLException.INVALID_PARAMETER,
+							" Invalid parameter, selecting features needs their names");
+				}
+				ArrayList<String> selected = new ArrayList<String>(names.length);
+				for (Object name : names) selected.add((String) name);
+				return new FeatureSelector(shape, selected);
+			default:
+				throw new MLException(MLException.INVALID_PARAMETER,
+						" Invalid parameter, unknown pipeline stage "+type);
+		}
+	}
+
+	private static int[] toIntArray(Object param) throws MLException {
+		if (param == null) return new int[0];
+		if (param instanceof int[]) return ((int[]) param).clone();
+		Object[] values = toArray(param);
+		if (values == null) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, pipeline stages have to be given as an array");
+		}
+		int[] result = new int[values.length];
+		for (int i=0; i<values.length; i++) {
+			result[i] = ((Number) values[i]).intValue();
+		}
+		return result;
+	}
+
+	private static Object[] toArray(Object param) {
+		if (param instanceof Object[]) return (Object[]) param;
+		if (param instanceof List) return ((List<?>) param).toArray();
+		return null;
+	}
+
+	@Override
+	public synchronized void train(ArrayList<Instance> instances) throws MLException {
+		for (Instance instance : instances) checkCompliance(instance, true);
+
+		for (int s=0; s<mStages.size(); s++) {
+			Transformer stage = mStages.get(s);
+			if (stage.isFitted()) continue;
+			for (Instance instance : instances) {
+				process(instance, true, s);
+				for (int i=0; i<mKept.length; i++) {
+					if (mKept[i]) stage.learn(i, mNumbers[i], mValues[i]);
+				}
+			}
+			stage.fit();
+		}
+
+		if (mClassifier == null) createClassifier();
+		ArrayList<Instance> transformed = new ArrayList<Instance>(instances.size());
+		for (Instance instance : instances) {
+			process(instance, true, mStages.size());
+			transformed.add(output(instance, true));
+		}
+		mClassifier.train(transformed);
+		mTrained = true;
+		checkMemoryQuota();
+	}
+
+	/**
+	 * Updates the classifier with the preprocessed instance. The stages are not changed.
+	 * @throws MLException If the stages are not fitted yet, or the classifier of the
+	 * pipeline is not an online classifier.
+	 */
+	@Override
+	public synchronized void update(Instance instance) throws MLException {
+		if (mClassifier == null) {
+			throw new MLException(MLException.INVALID_STATE,
+					"Pipeline stages have to be fitted by training before updating.");
+		}
+		if (!(mClassifier instanceof OnlineClassifier)) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, the classifier of the pipeline is not an online classifier");
+		}
+		checkCompliance(instance, true);
+		process(instance, true, mStages.size());
+		((OnlineClassifier) mClassifier).update(output(instance, true));
+		mTrained = true;
+	}
+
+	@Override
+	public synchronized Value classify(Instance instance) throws MLException {
+		checkTrained();
+		boolean labelled = checkCompliance(instance, false);
+		process(instance, labelled, mStages.size());
+		return mClassifier.classify(output(instance, false));
+	}
+
+	@Override
+	public synchronized Value[] classify(ArrayList<Instance> instances) throws MLException {
+		checkTrained();
+		ArrayList<Instance> transformed = new ArrayList<Instance>(instances.size());
+		for (Instance instance : instances) {
+			boolean labelled = checkCompliance(instance, false);
+			process(instance, labelled, mStages.size());
+			transformed.add(output(instance, false));
+		}
+		return mClassifier.classify(transformed);
+	}
+
+	@Override
+	public synchronized double[] getDistribution(Instance instance) throws MLException {
+		checkTrained();
+		boolean labelled = checkCompliance(instance, false);
+		process(instance, labelled, mStages.size());
+		return mClassifier.getDistribution(output(instance, false));
+	}
+
+	/**
+	 * @return The classifier at the end of the pipeline, or null if the stages are not
+	 * fitted yet. It expects preprocessed instances.
+	 */
+	public synchronized Classifier getClassifier() {
+		bind();
+		return mClassifier;
+	}
+
+	/**
+	 * @return Number of stages of the pipeline.
+	 */
+	public int numberOfStages() {
+		return mStages.size();
+	}
+
+	public Transformer getStage(int index) {
+		return mStages.get(index);
+	}
+
+	// Unpacks the instance into the row buffers and applies the given number of stages,
+	// feature by feature. Features that a stage drops are marked in mKept.
+	private void process(Instance instance, boolean labelled, int numStages) {
+		int size = mSignature.size();
+		if (mNumbers == null) {
+			mNumbers = new double[size];
+			mValues = new Value[size];
+			mKept = new boolean[size];
+		}
+		int classIndex = mSignature.getClassIndex();
+		for (int i=0; i<size; i++) {
+			mKept[i] = false;
+			if (i == classIndex) continue;
+			// Unlabelled instances lack the class value
+			Value value = instance.getValueAtIndex(labelled || i < classIndex ? i : i - 1);
+			if (mSignature.getFeatureAtIndex(i).getFeatureType() == Feature.NUMERIC) {
+				mNumbers[i] = value.getValueType() == Value.NUMERIC_VALUE
+						? (Double) value.getValue() : Double.NaN;
+				mValues[i] = null;
+			} else {
+				mNumbers[i] = Double.NaN;
+				mValues[i] = value;
+			}
+			boolean kept = true;
+			for (int s=0; s<numStages && kept; s++) {
+				Transformer stage = mStages.get(s);
+				kept = stage.keeps(i);
+				if (kept) stage.apply(i, mNumbers, mValues);
+			}
+			mKept[i] = kept;
+		}
+	}
+
+	// Builds the instance of the classifier signature from the processed row buffers, with
+	// the class value of the instance if labelled is set
+	private Instance output(Instance instance, boolean labelled) {
+		int classIndex = mSignature.getClassIndex();
+		Instance result = new Instance(mKept.length);
+		for (int i=0; i<mKept.length; i++) {
+			if (i == classIndex) {
+				if (labelled) result.addValue(instance.getValueAtIndex(i));
+			} else if (mKept[i]) {
+				if (mValues[i] != null) {
+					result.addValue(mValues[i]);
+				} else if (Double.isNaN(mNumbers[i])) {
+					result.addValue(MISSING);
+				} else {
+					result.addValue(new Value(mNumbers[i], Value.NUMERIC_VALUE));
+				}
+			}
+		}
+		return result;
+	}
+
+	private void createClassifier() throws MLException {
+		int classIndex = mSignature.getClassIndex();
+		ArrayList<Feature> features = new ArrayList<Feature>(mSignature.size());
+		int outputClassIndex = 0;
+		for (int i=0; i<mSignature.size(); i++) {
+			Feature feature = mSignature.getFeatureAtIndex(i);
+			boolean kept = true;
+			for (int s=0; s<mStages.size() && kept; s++) {
+				Transformer stage = mStages.get(s);
+				kept = i == classIndex || stage.keeps(i);
+				if (kept && i != classIndex) feature = stage.outputFeature(i, feature);
+			}
+			if (!kept) continue;
+			if (i == classIndex) outputClassIndex = features.size();
+			features.add(feature);
+		}
+		mClassifier = ClassifierList.createClassifier(mClassifierType,
+				new Signature(features, outputClassIndex), mConfig);
+		mBound = true;
+	}
+
+	// A reloaded pipeline and its classifier hold separate copies of the class feature.
+	// The classifier's is the one that learns new class values.
+	private void bind() {
+		if (mBound || mClassifier == null) return;
+		ArrayList<Feature> features = new ArrayList<Feature>(mSignature.getFeatures());
+		features.set(mSignature.getClassIndex(), mClassifier.getSignature().getClassFeature());
+		mSignature = new Signature(features, mSignature.getClassIndex());
+		mBound = true;
+	}
+
+	// Returns whether the instance is labelled
+	private boolean checkCompliance(Instance instance, boolean training) throws MLException {
+		bind();
+		boolean labelled = instance.size() == mSignature.size();
+		if (!mSignature.checkCompliance(instance, labelled)) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the dataset used for classifier construction.");
+		}
+		if (training && !labelled) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Training instances have to be labelled.");
+		}
+		return labelled;
+	}
+
+	private void checkTrained() throws MLException {
+		if (mClassifier == null) {
+			throw new MLException(MLException.INVALID_STATE, "Pipeline is not trained yet.");
+		}
+	}
+
+	private boolean allFitted() {
+		for (Transformer stage : mStages) {
+			if (!stage.isFitted()) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized long memoryFootprint() {
+		long size = alignedSize(OBJECT_HEADER_SIZE + 5 * REFERENCE_SIZE + 4 + 2)
+				+ arraySize(mStages.size(), REFERENCE_SIZE);
+		for (Transformer stage : mStages) size += stage.memoryFootprint();
+		if (mClassifier != null) size += mClassifier.memoryFootprint();
+		return size;
+	}
+
+	@Override
+	public synchronized void printClassifierInfo() {
+		if (!MLLog.isLoggable(MLLog.INFO)) return;
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("Classifier type: "+ mType +"\n");
+		builder.append("Signature: "+ mSignature.toString()+"\n");
+		builder.append("Stages:");
+		for (Transformer stage : mStages) {
+			builder.append(" "+ stage.getType() + (stage.isFitted() ? "" : " (not fitted)"));
+		}
+		builder.append("\nClassifier: "+ mClassifierType);
+		MLLog.i(TAG, builder.toString());
+		if (mClassifier != null) mClassifier.printClassifierInfo();
+	}
+}
@@ -0,0 +1,565 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.classifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.WorkerPool;
+
+/**
+ * Random forest of ID3 trees. Every tree is grown on a bootstrap sample of the training
+ * instances, and every node picks the split with the highest information gain among a
+ * random subset of the nominal features that are still unused on its path. As with
+ * {@link ID3}, numeric features are not used.
+ *
+ * The training instances are encoded once into a matrix of category indices, and a
+ * bootstrap sample is an array of row indices into it. The trees are grown in parallel on
+ * the {@link WorkerPool}. A tree is stored as arrays indexed by node: the split feature,
+ * the first of the children, which are consecutive and ordered by category, and the class
+ * counts of the training instances that reached the node.
+ *
+ * An instance is classified by the majority of the trees' labels or, by default, by the
+ * highest average class distribution of the leaves it reaches. A batch of instances is
+ * classified one tree at a time, so that every tree is loaded into the cache once.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class RandomForest extends Classifier {
+
+	private static final String TAG = "RandomForest";
+
+	private int mNumTrees;
+
+	private int mFeaturesPerSplit;
+
+	private long mSeed;
+
+	private boolean mProbabilityVoting;
+
+	// Signature indices of the nominal attribute features, in the order they are encoded
+	private int[] mAttributes;
+
+	private Tree[] mTrees;
+
+	/**
+	 * A single tree, stored as arrays indexed by node. The root is node 0.
+	 */
+	static class Tree {
+
+		// Position of the split feature in mAttributes, -1 for leaves
+		int[] mFeature;
+
+		// Child for category c of the split feature is mChildren[node] + c
+		int[] mChildren;
+
+		// Class counts of node n are at [n * number of classes, (n + 1) * number of classes)
+		int[] mCounts;
+
+		// Number of classes and of the categories of every attribute when the tree was grown.
+		// Growable features may have more by now.
+		int mNumClasses;
+		int[] mCardinalities;
+
+		// Follows the instance down to a leaf, or to the node whose feature it lacks
+		int find(int[] codes, int offset) {
+			int node = 0;
+			while (mFeature[node] >= 0) {
+				int category = codes[offset + mFeature[node]];
+				if (category < 0 || category >= mCardinalities[mFeature[node]]) break;
+				node = mChildren[node] + category;
+			}
+			return node;
+		}
+	}
+
+	/**
+	 * Creates a new random forest with the given signature and configuration.
+	 * @param signature Classifier signature.
+	 * @param config Optional configuration parameters.
+	 */
+	public RandomForest(Signature signature, ClassifierConfig config) throws MLException {
+		super(signature, config);
+		mType = Constants.TYPE_RANDOM_FOREST;
+
+		if (mSignature.getClassFeature().getFeatureType() != Feature.NOMINAL) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE, "class feature must be nominal");
+		}
+		checkClassFeature();
+		if (config.containsParam(Constants.NUM_TREES)) {
+			mNumTrees = ((Number) config.getParam(Constants.NUM_TREES)).intValue();
+		} else {
+			mNumTrees = Constants.DEFAULT_NUM_TREES;
+		}
+		if (config.containsParam(Constants.FEATURES_PER_SPLIT)) {
+			mFeaturesPerSplit = ((Number) config.getParam(Constants.FEATURES_PER_SPLIT)).intValue();
+		} else {
+			mFeaturesPerSplit = Constants.DEFAULT_FEATURES_PER_SPLIT;
+		}
+		if (config.containsParam(Constants.RANDOM_SEED)) {
+			mSeed = ((Number) config.getParam(Constants.RANDOM_SEED)).longValue();
+		} else {
+			mSeed = Constants.DEFAULT_RANDOM_SEED;
+		}
+		if (config.containsParam(Constants.PROBABILITY_VOTING)) {
+			mProbabilityVoting = (Boolean) config.getParam(Constants.PROBABILITY_VOTING);
+		} else {
+			mProbabilityVoting = Constants.DEFAULT_PROBABILITY_VOTING;
+		}
+		if (mNumTrees < 1 || mFeaturesPerSplit < 0) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, number of trees or features per split not valid");
+		}
+
+		int numAttributes = 0;
+		for (int i=0; i<mSignature.size(); i++) {
+			if (i != mSignature.getClassIndex()
+					&& mSignature.getFeatureAtIndex(i).getFeatureType() == Feature.NOMINAL) {
+				numAttributes++;
+			}
+		}
+		mAttributes = new int[numAttributes];
+		numAttributes = 0;
+		for (int i=0; i<mSignature.size(); i++) {
+			if (i != mSignature.getClassIndex()
+					&& mSignature.getFeatureAtIndex(i).getFeatureType() == Feature.NOMINAL) {
+				mAttributes[numAttributes++] = i;
+			}
+		}
+		if (mFeaturesPerSplit == 0 || mFeaturesPerSplit > mAttributes.length) {
+			mFeaturesPerSplit = mFeaturesPerSplit == 0
+					? (int) Math.ceil(Math.sqrt(mAttributes.length)) : mAttributes.length;
+		}
+		mTrees = new Tree[0];
+	}
+
+	/**
+	 * Grows a new forest from the given instances, replacing the current one.
+	 */
+	@Override
+	public void train(ArrayList<Instance> instances) throws MLException {
+		int size = instances.size();
+		if (size == 0) return;
+		final int[] codes = new int[size * mAttributes.length];
+		final int[] labels = new int[size];
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		for (int n=0; n<size; n++) {
+			Instance instance = instances.get(n);
+			if (!mSignature.checkCompliance(instance, true)){
+				throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+						"Instance is not compatible with the dataset used for classifier construction.");
+			}
+			Value classValue = instance.getValueAtIndex(mSignature.getClassIndex());
+			if (classValue.getValueType() != Value.NOMINAL_VALUE) {
+				throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+						"Class variable has to be of type NOMINAL.");
+			}
+			labels[n] = classFeature.learnCategory((String) classValue.getValue());
+			if (labels[n] < 0) {
+				throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+						"Unknown class value "+classValue.getValue());
+			}
+			encode(instance, true, codes, n * mAttributes.length);
+		}
+		// Categories of growable features are known once the instances are encoded
+		final int numClasses = classFeature.numberOfCategories();
+		final int[] cardinalities = new int[mAttributes.length];
+		for (int a=0; a<mAttributes.length; a++) {
+			cardinalities[a] = ((FeatureNominal) mSignature.getFeatureAtIndex(mAttributes[a]))
+					.numberOfCategories();
+		}
+
+		Tree[] trees = new Tree[mNumTrees];
+		if (WorkerPool.isWorkerThread()) {
+			// Tasks of the pool must not wait for the pool
+			for (int t=0; t<mNumTrees; t++) {
+				trees[t] = new TreeBuilder(codes, labels, cardinalities, numClasses,
+						new Random(mSeed + t)).build();
+			}
+		} else {
+			ArrayList<Callable<Tree>> tasks = new ArrayList<Callable<Tree>>(mNumTrees);
+			for (int t=0; t<mNumTrees; t++) {
+				final long seed = mSeed + t;
+				tasks.add(new Callable<Tree>() {
+					public Tree call() {
+						return new TreeBuilder(codes, labels, cardinalities, numClasses,
+								new Random(seed)).build();
+					}
+				});
+			}
+			try {
+				List<Future<Tree>> futures = WorkerPool.getExecutor().invokeAll(tasks);
+				for (int t=0; t<mNumTrees; t++) {
+					trees[t] = futures.get(t).get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MLException(MLException.INVALID_STATE, "Training was interrupted.");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+				if (cause instanceof Error) throw (Error) cause;
+				throw new MLException(MLException.INVALID_STATE, "Training failed: "+cause);
+			}
+		}
+		mTrees = trees;
+		mTrained = true;
+		if (Constants.DEBUG) MLLog.d(TAG, "Grew "+mNumTrees+" trees from "+size+" instances");
+		checkMemoryQuota();
+	}
+
+	/**
+	 * @return Average class distribution of the leaves that the instance reaches, in the
+	 * order of the class feature categories. Class values added after training get zero.
+	 * Before the forest is trained, every class value gets the same probability.
+	 */
+	@Override
+	public double[] getDistribution(Instance instance) throws MLException {
+		if (!mSignature.checkCompliance(instance, false)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the dataset used for classifier construction.");
+		}
+		Tree[] trees = mTrees;
+		if (trees.length == 0) {
+			double[] uniform = new double[((FeatureNominal) mSignature.getClassFeature()).numberOfCategories()];
+			Arrays.fill(uniform, 1.0 / uniform.length);
+			return uniform;
+		}
+		int[] codes = new int[mAttributes.length];
+		encode(instance, false, codes, 0);
+		double[] distribution = new double[Math.max(numClasses(trees),
+				((FeatureNominal) mSignature.getClassFeature()).numberOfCategories())];
+		for (Tree tree : trees) {
+			addDistribution(tree, tree.find(codes, 0), distribution, 0);
+		}
+		for (int k=0; k<distribution.length; k++) {
+			distribution[k] /= trees.length;
+		}
+		return distribution;
+	}
+
+	@Override
+	public Value classify(Instance instance) throws MLException {
+		ArrayList<Instance> instances = new ArrayList<Instance>(1);
+		instances.add(instance);
+		return classify(instances)[0];
+	}
+
+	/**
+	 * Classifies the batch one tree at a time. Instances that get the same label share the
+	 * returned {@link Value} object.
+	 */
+	@Override
+	public Value[] classify(ArrayList<Instance> instances) throws MLException {
+		int size = instances.size();
+		int[] codes = new int[size * mAttributes.length];
+		for (int n=0; n<size; n++) {
+			Instance instance = instances.get(n);
+			if (!mSignature.checkCompliance(instance, false)){
+				throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+						"Instance is not compatible with the dataset used for classifier construction.");
+			}
+			encode(instance, false, codes, n * mAttributes.length);
+		}
+
+		Tree[] trees = mTrees;
+		int numClasses = numClasses(trees);
+		double[] votes = new double[size * numClasses];
+		for (Tree tree : trees) {
+			for (int n=0; n<size; n++) {
+				int node = tree.find(codes, n * mAttributes.length);
+				if (mProbabilityVoting) {
+					addDistribution(tree, node, votes, n * numClasses);
+				} else {
+					int label = majority(tree.mCounts, node * numClasses, numClasses);
+					if (label >= 0) votes[n * numClasses + label] += 1;
+				}
+			}
+		}
+
+		// If not yet trained, we return the first label
+		Value[] classLabels = new Value[numClasses];
+		Value[] labels = new Value[size];
+		for (int n=0; n<size; n++) {
+			int best = 0;
+			for (int k=1; k<numClasses; k++) {
+				if (votes[n * numClasses + k] > votes[n * numClasses + best]) best = k;
+			}
+			if (classLabels[best] == null) {
+				classLabels[best] = classLabel(best);
+			}
+			labels[n] = classLabels[best];
+		}
+		return labels;
+	}
+
+	// Number of classes of the forest; all trees are grown with the same class values
+	private static int numClasses(Tree[] trees) {
+		return trees.length > 0 ? trees[0].mNumClasses : 1;
+	}
+
+	private static void addDistribution(Tree tree, int node, double[] target, int offset) {
+		int numClasses = tree.mNumClasses;
+		int total = 0;
+		for (int k=0; k<numClasses; k++) total += tree.mCounts[node * numClasses + k];
+		if (total == 0) return;
+		for (int k=0; k<numClasses; k++) {
+			target[offset + k] += tree.mCounts[node * numClasses + k] / (double) total;
+		}
+	}
+
+	// Index of the largest count in [from, from + length), relative to from, or -1 if all are zero
+	private static int majority(int[] counts, int from, int length) {
+		int best = -1;
+		int bestCount = 0;
+		for (int k=0; k<length; k++) {
+			if (counts[from + k] > bestCount) {
+				bestCount = counts[from + k];
+				best = k;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Writes the category indices of the nominal attributes of the instance into the array,
+	 * with -1 for missing values and for categories that are not in the signature.
+	 * @param labelled Whether the instance contains the class value. The categories of
+	 *                 labelled instances are learnt by growable features.
+	 */
+	private void encode(Instance instance, boolean labelled, int[] codes, int offset) {
+		int classIndex = mSignature.getClassIndex();
+		for (int a=0; a<mAttributes.length; a++) {
+			int i = mAttributes[a];
+			// Instances to be classified lack the class value
+			Value value = instance.getValueAtIndex(labelled || i < classIndex ? i : i - 1);
+			if (value.getValueType() != Value.NOMINAL_VALUE) {
+				codes[offset + a] = -1;
+			} else {
+				FeatureNominal feature = (FeatureNominal) mSignature.getFeatureAtIndex(i);
+				codes[offset + a] = labelled ? feature.learnCategory((String) value.getValue())
+						: feature.indexOfCategory((String) value.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Grows a single tree on a bootstrap sample of the encoded instances.
+	 */
+	private class TreeBuilder {
+
+		private final int[] mCodes;
+
+		private final int[] mLabels;
+
+		private final Random mRandom;
+
+		private final int[] mCardinalities;
+
+		private final int mNumClasses;
+
+		private final boolean[] mUsed;
+
+		private final int[] mCandidates;
+
+		// Rows of the bootstrap sample; every node owns a range of it
+		private final int[] mSample;
+
+		private final int[] mScratch;
+
+		private int[] mFeature;
+		private int[] mChildren;
+		private int[] mCounts;
+		private int mNumNodes;
+
+		TreeBuilder(int[] codes, int[] labels, int[] cardinalities, int numClasses, Random random) {
+			mCodes = codes;
+			mLabels = labels;
+			mRandom = random;
+			mCardinalities = cardinalities;
+			mNumClasses = numClasses;
+			mUsed = new boolean[mAttributes.length];
+			mCandidates = new int[mAttributes.length];
+			mSample = new int[labels.length];
+			mScratch = new int[labels.length];
+			mFeature = new int[64];
+			mChildren = new int[64];
+			mCounts = new int[64 * mNumClasses];
+		}
+
+		Tree build() {
+			for (int i=0; i<mSample.length; i++) {
+				mSample[i] = mRandom.nextInt(mLabels.length);
+			}
+			allocate(1);
+			grow(0, 0, mSample.length);
+
+			Tree tree = new Tree();
+			tree.mFeature = resize(mFeature, mNumNodes);
+			tree.mChildren = resize(mChildren, mNumNodes);
+			tree.mCounts = resize(mCounts, mNumNodes * mNumClasses);
+			tree.mNumClasses = mNumClasses;
+			tree.mCardinalities = mCardinalities;
+			return tree;
+		}
+
+		private void grow(int node, int from, int to) {
+			int countsOffset = node * mNumClasses;
+			for (int i=from; i<to; i++) {
+				mCounts[countsOffset + mLabels[mSample[i]]]++;
+			}
+			mFeature[node] = -1;
+			int total = to - from;
+			if (majorityCount(countsOffset) == total) return;
+
+			// Picks a random subset of the features that are unused on the path
+			int numCandidates = 0;
+			for (int a=0; a<mAttributes.length; a++) {
+				if (!mUsed[a] && mCardinalities[a] > 1) mCandidates[numCandidates++] = a;
+			}
+			int numPicked = Math.min(mFeaturesPerSplit, numCandidates);
+			double nodeEntropy = ID3.entropy(mCounts, countsOffset, countsOffset + mNumClasses, total);
+			double bestGain = 0;
+			int bestFeature = -1;
+			for (int p=0; p<numPicked; p++) {
+				int pick = p + mRandom.nextInt(numCandidates - p);
+				int a = mCandidates[pick];
+				mCandidates[pick] = mCandidates[p];
+				mCandidates[p] = a;
+				double gain = nodeEntropy - splitEntropy(a, from, to);
+				if (gain > bestGain + 1e-12) {
+					bestGain = gain;
+					bestFeature = a;
+				}
+			}
+			if (bestFeature < 0) return;
+
+			// Orders the range by category; instances missing the feature go last and stop here
+			int cardinality = mCardinalities[bestFeature];
+			int[] starts = new int[cardinality + 1];
+			for (int i=from; i<to; i++) {
+				int category = mCodes[mSample[i] * mAttributes.length + bestFeature];
+				starts[category < 0 ? cardinality : category]++;
+			}
+			int position = from;
+			for (int c=0; c<=cardinality; c++) {
+				int count = starts[c];
+				starts[c] = position;
+				position += count;
+			}
+			int[] ends = starts.clone();
+			for (int i=from; i<to; i++) {
+				int category = mCodes[mSample[i] * mAttributes.length + bestFeature];
+				mScratch[ends[category < 0 ? cardinality : category]++] = mSample[i];
+			}
+			System.arraycopy(mScratch, from, mSample, from, total);
+
+			int firstChild = allocate(cardinality);
+			mFeature[node] = bestFeature;
+			mChildren[node] = firstChild;
+			mUsed[bestFeature] = true;
+			for (int c=0; c<cardinality; c++) {
+				int child = firstChild + c;
+				if (starts[c] == ends[c]) {
+					// Unseen categories get the distribution of the parent
+					mFeature[child] = -1;
+					System.arraycopy(mCounts, countsOffset, mCounts, child * mNumClasses, mNumClasses);
+				} else {
+					grow(child, starts[c], ends[c]);
+				}
+			}
+			mUsed[bestFeature] = false;
+		}
+
+		// Weighted entropy of the class within the categories of the feature
+		private double splitEntropy(int feature, int from, int to) {
+			int cardinality = mCardinalities[feature];
+			int[] table = new int[cardinality * mNumClasses];
+			int[] totals = new int[cardinality];
+			int known = 0;
+			for (int i=from; i<to; i++) {
+				int row = mSample[i];
+				int category = mCodes[row * mAttributes.length + feature];
+				if (category < 0) continue;
+				table[category * mNumClasses + mLabels[row]]++;
+				totals[category]++;
+				known++;
+			}
+			if (known == 0) return Double.POSITIVE_INFINITY;
+			double entropy = 0;
+			for (int c=0; c<cardinality; c++) {
+				if (totals[c] == 0) continue;
+				entropy += totals[c] / (double) known
+						* ID3.entropy(table, c * mNumClasses, (c + 1) * mNumClasses, totals[c]);
+			}
+			return entropy;
+		}
+
+		private int majorityCount(int countsOffset) {
+			int max = 0;
+			for (int k=0; k<mNumClasses; k++) {
+				max = Math.max(max, mCounts[countsOffset + k]);
+			}
+			return max;
+		}
+
+		// Appends the given number of nodes, returning the index of the first one
+		private int allocate(int count) {
+			int first = mNumNodes;
+			mNumNodes += count;
+			if (mNumNodes > mFeature.length) {
+				int capacity = Math.max(2 * mFeature.length, mNumNodes);
+				mFeature = resize(mFeature, capacity);
+				mChildren = resize(mChildren, capacity);
+				mCounts = resize(mCounts, capacity * mNumClasses);
+			}
+			return first;
+		}
+	}
+
+	private static int[] resize(int[] array, int length) {
+		int[] resized = new int[length];
+		System.arraycopy(array, 0, resized, 0, Math.min(array.length, length));
+		return resized;
+	}
+
+	@Override
+	public long memoryFootprint() {
+		long size = alignedSize(OBJECT_HEADER_SIZE + 4 * REFERENCE_SIZE + 3 * 4 + 8 + 2);
+		size += arraySize(mAttributes.length, 4) + arraySize(mTrees.length, REFERENCE_SIZE);
+		// The trees of a forest share the attribute cardinalities
+		if (mTrees.length > 0) size += arraySize(mAttributes.length, 4);
+		for (Tree tree : mTrees) {
+			size += alignedSize(OBJECT_HEADER_SIZE + 4 * REFERENCE_SIZE + 4);
+			size += 2 * arraySize(tree.mFeature.length, 4) + arraySize(tree.mCounts.length, 4);
+		}
+		return size;
+	}
+
+	@Override
+	public void printClassifierInfo() {
+		if (!MLLog.isLoggable(MLLog.INFO)) return;
+		StringBuilder builder = new StringBuilder();
+		builder.append("Classifier type: "+ mType +"\n");
+		builder.append("Signature: "+ mSignature.toString()+"\n");
+		builder.append("Trees: "+ mTrees.length +", features per split: "+ mFeaturesPerSplit
+				+ (mProbabilityVoting ? ", probability voting" : ", majority voting") +"\n");
+		for (int t=0; t<mTrees.length; t++) {
+			builder.append("Tree "+t+": "+ mTrees[t].mFeature.length +" nodes\n");
+		}
+		MLLog.i(TAG, builder.toString());
+	}
+}
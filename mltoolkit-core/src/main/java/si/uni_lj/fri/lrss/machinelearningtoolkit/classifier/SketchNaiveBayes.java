@@ -0,0 +1,391 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.classifier;
+
+import java.util.ArrayList;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Naive Bayesian classifier that keeps the counts of nominal values in a count-min sketch,
+ * so that its memory is fixed when it is created, however many categories its features
+ * have or learn. It suits identifier-like features, such as application names or Wi-Fi
+ * BSSIDs, for which {@link NaiveBayes} would keep a count for every category and class.
+ * <p>
+ * The sketch is a table of {@link Constants#SKETCH_DEPTH} rows of
+ * {@link Constants#SKETCH_WIDTH} counters. Every (feature, category, class) triple is
+ * hashed to one counter per row; learning a value increments its counters, and the count
+ * of a value is the smallest of them. Updates and lookups thus take O(depth) time per
+ * nominal feature and class, and only the indices of the triple are hashed.
+ * <p>
+ * Counts are never underestimated. Other values that share a counter can only inflate it,
+ * and with probability at least 1 - e<sup>-depth</sup> the estimate exceeds the true count
+ * by no more than e * N / width, where N is the number of nominal values learnt so far.
+ * With the default width of 4096 and depth of 4, a count is off by at most 0.07% of N
+ * in 98% of lookups. As the bound grows with N rather than with the count itself, the
+ * likelihoods of rare values suffer most; a wider sketch tightens the bound, a deeper one
+ * makes it fail less often.
+ * <p>
+ * Class counts, the number of values per feature and class, and the Gaussian statistics of
+ * numeric features are kept exactly, as their size depends on the signature only.
+ * The classifier is an online classifier.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class SketchNaiveBayes extends Classifier implements OnlineClassifier {
+
+	private static final String TAG = "SketchNaiveBayes";
+
+	// Keeps a numeric feature whose values were all equal from yielding an infinite density
+	private static final double MIN_VARIANCE = 1e-9;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private int mWidth;
+
+	private int mDepth;
+
+	// Row r of the sketch starts at r * mWidth
+	private int[] mSketch;
+
+	// Nominal values learnt, the N of the error bound
+	private long mSketchTotal;
+
+	private double[] mClassCounts;
+
+	// For nominal features the number of values learnt per class; for numeric features the
+	// count, sum and sum of squares of the values per class, at 3 * class. Null for the class.
+	private double[][] mFeatureCounts;
+
+	private boolean mLaplaceSmoothing;
+
+	/**
+	 * Creates a new sketched Naive Bayesian classifier with the given signature and configuration.
+	 * @param signature Classifier signature.
+	 * @param config Optional configuration parameters.
+	 */
+	public SketchNaiveBayes(Signature signature, ClassifierConfig config) throws MLException {
+		super(signature, config);
+		mType = Constants.TYPE_SKETCH_NAIVE_BAYES;
+
+		if (mSignature.getClassFeature().getFeatureType() != Feature.NOMINAL) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE, "class feature must be nominal");
+		}
+		checkClassFeature();
+		if (config.containsParam(Constants.SKETCH_WIDTH)) {
+			mWidth = ((Number) config.getParam(Constants.SKETCH_WIDTH)).intValue();
+		} else {
+			mWidth = Constants.DEFAULT_SKETCH_WIDTH;
+		}
+		if (config.containsParam(Constants.SKETCH_DEPTH)) {
+			mDepth = ((Number) config.getParam(Constants.SKETCH_DEPTH)).intValue();
+		} else {
+			mDepth = Constants.DEFAULT_SKETCH_DEPTH;
+		}
+		if (config.containsParam(Constants.LAPLACE_SMOOTHING)) {
+			mLaplaceSmoothing = (Boolean) config.getParam(Constants.LAPLACE_SMOOTHING);
+		} else {
+			mLaplaceSmoothing = Constants.DEFAULT_LAPLACE_SMOOTHING;
+		}
+		if (mWidth < 1 || mDepth < 1 || (long) mWidth * mDepth > Integer.MAX_VALUE) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, sketch width or depth not valid");
+		}
+
+		int numClasses = ((FeatureNominal) mSignature.getClassFeature()).numberOfCategories();
+		mSketch = new int[mWidth * mDepth];
+		mClassCounts = new double[numClasses];
+		mFeatureCounts = new double[mSignature.size()][];
+		for (int i=0; i<mFeatureCounts.length; i++) {
+			if (i == mSignature.getClassIndex()) continue;
+			Feature feature = mSignature.getFeatureAtIndex(i);
+			if (feature.getFeatureType() == Feature.NOMINAL) {
+				mFeatureCounts[i] = new double[numClasses];
+			} else if (feature.getFeatureType() == Feature.NUMERIC) {
+				mFeatureCounts[i] = new double[3 * numClasses];
+			} else {
+				throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+						"Feature type neither nominal nor numeric");
+			}
+		}
+		checkMemoryQuota();
+	}
+
+	@Override
+	public synchronized void update(Instance instance) throws MLException {
+		if (!mSignature.checkCompliance(instance, true)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the dataset used for classifier construction.");
+		}
+		int classIndex = mSignature.getClassIndex();
+		Value classValue = instance.getValueAtIndex(classIndex);
+		if (classValue.getValueType() != Value.NOMINAL_VALUE) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+					"Class variable has to be of type NOMINAL.");
+		}
+		int actual = ((FeatureNominal) mSignature.getClassFeature())
+				.learnCategory((String) classValue.getValue());
+		if (actual < 0) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Unknown class value "+classValue.getValue());
+		}
+		// The sketch has a fixed size; only the tables of a new class value grow, which is
+		// checked against the quota before any count changes
+		int[] categories = new int[mFeatureCounts.length];
+		long growth = growth(mClassCounts.length, actual + 1);
+		for (int i=0; i<mFeatureCounts.length; i++) {
+			if (i == classIndex) continue;
+			Value value = instance.getValueAtIndex(i);
+			if (value.getValueType() == Value.NOMINAL_VALUE) {
+				categories[i] = ((FeatureNominal) mSignature.getFeatureAtIndex(i))
+						.learnCategory((String) value.getValue());
+				if (categories[i] >= 0) growth += growth(mFeatureCounts[i].length, actual + 1);
+			} else if (value.getValueType() == Value.NUMERIC_VALUE) {
+				growth += growth(mFeatureCounts[i].length, 3 * (actual + 1));
+			}
+		}
+		if (growth > 0) checkMemoryQuota(memoryFootprint() + growth);
+
+		mClassCounts = ensureLength(mClassCounts, actual + 1);
+		mClassCounts[actual] += 1;
+
+		for (int i=0; i<mFeatureCounts.length; i++) {
+			if (i == classIndex) continue;
+			Value value = instance.getValueAtIndex(i);
+			if (value.getValueType() == Value.NOMINAL_VALUE) {
+				int category = categories[i];
+				// A category that is not in the signature is treated as a missing value
+				if (category < 0) continue;
+				mFeatureCounts[i] = ensureLength(mFeatureCounts[i], actual + 1);
+				mFeatureCounts[i][actual] += 1;
+				long key = keyOf(i, category, actual);
+				for (int r=0; r<mDepth; r++) {
+					mSketch[counterOf(key, r)]++;
+				}
+				mSketchTotal++;
+			} else if (value.getValueType() == Value.NUMERIC_VALUE) {
+				double x = (Double) value.getValue();
+				double[] stats = mFeatureCounts[i] = ensureLength(mFeatureCounts[i], 3 * (actual + 1));
+				stats[3 * actual] += 1;
+				stats[3 * actual + 1] += x;
+				stats[3 * actual + 2] += x * x;
+			}
+			// Do nothing for a missing value.
+		}
+		mTrained = true;
+	}
+
+	@Override
+	public void train(ArrayList<Instance> instances) throws MLException {
+		for (Instance instance : instances) {
+			update(instance);
+		}
+	}
+
+	/**
+	 * @return Posterior probability of every class value, in the order of the class feature
+	 * categories. Class values that have not been learnt yet get zero.
+	 */
+	@Override
+	public synchronized double[] getDistribution(Instance instance) throws MLException {
+		if (!mSignature.checkCompliance(instance, false)){
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the dataset used for classifier construction.");
+		}
+		int numClasses = ((FeatureNominal) mSignature.getClassFeature()).numberOfCategories();
+		double[] distribution = new double[numClasses];
+		double classCountsTotal = 0;
+		for (int k=0; k<mClassCounts.length; k++) classCountsTotal += mClassCounts[k];
+		if (classCountsTotal == 0) {
+			for (int k=0; k<distribution.length; k++) distribution[k] = 1.0 / distribution.length;
+			return distribution;
+		}
+
+		// Posteriors are summed as logarithms, since the products underflow for many features
+		for (int k=0; k<distribution.length; k++) {
+			distribution[k] = k < mClassCounts.length && mClassCounts[k] > 0
+					? Math.log(mClassCounts[k] / classCountsTotal) : Double.NEGATIVE_INFINITY;
+		}
+		int classIndex = mSignature.getClassIndex();
+		for (int i=0; i<mFeatureCounts.length; i++) {
+			if (i == classIndex) continue;
+			// Instances to be classified lack the class value
+			Value value = instance.getValueAtIndex(i < classIndex ? i : i - 1);
+			if (value.getValueType() == Value.NOMINAL_VALUE) {
+				FeatureNominal feature = (FeatureNominal) mSignature.getFeatureAtIndex(i);
+				int category = feature.indexOfCategory((String) value.getValue());
+				// Unknown categories carry no evidence, same as missing values
+				if (category < 0) continue;
+				addNominalEvidence(distribution, i, category, feature.numberOfCategories());
+			} else if (value.getValueType() == Value.NUMERIC_VALUE) {
+				addNumericEvidence(distribution, i, (Double) value.getValue());
+			}
+		}
+
+		double max = Double.NEGATIVE_INFINITY;
+		for (int k=0; k<distribution.length; k++) max = Math.max(max, distribution[k]);
+		if (max == Double.NEGATIVE_INFINITY) {
+			// Without smoothing every learnt class may have a zero likelihood; fall back to the priors
+			for (int k=0; k<distribution.length; k++) {
+				distribution[k] = k < mClassCounts.length ? mClassCounts[k] / classCountsTotal : 0;
+			}
+			return distribution;
+		}
+		double sum = 0;
+		for (int k=0; k<distribution.length; k++) {
+			distribution[k] = Math.exp(distribution[k] - max);
+			sum += distribution[k];
+		}
+		for (int k=0; k<distribution.length; k++) distribution[k] /= sum;
+		return distribution;
+	}
+
+	@Override
+	public Value classify(Instance instance) throws MLException {
+		return classLabel(maxIndex(getDistribution(instance)));
+	}
+
+	/**
+	 * Classifies the whole batch. Instances that get the same label share the returned
+	 * {@link Value} object.
+	 */
+	@Override
+	public Value[] classify(ArrayList<Instance> instances) throws MLException {
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		Value[] classLabels = new Value[classFeature.numberOfCategories()];
+		Value[] labels = new Value[instances.size()];
+		for (int i=0; i<labels.length; i++) {
+			int label = maxIndex(getDistribution(instances.get(i)));
+			if (label >= classLabels.length) {
+				// A class value added during the batch
+				labels[i] = classLabel(label);
+				continue;
+			}
+			if (classLabels[label] == null) classLabels[label] = classLabel(label);
+			labels[i] = classLabels[label];
+		}
+		return labels;
+	}
+
+	/**
+	 * @return Estimated number of times the category of the feature was learnt together
+	 * with the class value. Never less than the true count.
+	 */
+	public synchronized long estimateCount(int featureIndex, int category, int classValue) {
+		return estimate(keyOf(featureIndex, category, classValue));
+	}
+
+	/**
+	 * @return Bound on the amount by which {@link #estimateCount(int, int, int)} overestimates
+	 * a count, which holds with probability {@link #errorProbability()}.
+	 */
+	public synchronized double errorBound() {
+		return Math.E * mSketchTotal / mWidth;
+	}
+
+	/**
+	 * @return Probability that an estimated count exceeds its true count by more than
+	 * {@link #errorBound()}.
+	 */
+	public double errorProbability() {
+		return Math.exp(-mDepth);
+	}
+
+	private void addNominalEvidence(double[] logPosteriors, int featureIndex, int category,
+			int numCategories) {
+		double[] totals = mFeatureCounts[featureIndex];
+		for (int k=0; k<logPosteriors.length; k++) {
+			if (logPosteriors[k] == Double.NEGATIVE_INFINITY) continue;
+			double total = k < totals.length ? totals[k] : 0;
+			// No value is counted more often than values of the feature were learnt for the class
+			double count = Math.min(estimate(keyOf(featureIndex, category, k)), total);
+			if (mLaplaceSmoothing) {
+				logPosteriors[k] += Math.log((count + 1) / (total + numCategories));
+			} else if (total > 0) {
+				logPosteriors[k] += count > 0 ? Math.log(count / total) : Double.NEGATIVE_INFINITY;
+			}
+		}
+	}
+
+	private void addNumericEvidence(double[] logPosteriors, int featureIndex, double x) {
+		double[] stats = mFeatureCounts[featureIndex];
+		for (int k=0; k<logPosteriors.length; k++) {
+			// Features for which a class has no data carry no evidence
+			if (3 * k >= stats.length || stats[3 * k] == 0) continue;
+			double n = stats[3 * k];
+			double mean = stats[3 * k + 1] / n;
+			double variance = Math.max(stats[3 * k + 2] / n - mean * mean, MIN_VARIANCE);
+			double deviation = x - mean;
+			logPosteriors[k] += -deviation * deviation / (2 * variance)
+					- 0.5 * Math.log(2 * Math.PI * variance);
+		}
+	}
+
+	private long estimate(long key) {
+		long count = Long.MAX_VALUE;
+		for (int r=0; r<mDepth; r++) {
+			count = Math.min(count, mSketch[counterOf(key, r)]);
+		}
+		return count;
+	}
+
+	// Hash of a (feature, category, class) triple, finished with the mix of SplitMix64
+	private static long keyOf(int featureIndex, int category, int classValue) {
+		long h = featureIndex;
+		h = h * GOLDEN_GAMMA + category;
+		h = h * GOLDEN_GAMMA + classValue;
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		return h ^ (h >>> 31);
+	}
+
+	// Counter of the key in row r. The rows combine the two halves of the key, which is as
+	// good as hashing with an independent function per row (Kirsch and Mitzenmacher).
+	private int counterOf(long key, int r) {
+		int h = (int) key + r * ((int) (key >>> 32) | 1);
+		return r * mWidth + (int) ((h & 0xffffffffL) % mWidth);
+	}
+
+	private static int maxIndex(double[] distribution) {
+		int best = 0;
+		for (int k=1; k<distribution.length; k++) {
+			if (distribution[k] > distribution[best]) best = k;
+		}
+		return best;
+	}
+
+	@Override
+	public long memoryFootprint() {
+		long size = alignedSize(OBJECT_HEADER_SIZE + 5 * REFERENCE_SIZE + 3 * 4 + 8 + 2)
+				+ arraySize(mSketch.length, 4)
+				+ arraySize(mClassCounts.length, 8)
+				+ arraySize(mFeatureCounts.length, REFERENCE_SIZE);
+		for (double[] counts : mFeatureCounts) {
+			if (counts != null) size += arraySize(counts.length, 8);
+		}
+		return size;
+	}
+
+	@Override
+	public void printClassifierInfo() {
+		if (!MLLog.isLoggable(MLLog.INFO)) return;
+
+		FeatureNominal classFeature = (FeatureNominal) mSignature.getClassFeature();
+		StringBuilder builder = new StringBuilder();
+		builder.append("Classifier type: "+ mType +"\n");
+		builder.append("Signature: "+ mSignature.toString()+"\n");
+		builder.append("Sketch: "+ mDepth +" x "+ mWidth +", "+ mSketchTotal +" values, error bound "
+				+ errorBound() +" with probability "+ (1 - errorProbability()) +"\n");
+		builder.append("Class feature value counts: ");
+		for (int k=0; k<classFeature.numberOfCategories() && k<mClassCounts.length; k++) {
+			builder.append("["+ classFeature.categoryOfIndex(k) +":"+ mClassCounts[k] +"]");
+		}
+		MLLog.i(TAG, builder.toString());
+	}
+}
@@ -25,14 +25,13 @@ package si.uni_lj.fri.lrss.machinelearningtoolkit.classifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-import android.util.Log;
-
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
 import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
 
@@ -41,6 +40,8 @@ import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
  * ZeroR classifier is not taking any features into account during the classification.
  * It merely outputs the mean value/most frequent class. 
  * Besides classification, we can use ZeroR for regression.
+ * With a {@link Constants#DECAY_FACTOR} below one, recent instances weigh more, in the
+ * same way as in {@link NaiveBayes}.
  * 
  * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
  *
@@ -50,21 +51,30 @@ public class ZeroR extends Classifier implements OnlineClassifier {
 	private static final String TAG = "ZeroR";
 
 	private double[] mClassCounts;
+
+	private double mDecayFactor;
+
+	// Weight the next instance is counted with. Only ratios of the counts are used, so they
+	// need no rescaling when they are read.
+	private double mDecayScale;
     
-	private static final Object mLock = new Object();
-	
-	public ZeroR(Signature a_signature, ClassifierConfig a_config) {
+	public ZeroR(Signature a_signature, ClassifierConfig a_config) throws MLException {
 		super(a_signature, a_config);
+		mType = Constants.TYPE_ZERO_R;
+		checkClassFeature();
+		mDecayFactor = decayFactor(a_config);
+		mDecayScale = 1;
 		Feature classFeature = mSignature.getClassFeature();
 		if (classFeature.getFeatureType() == Feature.NOMINAL)
 			mClassCounts = new double[((FeatureNominal)classFeature).numberOfCategories()];
 		else if (classFeature.getFeatureType() == Feature.NUMERIC) 
 			mClassCounts = new double[2];
 		Arrays.fill(mClassCounts, 0.0);
+		checkMemoryQuota();
 	}
 
 	@Override
-	public void update(Instance instance) throws MLException {
+	public synchronized void update(Instance instance) throws MLException {
 		
 		if (!mSignature.checkCompliance(instance, true)){
 			throw new MLException(MLException.INCOMPATIBLE_INSTANCE, 
@@ -74,27 +84,42 @@ public class ZeroR extends Classifier implements OnlineClassifier {
 		Feature classFeature = mSignature.getClassFeature();
 		
 		Value classValue = instance.getValueAtIndex(mSignature.getClassIndex());
+		// Models stored before decay was supported have no scale
+		double weight = mDecayScale > 0 ? mDecayScale : 1;
 		
 		if (classFeature.getFeatureType() == Feature.NOMINAL) {
-			int classValueInt = ((FeatureNominal)classFeature).indexOfCategory((String) classValue.getValue());
-			mClassCounts[classValueInt] += 1;
+			int classValueInt = ((FeatureNominal)classFeature).learnCategory((String) classValue.getValue());
+			if (classValueInt < 0) {
+				throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+						"Unknown class value "+classValue.getValue());
+			}
+			long growth = growth(mClassCounts.length, classValueInt + 1);
+			if (growth > 0) checkMemoryQuota(memoryFootprint() + growth);
+			mClassCounts = ensureLength(mClassCounts, classValueInt + 1);
+			mClassCounts[classValueInt] += weight;
 		} else if (classFeature.getFeatureType() == Feature.NUMERIC) {
-			mClassCounts[0] += (Double) classValue.getValue();
-			mClassCounts[1] += 1;
+			mClassCounts[0] += weight * (Double) classValue.getValue();
+			mClassCounts[1] += weight;
+		}
+
+		if (mDecayFactor > 0 && mDecayFactor < 1) {
+			mDecayScale = weight / mDecayFactor;
+			if (mDecayScale > MAX_DECAY_SCALE) {
+				scale(mClassCounts, 1 / mDecayScale);
+				mDecayScale = 1;
+			}
 		}
 	}
 
 	@Override
 	public void train(ArrayList<Instance> a_instances) throws MLException {
 		for(Instance a_instance : a_instances){
-			synchronized (mLock) {
-				this.update(a_instance);
-			}
+			this.update(a_instance);
 		}		
 	}
 
 	@Override
-	public Value classify(Instance instance) throws MLException {
+	public synchronized Value classify(Instance instance) throws MLException {
 		
 		if (!mSignature.checkCompliance(instance, false)){
 			throw new MLException(MLException.INCOMPATIBLE_INSTANCE, 
@@ -103,23 +128,48 @@ public class ZeroR extends Classifier implements OnlineClassifier {
 		if (((FeatureNominal)mSignature.getClassFeature()).getFeatureType() == Feature.NOMINAL) {
 			double maxCount = 0;
 			int maxValueIndex = 0;
+			double[] classCounts = mClassCounts;
 			
-			for (int i=0; i< mClassCounts.length; i++) {
-				if (Constants.DEBUG) Log.d(TAG, "Class value index "+i+" count "+ mClassCounts[i]);
-				if (mClassCounts[i] > maxCount) {
+			for (int i=0; i< classCounts.length; i++) {
+				if (Constants.DEBUG) MLLog.d(TAG, "Class value index "+i+" count "+ classCounts[i]);
+				if (classCounts[i] > maxCount) {
 					maxValueIndex = i;
-					maxCount = mClassCounts[i];
+					maxCount = classCounts[i];
 				}
 			}
 			
-			return new Value(((FeatureNominal)mSignature.getClassFeature()).categoryOfIndex(maxValueIndex),
-                    Value.NOMINAL_VALUE);
+			return classLabel(maxValueIndex);
 		} else { //it's NUMERIC
 			double mean = mClassCounts[0]/ mClassCounts[1];
 			return new Value(mean, Value.NUMERIC_VALUE);
 		}
 	}
 
+	/**
+	 * ZeroR assigns the same label to every instance, so the label is computed once for the
+	 * whole batch and shared among the instances.
+	 */
+	@Override
+	public Value[] classify(ArrayList<Instance> instances) throws MLException {
+		Value[] labels = new Value[instances.size()];
+		for (int i=0; i<labels.length; i++) {
+			if (!mSignature.checkCompliance(instances.get(i), false)){
+				throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+						"Instance is not compatible with the dataset used for classifier construction.");
+			}
+		}
+		if (labels.length > 0) {
+			Arrays.fill(labels, classify(instances.get(0)));
+		}
+		return labels;
+	}
+
+	@Override
+	public synchronized long memoryFootprint() {
+		return alignedSize(OBJECT_HEADER_SIZE + 3 * REFERENCE_SIZE + 4 + 2 * 8 + 1)
+				+ arraySize(mClassCounts.length, 8);
+	}
+
 	@Override
 	public void printClassifierInfo() {
 		// TODO Auto-generated method stub		
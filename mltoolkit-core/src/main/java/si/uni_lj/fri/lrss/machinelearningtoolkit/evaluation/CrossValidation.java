@@ -0,0 +1,223 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.ClassifierList;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Classifier;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.ClassifierConfig;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.WorkerPool;
+
+/**
+ * Estimates how well a classifier type generalizes, by k-fold cross-validation or repeated
+ * holdout. Every fold, or repetition, trains a fresh classifier and is run as a separate
+ * task on the {@link WorkerPool}; the per-fold results are merged into one
+ * {@link Evaluation}.
+ *
+ * Folds are index ranges over a single shuffled permutation of the dataset, so instances
+ * are never copied. A fold's training list only holds references, because classifiers
+ * train on an ArrayList and some of them, e.g. the density clustering, modify it. Test
+ * instances are classified through a view that hides their class value. Every fold has
+ * its own copy of the growable nominal features of the signature, so that the categories
+ * it learns do not leak into the other folds.
+ *
+ * The dataset must not be modified while an evaluation runs. Evaluations wait for the
+ * worker pool, so they must not be started from a task running on it.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class CrossValidation {
+
+	private final int mType;
+
+	private final Signature mSignature;
+
+	private final ClassifierConfig mConfig;
+
+	/**
+	 * @param type Type of the classifiers to evaluate, one of the types in
+	 *             {@link si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants}.
+	 * @param signature Signature of the dataset.
+	 * @param config Configuration of every classifier that is trained.
+	 */
+	public CrossValidation(int type, Signature signature, ClassifierConfig config) {
+		mType = type;
+		mSignature = signature;
+		mConfig = config;
+	}
+
+	/**
+	 * Runs k-fold cross-validation. Every instance is used for testing exactly once.
+	 * @param instances Labelled instances.
+	 * @param folds Number of folds, at least 2 and at most the number of instances.
+	 * @param seed Seed of the shuffle that assigns instances to folds.
+	 */
+	public Evaluation kFold(List<Instance> instances, int folds, long seed) throws MLException {
+		int size = instances.size();
+		if (folds < 2 || folds > size) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					"Number of folds has to be between 2 and the number of instances.");
+		}
+		int[] permutation = permutation(size, new Random(seed));
+		ArrayList<Callable<Evaluation>> tasks = new ArrayList<Callable<Evaluation>>(folds);
+		for (int fold = 0; fold < folds; fold++) {
+			// The first size % folds folds get one instance more
+			int from = fold * (size / folds) + Math.min(fold, size % folds);
+			int to = from + size / folds + (fold < size % folds ? 1 : 0);
+			tasks.add(new FoldTask(instances, permutation, from, to));
+		}
+		return runAll(tasks);
+	}
+
+	/**
+	 * Runs repeated holdout. Every repetition trains on a random share of the instances and
+	 * tests on the rest.
+	 * @param instances Labelled instances.
+	 * @param repetitions Number of repetitions.
+	 * @param trainFraction Share of the instances used for training, between 0 and 1.
+	 * @param seed Seed of the shuffles; repetition i uses seed + i.
+	 */
+	public Evaluation holdout(List<Instance> instances, int repetitions, double trainFraction,
+							  long seed) throws MLException {
+		int size = instances.size();
+		int trainSize = (int) Math.round(size * trainFraction);
+		if (repetitions < 1 || trainSize < 1 || trainSize >= size) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					"Holdout needs at least one repetition and a non-empty training and test set.");
+		}
+		ArrayList<Callable<Evaluation>> tasks = new ArrayList<Callable<Evaluation>>(repetitions);
+		for (int i = 0; i < repetitions; i++) {
+			int[] permutation = permutation(size, new Random(seed + i));
+			tasks.add(new FoldTask(instances, permutation, trainSize, size));
+		}
+		return runAll(tasks);
+	}
+
+	/**
+	 * Classifies the given instances with a trained classifier and records the predictions.
+	 * @param classifier Trained classifier.
+	 * @param instances Labelled instances.
+	 * @param evaluation Evaluation to record the predictions in.
+	 */
+	public static void evaluate(Classifier classifier, List<Instance> instances, Evaluation evaluation)
+			throws MLException {
+		Signature signature = classifier.getSignature();
+		for (int i = 0; i < instances.size(); i++) {
+			record(classifier, signature, instances.get(i), evaluation, false);
+		}
+	}
+
+	/**
+	 * @param learnClass Whether an unknown class value becomes a category of a growable
+	 *                   class feature, rather than an error.
+	 */
+	private static void record(Classifier classifier, Signature signature, Instance instance,
+							   Evaluation evaluation, boolean learnClass) throws MLException {
+		int classIndex = signature.getClassIndex();
+		FeatureNominal classFeature = (FeatureNominal) signature.getClassFeature();
+		Value actual = instance.getValueAtIndex(classIndex);
+		if (actual.getValueType() != Value.NOMINAL_VALUE) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instances used for evaluation have to be labelled.");
+		}
+		int actualIndex = learnClass ? classFeature.learnCategory((String) actual.getValue())
+				: classFeature.indexOfCategory((String) actual.getValue());
+		if (actualIndex < 0) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Unknown class value "+actual.getValue());
+		}
+		Value predicted = classifier.classify(new UnlabelledInstance(instance, classIndex));
+		int predictedIndex = -1;
+		if (predicted != null && predicted.getValue() instanceof String) {
+			predictedIndex = classFeature.indexOfCategory((String) predicted.getValue());
+		}
+		evaluation.record(actualIndex, predictedIndex);
+	}
+
+	private Evaluation runAll(ArrayList<Callable<Evaluation>> tasks) throws MLException {
+		Evaluation result = new Evaluation((FeatureNominal) mSignature.getClassFeature());
+		try {
+			List<Future<Evaluation>> futures = WorkerPool.getExecutor().invokeAll(tasks);
+			for (Future<Evaluation> future : futures) {
+				result.merge(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MLException(MLException.INVALID_STATE, "Evaluation was interrupted.");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof MLException) throw (MLException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new MLException(MLException.INVALID_STATE, "Evaluation failed: "+cause);
+		}
+		return result;
+	}
+
+	private static int[] permutation(int size, Random random) {
+		int[] permutation = new int[size];
+		for (int i = 0; i < size; i++) permutation[i] = i;
+		for (int i = size - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = permutation[i];
+			permutation[i] = permutation[j];
+			permutation[j] = tmp;
+		}
+		return permutation;
+	}
+
+	/**
+	 * Trains on all positions of the permutation outside [from, to) and tests on those
+	 * inside.
+	 */
+	private class FoldTask implements Callable<Evaluation> {
+
+		private final List<Instance> mInstances;
+
+		private final int[] mPermutation;
+
+		private final int mTestFrom;
+
+		private final int mTestTo;
+
+		FoldTask(List<Instance> instances, int[] permutation, int testFrom, int testTo) {
+			mInstances = instances;
+			mPermutation = permutation;
+			mTestFrom = testFrom;
+			mTestTo = testTo;
+		}
+
+		public Evaluation call() throws MLException {
+			ArrayList<Instance> training =
+					new ArrayList<Instance>(mPermutation.length - (mTestTo - mTestFrom));
+			for (int i = 0; i < mTestFrom; i++) {
+				training.add(mInstances.get(mPermutation[i]));
+			}
+			for (int i = mTestTo; i < mPermutation.length; i++) {
+				training.add(mInstances.get(mPermutation[i]));
+			}
+			// Categories that a fold learns must not show in the other folds
+			Signature signature = mSignature.copy();
+			Classifier classifier = ClassifierList.createClassifier(mType, signature, mConfig);
+			classifier.train(training);
+
+			// A class value that only occurs in the test instances is learnt after training,
+			// so it is counted but never predicted
+			Evaluation evaluation = new Evaluation((FeatureNominal) signature.getClassFeature());
+			for (int i = mTestFrom; i < mTestTo; i++) {
+				record(classifier, signature, mInstances.get(mPermutation[i]), evaluation, true);
+			}
+			return evaluation;
+		}
+	}
+}
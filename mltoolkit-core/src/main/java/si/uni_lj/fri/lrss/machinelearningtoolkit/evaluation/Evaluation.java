@@ -0,0 +1,210 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.evaluation;
+
+import java.util.ArrayList;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+
+/**
+ * Confusion matrix of a classifier's predictions, with the accuracy, precision and recall
+ * derived from it. Rows are actual classes, columns predicted ones. Predictions that are
+ * not a class value of the signature are counted as errors outside the matrix. Class values
+ * that a growable class feature learns get a row and a column when they first occur.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class Evaluation {
+
+	private final FeatureNominal mClassFeature;
+
+	private ArrayList<String> mClassValues;
+
+	private long[][] mConfusion;
+
+	// Per actual class
+	private long[] mUnclassified;
+
+	public Evaluation(FeatureNominal classFeature) {
+		mClassFeature = classFeature;
+		mClassValues = classFeature.getValues();
+		mConfusion = new long[mClassValues.size()][mClassValues.size()];
+		mUnclassified = new long[mClassValues.size()];
+	}
+
+	Evaluation(Evaluation other) {
+		mClassFeature = other.mClassFeature;
+		mClassValues = other.mClassValues;
+		mConfusion = new long[other.mConfusion.length][];
+		for (int i = 0; i < mConfusion.length; i++) {
+			mConfusion[i] = other.mConfusion[i].clone();
+		}
+		mUnclassified = other.mUnclassified.clone();
+	}
+
+	/**
+	 * Records a single prediction.
+	 * @param actual Index of the actual class value.
+	 * @param predicted Index of the predicted class value, or -1 if the prediction is not
+	 *                  a class value.
+	 */
+	public void record(int actual, int predicted) {
+		if (actual >= mConfusion.length || predicted >= mConfusion.length) {
+			grow(mClassFeature.getValues());
+		}
+		if (predicted < 0 || predicted >= mConfusion.length) {
+			mUnclassified[actual]++;
+		} else {
+			mConfusion[actual][predicted]++;
+		}
+	}
+
+	// Takes back a prediction that has been recorded before.
+	void remove(int actual, int predicted) {
+		if (predicted < 0 || predicted >= mConfusion.length) {
+			mUnclassified[actual]--;
+		} else {
+			mConfusion[actual][predicted]--;
+		}
+	}
+
+	/**
+	 * Adds the predictions recorded by another evaluation of the same class feature, or of a
+	 * copy of it. Predictions of a copy are matched by class value, because a growable copy
+	 * may have learnt its values in a different order.
+	 */
+	public void merge(Evaluation other) {
+		if (other.mClassFeature != mClassFeature) {
+			mergeByValue(other);
+			return;
+		}
+		if (other.mConfusion.length > mConfusion.length) grow(other.mClassValues);
+		for (int i = 0; i < other.mConfusion.length; i++) {
+			for (int j = 0; j < other.mConfusion.length; j++) {
+				mConfusion[i][j] += other.mConfusion[i][j];
+			}
+			mUnclassified[i] += other.mUnclassified[i];
+		}
+	}
+
+	private void mergeByValue(Evaluation other) {
+		int size = other.mConfusion.length;
+		int[] index = new int[size];
+		ArrayList<String> classValues = mClassValues;
+		for (int i = 0; i < size; i++) {
+			String value = other.mClassValues.get(i);
+			index[i] = classValues.indexOf(value);
+			if (index[i] < 0) {
+				// The list may be the class feature's own, which is never modified
+				if (classValues == mClassValues) classValues = new ArrayList<String>(mClassValues);
+				classValues.add(value);
+				index[i] = classValues.size() - 1;
+			}
+		}
+		grow(classValues);
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				mConfusion[index[i]][index[j]] += other.mConfusion[i][j];
+			}
+			mUnclassified[index[i]] += other.mUnclassified[i];
+		}
+	}
+
+	// Adds rows and columns for the class values that were added to the class feature
+	private void grow(ArrayList<String> classValues) {
+		int size = classValues.size();
+		if (size <= mConfusion.length) return;
+		long[][] confusion = new long[size][size];
+		for (int i = 0; i < mConfusion.length; i++) {
+			System.arraycopy(mConfusion[i], 0, confusion[i], 0, mConfusion.length);
+		}
+		long[] unclassified = new long[size];
+		System.arraycopy(mUnclassified, 0, unclassified, 0, mUnclassified.length);
+		mConfusion = confusion;
+		mUnclassified = unclassified;
+		mClassValues = classValues;
+	}
+
+	public ArrayList<String> getClassValues() {
+		return mClassValues;
+	}
+
+	/**
+	 * @return Confusion matrix, indexed by actual and then predicted class. The matrix is
+	 * not copied.
+	 */
+	public long[][] getConfusionMatrix() {
+		return mConfusion;
+	}
+
+	public long getCount() {
+		long count = getUnclassified();
+		for (int i = 0; i < mConfusion.length; i++) {
+			for (int j = 0; j < mConfusion.length; j++) {
+				count += mConfusion[i][j];
+			}
+		}
+		return count;
+	}
+
+	public long getCorrect() {
+		long correct = 0;
+		for (int i = 0; i < mConfusion.length; i++) {
+			correct += mConfusion[i][i];
+		}
+		return correct;
+	}
+
+	public long getUnclassified() {
+		long unclassified = 0;
+		for (int i = 0; i < mUnclassified.length; i++) {
+			unclassified += mUnclassified[i];
+		}
+		return unclassified;
+	}
+
+	public double accuracy() {
+		long count = getCount();
+		return count == 0 ? 0 : getCorrect() / (double) count;
+	}
+
+	/**
+	 * @return Share of the predictions of the given class that were correct, or zero if
+	 * the class was never predicted.
+	 */
+	public double precision(int classIndex) {
+		long predicted = 0;
+		for (int i = 0; i < mConfusion.length; i++) {
+			predicted += mConfusion[i][classIndex];
+		}
+		return predicted == 0 ? 0 : mConfusion[classIndex][classIndex] / (double) predicted;
+	}
+
+	/**
+	 * @return Share of the instances of the given class that were predicted correctly, or
+	 * zero if there were none.
+	 */
+	public double recall(int classIndex) {
+		long actual = mUnclassified[classIndex];
+		for (int j = 0; j < mConfusion.length; j++) {
+			actual += mConfusion[classIndex][j];
+		}
+		return actual == 0 ? 0 : mConfusion[classIndex][classIndex] / (double) actual;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("Accuracy: ").append(accuracy()).append(" (").append(getCorrect())
+				.append("/").append(getCount()).append(")\n");
+		for (int i = 0; i < mConfusion.length; i++) {
+			builder.append(mClassValues.get(i)).append(": precision ").append(precision(i))
+					.append(", recall ").append(recall(i)).append(", predicted as [");
+			for (int j = 0; j < mConfusion.length; j++) {
+				if (j > 0) builder.append(", ");
+				builder.append(mConfusion[i][j]);
+			}
+			builder.append("]\n");
+		}
+		return builder.toString();
+	}
+}
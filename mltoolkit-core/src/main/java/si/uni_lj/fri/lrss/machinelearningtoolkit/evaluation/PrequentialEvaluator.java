@@ -0,0 +1,178 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.evaluation;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Classifier;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.OnlineClassifier;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Prequential (test-then-train) evaluation of an online classifier on a live stream. Every
+ * labelled instance is first classified, and only then used to update the classifier, so
+ * every prediction is made on an instance the classifier has not seen yet.
+ *
+ * Quality is tracked in constant memory, in three ways:
+ * <ul>
+ * <li>over a sliding window of the most recent instances, as a confusion matrix that is
+ * updated incrementally from a ring buffer of outcomes;</li>
+ * <li>as accuracy with a fading factor, where an outcome that is n instances old has the
+ * weight factor^n;</li>
+ * <li>as accuracy over the whole stream.</li>
+ * </ul>
+ * Processing an instance adds two array writes and a few arithmetic operations to the
+ * classification and the update themselves. The evaluator is thread-safe; instances are
+ * processed one at a time.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class PrequentialEvaluator {
+
+	private final Classifier mClassifier;
+
+	private final Signature mSignature;
+
+	private final FeatureNominal mClassFeature;
+
+	private final double mFadingFactor;
+
+	// Ring buffer of the outcomes in the window, as class indices
+	private final int[] mActual;
+
+	private final int[] mPredicted;
+
+	private int mNext;
+
+	private int mWindowCount;
+
+	private final Evaluation mWindow;
+
+	private double mFadingCorrect;
+
+	private double mFadingCount;
+
+	private long mCorrect;
+
+	private long mCount;
+
+	/**
+	 * @param classifier Classifier to evaluate, which has to implement {@link OnlineClassifier}.
+	 * @param windowSize Number of most recent instances the windowed metrics are computed on.
+	 * @param fadingFactor Weight decay per instance of the fading accuracy, between 0 and 1,
+	 *                     e.g. 0.999. One gives the accuracy over the whole stream.
+	 */
+	public PrequentialEvaluator(Classifier classifier, int windowSize, double fadingFactor)
+			throws MLException {
+		if (!(classifier instanceof OnlineClassifier)) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					"Prequential evaluation requires an online classifier.");
+		}
+		if (windowSize < 1 || fadingFactor <= 0 || fadingFactor > 1) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, window size or fading factor not valid");
+		}
+		mClassifier = classifier;
+		mSignature = classifier.getSignature();
+		mClassFeature = (FeatureNominal) mSignature.getClassFeature();
+		mFadingFactor = fadingFactor;
+		mActual = new int[windowSize];
+		mPredicted = new int[windowSize];
+		mWindow = new Evaluation(mClassFeature);
+	}
+
+	/**
+	 * Classifies the instance, records the outcome and then updates the classifier with it.
+	 * @param instance Labelled instance.
+	 * @return The label predicted before the update.
+	 */
+	public synchronized Value process(Instance instance) throws MLException {
+		int classIndex = mSignature.getClassIndex();
+		Value actual = instance.getValueAtIndex(classIndex);
+		if (actual.getValueType() != Value.NOMINAL_VALUE) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instances used for evaluation have to be labelled.");
+		}
+		Value predicted = mClassifier.classify(new UnlabelledInstance(instance, classIndex));
+		((OnlineClassifier) mClassifier).update(instance);
+
+		int actualIndex = mClassFeature.indexOfCategory((String) actual.getValue());
+		int predictedIndex = -1;
+		if (predicted != null && predicted.getValue() instanceof String) {
+			predictedIndex = mClassFeature.indexOfCategory((String) predicted.getValue());
+		}
+		record(actualIndex, predictedIndex);
+		return predicted;
+	}
+
+	private void record(int actual, int predicted) {
+		if (mWindowCount == mActual.length) {
+			mWindow.remove(mActual[mNext], mPredicted[mNext]);
+		} else {
+			mWindowCount++;
+		}
+		mActual[mNext] = actual;
+		mPredicted[mNext] = predicted;
+		mNext = (mNext + 1) % mActual.length;
+		mWindow.record(actual, predicted);
+
+		int correct = actual == predicted ? 1 : 0;
+		mFadingCorrect = mFadingFactor * mFadingCorrect + correct;
+		mFadingCount = mFadingFactor * mFadingCount + 1;
+		mCorrect += correct;
+		mCount++;
+	}
+
+	/**
+	 * @return Number of instances processed so far.
+	 */
+	public synchronized long getCount() {
+		return mCount;
+	}
+
+	/**
+	 * @return Accuracy over the sliding window.
+	 */
+	public synchronized double getWindowAccuracy() {
+		return mWindow.accuracy();
+	}
+
+	/**
+	 * @return Snapshot of the confusion matrix, precision and recall over the sliding window.
+	 */
+	public synchronized Evaluation getWindowEvaluation() {
+		return new Evaluation(mWindow);
+	}
+
+	/**
+	 * @return Accuracy in which every outcome is weighted by the fading factor to the power
+	 * of its age.
+	 */
+	public synchronized double getFadingAccuracy() {
+		return mFadingCount == 0 ? 0 : mFadingCorrect / mFadingCount;
+	}
+
+	/**
+	 * @return Accuracy over all instances processed so far.
+	 */
+	public synchronized double getAccuracy() {
+		return mCount == 0 ? 0 : mCorrect / (double) mCount;
+	}
+
+	/**
+	 * Forgets all recorded outcomes. The classifier is not affected.
+	 */
+	public synchronized void reset() {
+		while (mWindowCount > 0) {
+			int eldest = (mNext - mWindowCount + mActual.length) % mActual.length;
+			mWindow.remove(mActual[eldest], mPredicted[eldest]);
+			mWindowCount--;
+		}
+		mNext = 0;
+		mFadingCorrect = 0;
+		mFadingCount = 0;
+		mCorrect = 0;
+		mCount = 0;
+	}
+}
@@ -0,0 +1,44 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.evaluation;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Read-only view of a labelled instance without its class value, as expected by
+ * classify. The values are not copied.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+class UnlabelledInstance extends Instance {
+
+	private final Instance mInstance;
+
+	private final int mClassIndex;
+
+	UnlabelledInstance(Instance instance, int classIndex) {
+		super(0);
+		mInstance = instance;
+		mClassIndex = classIndex;
+	}
+
+	@Override
+	public Value getValueAtIndex(int i) {
+		return mInstance.getValueAtIndex(i < mClassIndex ? i : i + 1);
+	}
+
+	@Override
+	public int size() {
+		return mInstance.size() - 1;
+	}
+
+	@Override
+	public void addValue(Value value) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void setValueAtIndex(int i, Value value) {
+		throw new UnsupportedOperationException();
+	}
+}
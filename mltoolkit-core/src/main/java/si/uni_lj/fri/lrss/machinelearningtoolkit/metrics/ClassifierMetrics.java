@@ -0,0 +1,124 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Operation counts, latencies, error counts and model size of a single classifier.
+ * All methods are thread safe.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class ClassifierMetrics {
+
+	public static final int OPERATION_TRAIN = 0;
+	public static final int OPERATION_UPDATE = 1;
+	public static final int OPERATION_CLASSIFY = 2;
+
+	private static final int NUM_OPERATIONS = 3;
+
+	private final String mName;
+
+	private final LatencyHistogram[] mLatencies;
+
+	// Error counts by MLException error code
+	private final ConcurrentHashMap<Integer, AtomicLong> mErrors;
+
+	private final AtomicLong mModelSize;
+
+	public ClassifierMetrics(String name) {
+		mName = name;
+		mLatencies = new LatencyHistogram[NUM_OPERATIONS];
+		for (int i = 0; i < NUM_OPERATIONS; i++) {
+			mLatencies[i] = new LatencyHistogram();
+		}
+		mErrors = new ConcurrentHashMap<Integer, AtomicLong>();
+		mModelSize = new AtomicLong(-1);
+	}
+
+	public String getName() {
+		return mName;
+	}
+
+	/**
+	 * Records a successful operation.
+	 * @param operation One of the OPERATION_ constants.
+	 * @param nanos Duration of the operation in nanoseconds.
+	 */
+	public void recordOperation(int operation, long nanos) {
+		mLatencies[operation].record(nanos);
+	}
+
+	/**
+	 * Records a failed operation.
+	 * @param errorCode {@link si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException}
+	 *                  error code of the failure.
+	 */
+	public void recordError(int errorCode) {
+		AtomicLong count = mErrors.get(errorCode);
+		if (count == null) {
+			AtomicLong newCount = new AtomicLong();
+			count = mErrors.putIfAbsent(errorCode, newCount);
+			if (count == null) count = newCount;
+		}
+		count.incrementAndGet();
+	}
+
+	public void setModelSize(long bytes) {
+		mModelSize.set(bytes);
+	}
+
+	/**
+	 * @param operation One of the OPERATION_ constants.
+	 * @return Number of successful operations of the given kind.
+	 */
+	public long getCount(int operation) {
+		return mLatencies[operation].getCount();
+	}
+
+	/**
+	 * @param operation One of the OPERATION_ constants.
+	 * @return Latency histogram of successful operations of the given kind.
+	 */
+	public LatencyHistogram getLatency(int operation) {
+		return mLatencies[operation];
+	}
+
+	/**
+	 * @return Number of failed operations by error code.
+	 */
+	public Map<Integer, Long> getErrorCounts() {
+		HashMap<Integer, Long> errors = new HashMap<Integer, Long>();
+		for (Map.Entry<Integer, AtomicLong> entry : mErrors.entrySet()) {
+			errors.put(entry.getKey(), entry.getValue().get());
+		}
+		return errors;
+	}
+
+	/**
+	 * @return Estimated model size in bytes when the metrics were last queried through the
+	 * manager, or -1 if the classifier was not in memory.
+	 */
+	public long getModelSize() {
+		return mModelSize.get();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(mName).append(": ");
+		String[] names = {"train", "update", "classify"};
+		for (int i = 0; i < NUM_OPERATIONS; i++) {
+			LatencyHistogram latency = mLatencies[i];
+			builder.append(names[i]).append(" n=").append(latency.getCount())
+					.append(" p50=").append(latency.getPercentileNanos(50)).append("ns")
+					.append(" p99=").append(latency.getPercentileNanos(99)).append("ns; ");
+		}
+		builder.append("errors=").append(getErrorCounts());
+		builder.append(" size=").append(getModelSize());
+		return builder.toString();
+	}
+}
@@ -0,0 +1,104 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, in the style of HdrHistogram.
+ * Every power of two is split into eight linear sub-buckets, so any recorded value is
+ * reported with a relative error below 12.5%, while the whole range of long values fits
+ * into a fixed array of fewer than 500 counters. Recording a value is a handful of
+ * arithmetic operations and one atomic increment.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray mCounts;
+	private final AtomicLong mTotalCount;
+	private final AtomicLong mTotalNanos;
+	private final AtomicLong mMaxNanos;
+
+	public LatencyHistogram() {
+		mCounts = new AtomicLongArray(NUM_BUCKETS);
+		mTotalCount = new AtomicLong();
+		mTotalNanos = new AtomicLong();
+		mMaxNanos = new AtomicLong();
+	}
+
+	/**
+	 * Records a single latency.
+	 * @param nanos Latency in nanoseconds. Negative values are recorded as zero.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) nanos = 0;
+		mCounts.incrementAndGet(bucketIndex(nanos));
+		mTotalCount.incrementAndGet();
+		mTotalNanos.addAndGet(nanos);
+		long max = mMaxNanos.get();
+		while (nanos > max && !mMaxNanos.compareAndSet(max, nanos)) {
+			max = mMaxNanos.get();
+		}
+	}
+
+	public long getCount() {
+		return mTotalCount.get();
+	}
+
+	public long getMaxNanos() {
+		return mMaxNanos.get();
+	}
+
+	public double getMeanNanos() {
+		long count = mTotalCount.get();
+		return count == 0 ? 0 : mTotalNanos.get() / (double) count;
+	}
+
+	/**
+	 * Returns the latency below which the given percentage of recorded latencies fall.
+	 * @param percentile Percentile between 0 and 100.
+	 * @return Upper bound of the bucket holding the percentile, in nanoseconds, or zero if
+	 * nothing has been recorded.
+	 */
+	public long getPercentileNanos(double percentile) {
+		long count = mTotalCount.get();
+		if (count == 0) return 0;
+		long rank = (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * count);
+		if (rank < 1) rank = 1;
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			seen += mCounts.get(i);
+			if (seen >= rank) {
+				return Math.min(bucketUpperBound(i), mMaxNanos.get());
+			}
+		}
+		return mMaxNanos.get();
+	}
+
+	public void reset() {
+		for (int i = 0; i < NUM_BUCKETS; i++) mCounts.set(i, 0);
+		mTotalCount.set(0);
+		mTotalNanos.set(0);
+		mMaxNanos.set(0);
+	}
+
+	private static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS) return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKETS) return index;
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int subBucket = index % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		return ((SUB_BUCKETS + subBucket) * width) + width - 1;
+	}
+}
@@ -0,0 +1,25 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.metrics;
+
+/**
+ * Receives every operation recorded by a {@link MetricsRegistry}. Listeners are called on
+ * the thread that performed the operation and should return quickly.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public interface MetricsListener {
+
+	/**
+	 * @param classifier Classifier name.
+	 * @param operation One of the {@link ClassifierMetrics} OPERATION_ constants.
+	 * @param nanos Duration of the operation in nanoseconds.
+	 */
+	public void onOperation(String classifier, int operation, long nanos);
+
+	/**
+	 * @param classifier Classifier name.
+	 * @param operation One of the {@link ClassifierMetrics} OPERATION_ constants.
+	 * @param errorCode Error code of the failure.
+	 */
+	public void onError(String classifier, int operation, int errorCode);
+}
@@ -0,0 +1,73 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds the {@link ClassifierMetrics} of every classifier of a manager, and forwards each
+ * recorded operation to the registered {@link MetricsListener}s, so that the metrics can be
+ * exported to an external monitoring system.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class MetricsRegistry {
+
+	private final ConcurrentHashMap<String, ClassifierMetrics> mMetrics;
+
+	private final CopyOnWriteArrayList<MetricsListener> mListeners;
+
+	public MetricsRegistry() {
+		mMetrics = new ConcurrentHashMap<String, ClassifierMetrics>();
+		mListeners = new CopyOnWriteArrayList<MetricsListener>();
+	}
+
+	/**
+	 * @param name Classifier name.
+	 * @return Metrics of the classifier, created if they do not exist yet.
+	 */
+	public ClassifierMetrics getMetrics(String name) {
+		ClassifierMetrics metrics = mMetrics.get(name);
+		if (metrics == null) {
+			ClassifierMetrics newMetrics = new ClassifierMetrics(name);
+			metrics = mMetrics.putIfAbsent(name, newMetrics);
+			if (metrics == null) metrics = newMetrics;
+		}
+		return metrics;
+	}
+
+	/**
+	 * @return Metrics of all classifiers that have recorded at least one operation.
+	 */
+	public Collection<ClassifierMetrics> getAllMetrics() {
+		return new ArrayList<ClassifierMetrics>(mMetrics.values());
+	}
+
+	public void remove(String name) {
+		mMetrics.remove(name);
+	}
+
+	public void addListener(MetricsListener listener) {
+		mListeners.add(listener);
+	}
+
+	public void removeListener(MetricsListener listener) {
+		mListeners.remove(listener);
+	}
+
+	public void recordOperation(String name, int operation, long nanos) {
+		getMetrics(name).recordOperation(operation, nanos);
+		for (MetricsListener listener : mListeners) {
+			listener.onOperation(name, operation, nanos);
+		}
+	}
+
+	public void recordError(String name, int operation, int errorCode) {
+		getMetrics(name).recordError(errorCode);
+		for (MetricsListener listener : mListeners) {
+			listener.onError(name, operation, errorCode);
+		}
+	}
+}
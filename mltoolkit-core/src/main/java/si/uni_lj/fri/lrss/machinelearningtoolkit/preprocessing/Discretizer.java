@@ -0,0 +1,334 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Turns numeric features into nominal ones with equal-frequency bins, so that classifiers
+ * that only handle nominal features, such as ID3, or that model numeric features poorly
+ * can use them.
+ * <p>
+ * The discretizer first sees the instances in a single pass, through {@link #update(Instance)},
+ * keeping a {@link QuantileSketch} per numeric feature. Its memory thus does not depend on
+ * the number of instances, and discretizers of parts of a dataset can be merged.
+ * {@link #fit()} then fixes the bin edges at the quantiles of every feature, and
+ * {@link #transform(Instance)} rewrites instances of the original signature into instances
+ * of the signature returned by {@link #getSignature()}, one at a time. The bins of a
+ * feature are named after their ranges, e.g. "<=1.5", "(1.5,3.2]" and ">3.2".
+ * <p>
+ * Values that are tied across a quantile, such as a sensor that mostly reads zero, can
+ * leave a feature with fewer bins than requested.
+ * <p>
+ * As a stage of a {@link si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Pipeline},
+ * the discretizer learns and bins one feature of a row at a time instead.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class Discretizer extends Transformer {
+
+	private Signature mSignature;
+
+	private int mNumBins;
+
+	// One sketch per numeric feature, null for the other features
+	private QuantileSketch[] mSketches;
+
+	// Upper edges of all but the last bin of every numeric feature, null until fitted
+	private double[][] mEdges;
+
+	// Built from the edges on first use
+	private transient Signature mBinnedSignature;
+
+	// Values of the bins, shared by all transformed instances
+	private transient Value[][] mBinValues;
+
+	/**
+	 * Creates a discretizer for the given signature, with quantile sketches of the default size.
+	 * @param signature Signature of the instances to discretize.
+	 * @param numBins Number of bins per numeric feature.
+	 * @throws MLException
+	 */
+	public Discretizer(Signature signature, int numBins) throws MLException {
+		this(signature, numBins, QuantileSketch.DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates a discretizer for the given signature.
+	 * @param signature Signature of the instances to discretize.
+	 * @param numBins Number of bins per numeric feature.
+	 * @param sketchSize Size of the quantile sketches, see {@link QuantileSketch#QuantileSketch(int)}.
+	 * @throws MLException
+	 */
+	public Discretizer(Signature signature, int numBins, int sketchSize) throws MLException {
+		if (numBins < 2) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					"A discretizer needs at least two bins.");
+		}
+		mType = Constants.STAGE_DISCRETIZE;
+		mSignature = signature;
+		mNumBins = numBins;
+		mSketches = new QuantileSketch[signature.size()];
+		for (int i=0; i<mSketches.length; i++) {
+			if (i != signature.getClassIndex()
+					&& signature.getFeatureAtIndex(i).getFeatureType() == Feature.NUMERIC) {
+				mSketches[i] = new QuantileSketch(sketchSize);
+			}
+		}
+	}
+
+	/**
+	 * Learns the distribution of the numeric values of the instance. The instance may be
+	 * labelled or not.
+	 * @throws MLException If the instance does not match the signature, or the bins are
+	 * already fixed.
+	 */
+	public void update(Instance instance) throws MLException {
+		if (mEdges != null) {
+			throw new MLException(MLException.INVALID_STATE, "Discretizer is already fitted.");
+		}
+		boolean labelled = checkCompliance(instance);
+		int classIndex = mSignature.getClassIndex();
+		for (int i=0; i<mSketches.length; i++) {
+			if (mSketches[i] == null) continue;
+			// Unlabelled instances lack the class value
+			Value value = instance.getValueAtIndex(labelled || i < classIndex ? i : i - 1);
+			if (value.getValueType() == Value.NUMERIC_VALUE) {
+				mSketches[i].add((Double) value.getValue());
+			}
+		}
+	}
+
+	public void train(ArrayList<Instance> instances) throws MLException {
+		for (Instance instance : instances) {
+			update(instance);
+		}
+	}
+
+	/**
+	 * Adds the values seen by another discretizer of the same signature, e.g. one that saw
+	 * another part of the dataset.
+	 * @throws MLException If the discretizers do not match, or either is already fitted.
+	 */
+	public void merge(Discretizer other) throws MLException {
+		if (mEdges != null || other.mEdges != null) {
+			throw new MLException(MLException.INVALID_STATE, "Discretizer is already fitted.");
+		}
+		if (other.mSketches.length != mSketches.length) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+					"Discretizers of different signatures cannot be merged.");
+		}
+		for (int i=0; i<mSketches.length; i++) {
+			if ((mSketches[i] == null) != (other.mSketches[i] == null)) {
+				throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE,
+						"Discretizers of different signatures cannot be merged.");
+			}
+			if (mSketches[i] != null) mSketches[i].merge(other.mSketches[i]);
+		}
+	}
+
+	/**
+	 * Fixes the bin edges at the quantiles of the values seen so far. The sketches are no
+	 * longer needed and are released.
+	 * @throws MLException If the discretizer is already fitted.
+	 */
+	public void fit() throws MLException {
+		if (mEdges != null) {
+			throw new MLException(MLException.INVALID_STATE, "Discretizer is already fitted.");
+		}
+		double[] fractions = new double[mNumBins - 1];
+		for (int j=0; j<fractions.length; j++) fractions[j] = (j + 1.0) / mNumBins;
+
+		double[][] edges = new double[mSketches.length][];
+		for (int i=0; i<mSketches.length; i++) {
+			if (mSketches[i] == null) continue;
+			double[] quantiles = mSketches[i].count() > 0
+					? mSketches[i].quantiles(fractions) : new double[0];
+			// Tied quantiles would give empty bins, as would an edge at the largest value
+			int distinct = 0;
+			for (int j=0; j<quantiles.length; j++) {
+				if ((distinct == 0 || quantiles[j] > quantiles[distinct - 1])
+						&& quantiles[j] < mSketches[i].max()) {
+					quantiles[distinct++] = quantiles[j];
+				}
+			}
+			edges[i] = new double[distinct];
+			System.arraycopy(quantiles, 0, edges[i], 0, distinct);
+			mSketches[i] = null;
+		}
+		mEdges = edges;
+	}
+
+	@Override
+	public boolean isFitted() {
+		return mEdges != null;
+	}
+
+	@Override
+	public void learn(int feature, double number, Value value) {
+		if (mSketches[feature] != null) mSketches[feature].add(number);
+	}
+
+	@Override
+	public void apply(int feature, double[] numbers, Value[] values) {
+		if (mEdges[feature] == null) return;
+		if (mBinValues == null) buildSignature();
+		double number = numbers[feature];
+		values[feature] = Double.isNaN(number)
+				? MISSING : mBinValues[feature][binOf(mEdges[feature], number)];
+		numbers[feature] = Double.NaN;
+	}
+
+	/**
+	 * @return The binned feature once fitted. Before that, numeric features are given as
+	 * nominal features without categories, so that later stages know their type.
+	 */
+	@Override
+	public Feature outputFeature(int feature, Feature input) {
+		if (mEdges == null) {
+			return mSketches[feature] == null
+					? input : new FeatureNominal(input.name(), new ArrayList<String>());
+		}
+		if (mEdges[feature] == null) return input;
+		if (mBinnedSignature == null) buildSignature();
+		return mBinnedSignature.getFeatureAtIndex(feature);
+	}
+
+	@Override
+	public long memoryFootprint() {
+		long size = 40 + arraySize(mSketches.length, 4);
+		for (int i=0; i<mSketches.length; i++) {
+			// Compactors are at most half empty
+			if (mSketches[i] != null) size += 64 + arraySize(2 * mSketches[i].retained(), 8);
+		}
+		if (mEdges != null) {
+			size += arraySize(mEdges.length, 4);
+			for (double[] edges : mEdges) {
+				if (edges != null) size += arraySize(edges.length, 8);
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return Upper edges of all but the last bin of the numeric feature at the given index,
+	 * or null for other features.
+	 */
+	public double[] getEdges(int featureIndex) throws MLException {
+		checkFitted();
+		return mEdges[featureIndex] == null ? null : mEdges[featureIndex].clone();
+	}
+
+	/**
+	 * @return Signature of the transformed instances. Numeric features are replaced by
+	 * nominal features of the same name, the other features are shared with the original
+	 * signature.
+	 */
+	public Signature getSignature() throws MLException {
+		checkFitted();
+		if (mBinnedSignature == null) buildSignature();
+		return mBinnedSignature;
+	}
+
+	/**
+	 * Rewrites the instance, labelled or not, into an instance of {@link #getSignature()}.
+	 * Missing values stay missing. The instance is not changed.
+	 * @throws MLException If the instance does not match the signature, or the discretizer
+	 * is not fitted yet.
+	 */
+	public Instance transform(Instance instance) throws MLException {
+		getSignature();
+		boolean labelled = checkCompliance(instance);
+		int classIndex = mSignature.getClassIndex();
+		Instance result = new Instance(instance.size());
+		for (int n=0; n<instance.size(); n++) {
+			int i = labelled || n < classIndex ? n : n + 1;
+			Value value = instance.getValueAtIndex(n);
+			if (mEdges[i] != null && value.getValueType() == Value.NUMERIC_VALUE) {
+				value = mBinValues[i][binOf(mEdges[i], (Double) value.getValue())];
+			}
+			result.addValue(value);
+		}
+		return result;
+	}
+
+	public ArrayList<Instance> transform(ArrayList<Instance> instances) throws MLException {
+		ArrayList<Instance> result = new ArrayList<Instance>(instances.size());
+		for (Instance instance : instances) {
+			result.add(transform(instance));
+		}
+		return result;
+	}
+
+	private void buildSignature() {
+		ArrayList<Feature> features = new ArrayList<Feature>(mSignature.size());
+		Value[][] binValues = new Value[mEdges.length][];
+		for (int i=0; i<mEdges.length; i++) {
+			Feature feature = mSignature.getFeatureAtIndex(i);
+			if (mEdges[i] == null) {
+				features.add(feature);
+				continue;
+			}
+			ArrayList<String> bins = binNames(mEdges[i]);
+			features.add(new FeatureNominal(feature.name(), bins));
+			binValues[i] = new Value[bins.size()];
+			for (int j=0; j<bins.size(); j++) {
+				binValues[i][j] = new Value(bins.get(j), Value.NOMINAL_VALUE);
+			}
+		}
+		mBinValues = binValues;
+		mBinnedSignature = new Signature(features, mSignature.getClassIndex());
+	}
+
+	// Index of the first bin whose upper edge is not below the value
+	private static int binOf(double[] edges, double value) {
+		int index = Arrays.binarySearch(edges, value);
+		return index >= 0 ? index : -index - 1;
+	}
+
+	private static ArrayList<String> binNames(double[] edges) {
+		ArrayList<String> names = new ArrayList<String>(edges.length + 1);
+		if (edges.length == 0) {
+			names.add("all");
+			return names;
+		}
+		names.add("<="+ edges[0]);
+		for (int j=1; j<edges.length; j++) {
+			names.add("("+ edges[j - 1] +","+ edges[j] +"]");
+		}
+		names.add(">"+ edges[edges.length - 1]);
+		return names;
+	}
+
+	// Returns whether the instance is labelled. Unlike Signature.checkCompliance, it allows
+	// the class feature of unlabelled instances to be anywhere in the signature.
+	private boolean checkCompliance(Instance instance) throws MLException {
+		boolean labelled = instance.size() == mSignature.size();
+		boolean compliant = labelled || instance.size() == mSignature.size() - 1;
+		int classIndex = mSignature.getClassIndex();
+		for (int n=0; compliant && n<instance.size(); n++) {
+			int i = labelled || n < classIndex ? n : n + 1;
+			int type = instance.getValueAtIndex(n).getValueType();
+			compliant = type == Value.MISSING_VALUE
+					|| type == mSignature.getFeatureAtIndex(i).getFeatureType();
+		}
+		if (!compliant) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the signature of the discretizer.");
+		}
+		return labelled;
+	}
+
+	private void checkFitted() throws MLException {
+		if (mEdges == null) {
+			throw new MLException(MLException.INVALID_STATE, "Discretizer is not fitted yet.");
+		}
+	}
+}
@@ -0,0 +1,345 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.FeatureNominal;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Ranks the features of a signature by how much they tell about the class, so that
+ * irrelevant features can be dropped before a classifier is trained. Features are scored
+ * by their information gain ({@link Constants#RANK_INFORMATION_GAIN}), computed as in
+ * {@link si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.ID3}, or by the chi-squared
+ * statistic of their contingency table with the class ({@link Constants#RANK_CHI_SQUARED}).
+ * <p>
+ * Both scores come from the same counts, which are gathered in a single pass over labelled
+ * instances through {@link #update(Instance)}. A nominal feature counts its categories per
+ * class. A numeric feature keeps a {@link QuantileSketch} per class, and is scored as if it
+ * were split into equal-frequency bins, as by the {@link Discretizer}; its counts are thus
+ * estimates. Missing values, and categories that are not in the signature, count as a
+ * category of their own.
+ * <p>
+ * {@link #project(int, int)} keeps the best features as a {@link Projection}, and
+ * {@link #select(int, int)} names them for a {@link Constants#STAGE_SELECT} stage of a
+ * pipeline.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class FeatureRanking {
+
+	private Signature mSignature;
+
+	private int mNumBins;
+
+	private double[] mClassCounts;
+
+	// Per feature and class, the count of every category, missing values first.
+	// Numeric features only count their missing values.
+	private double[][][] mCounts;
+
+	// Per numeric feature and class, the values seen, null for the other features
+	private QuantileSketch[][] mSketches;
+
+	/**
+	 * Creates a ranking for the given signature, with numeric features split into
+	 * {@link Constants#DEFAULT_NUM_BINS} bins.
+	 * @throws MLException If the class feature is not nominal.
+	 */
+	public FeatureRanking(Signature signature) throws MLException {
+		this(signature, Constants.DEFAULT_NUM_BINS);
+	}
+
+	/**
+	 * @param signature Signature of the instances to rank the features of.
+	 * @param numBins Number of bins numeric features are split into for scoring.
+	 * @throws MLException If the class feature is not nominal, or there are fewer than two bins.
+	 */
+	public FeatureRanking(Signature signature, int numBins) throws MLException {
+		if (signature.getClassFeature().getFeatureType() != Feature.NOMINAL) {
+			throw new MLException(MLException.INCOMPATIBLE_FEATURE_TYPE, "class feature must be nominal");
+		}
+		if (numBins < 2) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					"A feature ranking needs at least two bins.");
+		}
+		mSignature = signature;
+		mNumBins = numBins;
+		int numClasses = ((FeatureNominal) signature.getClassFeature()).numberOfCategories();
+		mClassCounts = new double[numClasses];
+		mCounts = new double[signature.size()][][];
+		mSketches = new QuantileSketch[signature.size()][];
+		for (int i=0; i<mCounts.length; i++) {
+			if (i == signature.getClassIndex()) continue;
+			mCounts[i] = new double[numClasses][];
+			if (signature.getFeatureAtIndex(i).getFeatureType() == Feature.NUMERIC) {
+				mSketches[i] = new QuantileSketch[numClasses];
+			}
+		}
+	}
+
+	/**
+	 * Counts the values of a labelled instance.
+	 * @throws MLException If the instance does not match the signature, or its class value
+	 * is not known.
+	 */
+	public void update(Instance instance) throws MLException {
+		if (!mSignature.checkCompliance(instance, true)) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Instance is not compatible with the signature of the ranking.");
+		}
+		int classIndex = mSignature.getClassIndex();
+		Value classValue = instance.getValueAtIndex(classIndex);
+		int actual = classValue.getValueType() == Value.NOMINAL_VALUE
+				? ((FeatureNominal) mSignature.getClassFeature()).learnCategory((String) classValue.getValue())
+				: -1;
+		if (actual < 0) {
+			throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+					"Unknown class value "+classValue.getValue());
+		}
+		if (actual >= mClassCounts.length) addClasses(actual + 1);
+		mClassCounts[actual]++;
+
+		for (int i=0; i<mCounts.length; i++) {
+			if (i == classIndex) continue;
+			Value value = instance.getValueAtIndex(i);
+			int row = 0;
+			if (value.getValueType() == Value.NUMERIC_VALUE) {
+				if (mSketches[i][actual] == null) mSketches[i][actual] = new QuantileSketch();
+				mSketches[i][actual].add((Double) value.getValue());
+				continue;
+			} else if (value.getValueType() == Value.NOMINAL_VALUE) {
+				row = ((FeatureNominal) mSignature.getFeatureAtIndex(i))
+						.learnCategory((String) value.getValue()) + 1;
+			}
+			double[] counts = mCounts[i][actual];
+			if (counts == null || counts.length <= row) {
+				double[] grown = new double[Math.max(row + 1, counts == null ? 1 : 2 * counts.length)];
+				if (counts != null) System.arraycopy(counts, 0, grown, 0, counts.length);
+				counts = mCounts[i][actual] = grown;
+			}
+			counts[row]++;
+		}
+	}
+
+	public void train(ArrayList<Instance> instances) throws MLException {
+		for (Instance instance : instances) {
+			update(instance);
+		}
+	}
+
+	/**
+	 * @return Information gain of every feature about the class, in nats, in the order of
+	 * the signature. It is zero for the class feature.
+	 */
+	public double[] informationGain() {
+		double[] gains = new double[mCounts.length];
+		for (int i=0; i<gains.length; i++) {
+			if (i == mSignature.getClassIndex()) continue;
+			double[][] table = contingencyTable(i);
+			double total = 0;
+			double conditional = 0;
+			for (double[] row : table) {
+				double rowTotal = sum(row);
+				total += rowTotal;
+				conditional += rowTotal * entropy(row, rowTotal);
+			}
+			if (total > 0) gains[i] = entropy(columnTotals(table), total) - conditional / total;
+		}
+		return gains;
+	}
+
+	/**
+	 * @return Chi-squared statistic of every feature and the class, in the order of the
+	 * signature. It is zero for the class feature.
+	 */
+	public double[] chiSquared() {
+		double[] statistics = new double[mCounts.length];
+		for (int i=0; i<statistics.length; i++) {
+			if (i == mSignature.getClassIndex()) continue;
+			double[][] table = contingencyTable(i);
+			double[] classTotals = columnTotals(table);
+			double total = sum(classTotals);
+			for (double[] row : table) {
+				double rowTotal = sum(row);
+				for (int c=0; c<row.length; c++) {
+					double expected = rowTotal * classTotals[c] / total;
+					if (expected > 0) {
+						statistics[i] += (row[c] - expected) * (row[c] - expected) / expected;
+					}
+				}
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * @param measure {@link Constants#RANK_INFORMATION_GAIN} or {@link Constants#RANK_CHI_SQUARED}.
+	 * @return Indices of the features other than the class feature, from the best to the
+	 * worst one. Features that score the same keep their order.
+	 * @throws MLException If the measure is not known.
+	 */
+	public int[] rank(int measure) throws MLException {
+		final double[] scores = scores(measure);
+		Integer[] order = new Integer[scores.length - 1];
+		for (int i=0, n=0; i<scores.length; i++) {
+			if (i != mSignature.getClassIndex()) order[n++] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return Double.compare(scores[b], scores[a]);
+			}
+		});
+		int[] ranking = new int[order.length];
+		for (int n=0; n<ranking.length; n++) ranking[n] = order[n];
+		return ranking;
+	}
+
+	/**
+	 * Keeps the given number of best features, and the class feature.
+	 * @throws MLException If the measure is not known, or the count is negative.
+	 */
+	public Projection project(int measure, int count) throws MLException {
+		return new Projection(mSignature, best(measure, count));
+	}
+
+	/**
+	 * @return Names of the given number of best features, from the best one on.
+	 * @throws MLException If the measure is not known, or the count is negative.
+	 */
+	public ArrayList<String> select(int measure, int count) throws MLException {
+		int[] best = best(measure, count);
+		ArrayList<String> names = new ArrayList<String>(best.length);
+		for (int index : best) {
+			names.add(mSignature.getFeatureAtIndex(index).name());
+		}
+		return names;
+	}
+
+	private int[] best(int measure, int count) throws MLException {
+		if (count < 0) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					" Invalid parameter, the number of features cannot be negative");
+		}
+		int[] ranking = rank(measure);
+		if (count >= ranking.length) return ranking;
+		int[] best = new int[count];
+		System.arraycopy(ranking, 0, best, 0, count);
+		return best;
+	}
+
+	private double[] scores(int measure) throws MLException {
+		switch (measure) {
+			case Constants.RANK_INFORMATION_GAIN:
+				return informationGain();
+			case Constants.RANK_CHI_SQUARED:
+				return chiSquared();
+			default:
+				throw new MLException(MLException.INVALID_PARAMETER,
+						" Invalid parameter, unknown feature ranking "+measure);
+		}
+	}
+
+	// Counts of the feature per row, i.e. category or bin, and class
+	private double[][] contingencyTable(int feature) {
+		int numClasses = mClassCounts.length;
+		int numRows = 1;
+		double[] edges = null;
+		if (mSketches[feature] != null) {
+			edges = binEdges(mSketches[feature]);
+			if (edges != null) numRows += edges.length + 1;
+		} else {
+			for (double[] counts : mCounts[feature]) {
+				if (counts != null) numRows = Math.max(numRows, counts.length);
+			}
+		}
+		double[][] table = new double[numRows][numClasses];
+		for (int c=0; c<numClasses; c++) {
+			double[] counts = mCounts[feature][c];
+			if (counts != null) {
+				for (int row=0; row<counts.length; row++) table[row][c] = counts[row];
+			}
+			if (edges == null || mSketches[feature][c] == null) continue;
+			// Counts of the bins follow from the ranks of the edges among the class values
+			QuantileSketch sketch = mSketches[feature][c];
+			double previous = 0;
+			for (int j=0; j<edges.length; j++) {
+				double below = Math.max(previous, sketch.rank(edges[j]) * sketch.count());
+				table[j + 1][c] = below - previous;
+				previous = below;
+			}
+			table[edges.length + 1][c] = sketch.count() - previous;
+		}
+		return table;
+	}
+
+	// Upper edges of all but the last equal-frequency bin of the values of all classes,
+	// null if there are no values
+	private double[] binEdges(QuantileSketch[] sketches) {
+		QuantileSketch all = new QuantileSketch();
+		for (QuantileSketch sketch : sketches) {
+			if (sketch != null) all.merge(sketch);
+		}
+		if (all.count() == 0) return null;
+		double[] fractions = new double[mNumBins - 1];
+		for (int j=0; j<fractions.length; j++) fractions[j] = (j + 1.0) / mNumBins;
+		double[] quantiles = all.quantiles(fractions);
+		int distinct = 0;
+		for (int j=0; j<quantiles.length; j++) {
+			if ((distinct == 0 || quantiles[j] > quantiles[distinct - 1]) && quantiles[j] < all.max()) {
+				quantiles[distinct++] = quantiles[j];
+			}
+		}
+		double[] edges = new double[distinct];
+		System.arraycopy(quantiles, 0, edges, 0, distinct);
+		return edges;
+	}
+
+	private void addClasses(int numClasses) {
+		double[] classCounts = new double[Math.max(numClasses, 2 * mClassCounts.length)];
+		System.arraycopy(mClassCounts, 0, classCounts, 0, mClassCounts.length);
+		for (int i=0; i<mCounts.length; i++) {
+			if (mCounts[i] == null) continue;
+			double[][] counts = new double[classCounts.length][];
+			System.arraycopy(mCounts[i], 0, counts, 0, mCounts[i].length);
+			mCounts[i] = counts;
+			if (mSketches[i] != null) {
+				QuantileSketch[] sketches = new QuantileSketch[classCounts.length];
+				System.arraycopy(mSketches[i], 0, sketches, 0, mSketches[i].length);
+				mSketches[i] = sketches;
+			}
+		}
+		mClassCounts = classCounts;
+	}
+
+	private static double[] columnTotals(double[][] table) {
+		double[] totals = new double[table.length == 0 ? 0 : table[0].length];
+		for (double[] row : table) {
+			for (int c=0; c<row.length; c++) totals[c] += row[c];
+		}
+		return totals;
+	}
+
+	private static double sum(double[] values) {
+		double sum = 0;
+		for (double value : values) sum += value;
+		return sum;
+	}
+
+	private static double entropy(double[] counts, double total) {
+		double entropy = 0;
+		for (double count : counts) {
+			if (count > 0) {
+				double p = count / total;
+				entropy -= p * Math.log(p);
+			}
+		}
+		return entropy;
+	}
+}
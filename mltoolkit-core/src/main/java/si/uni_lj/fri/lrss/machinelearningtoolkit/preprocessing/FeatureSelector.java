@@ -0,0 +1,70 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing;
+
+import java.util.Collection;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Drops the features that are not selected by name. The class feature is always kept.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class FeatureSelector extends Transformer {
+
+	private boolean[] mKept;
+
+	/**
+	 * @param signature Signature at the input of the stage.
+	 * @param selected Names of the features to keep.
+	 * @throws MLException If a name is not a feature of the signature.
+	 */
+	public FeatureSelector(Signature signature, Collection<String> selected) throws MLException {
+		mType = Constants.STAGE_SELECT;
+		mKept = new boolean[signature.size()];
+		mKept[signature.getClassIndex()] = true;
+		for (String name : selected) {
+			int index = -1;
+			for (int i=0; i<mKept.length && index < 0; i++) {
+				if (signature.getFeatureAtIndex(i).name().equals(name)) index = i;
+			}
+			if (index < 0) {
+				throw new MLException(MLException.INVALID_PARAMETER,
+						" Invalid parameter, there is no feature named "+name);
+			}
+			mKept[index] = true;
+		}
+	}
+
+	@Override
+	public boolean isFitted() {
+		return true;
+	}
+
+	@Override
+	public void learn(int feature, double number, Value value) {
+		// Nothing to learn
+	}
+
+	@Override
+	public void fit() {
+		// Selected features are given up front
+	}
+
+	@Override
+	public void apply(int feature, double[] numbers, Value[] values) {
+		// Dropped features are left out by the pipeline
+	}
+
+	@Override
+	public boolean keeps(int feature) {
+		return mKept[feature];
+	}
+
+	@Override
+	public long memoryFootprint() {
+		return 16 + arraySize(mKept.length, 1);
+	}
+}
@@ -0,0 +1,120 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Replaces missing values, of numeric features with their mean and of nominal features
+ * with their most frequent category. Features without a single value stay missing.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class Imputer extends Transformer {
+
+	private boolean[] mNominal;
+
+	// Sums and counts of the numeric values while learning, then the means in the sums
+	private double[] mSums;
+
+	private double[] mCounts;
+
+	// Most frequent category of every nominal feature, null if there were no values
+	private String[] mModes;
+
+	private boolean mFitted;
+
+	// Counts of the categories while learning
+	private transient ArrayList<HashMap<String, Integer>> mCategoryCounts;
+
+	private transient Value[] mModeValues;
+
+	public Imputer(Signature signature) {
+		mType = Constants.STAGE_IMPUTE;
+		mNominal = new boolean[signature.size()];
+		for (int i=0; i<mNominal.length; i++) {
+			mNominal[i] = signature.getFeatureAtIndex(i).getFeatureType() == Feature.NOMINAL;
+		}
+		mSums = new double[mNominal.length];
+		mCounts = new double[mNominal.length];
+		mModes = new String[mNominal.length];
+	}
+
+	@Override
+	public boolean isFitted() {
+		return mFitted;
+	}
+
+	@Override
+	public void learn(int feature, double number, Value value) {
+		if (!mNominal[feature]) {
+			if (!Double.isNaN(number)) {
+				mSums[feature] += number;
+				mCounts[feature] += 1;
+			}
+			return;
+		}
+		if (value.getValueType() != Value.NOMINAL_VALUE) return;
+		if (mCategoryCounts == null) {
+			mCategoryCounts = new ArrayList<HashMap<String, Integer>>(mNominal.length);
+			for (int i=0; i<mNominal.length; i++) mCategoryCounts.add(null);
+		}
+		HashMap<String, Integer> categoryCounts = mCategoryCounts.get(feature);
+		if (categoryCounts == null) {
+			categoryCounts = new HashMap<String, Integer>();
+			mCategoryCounts.set(feature, categoryCounts);
+		}
+		String category = (String) value.getValue();
+		Integer count = categoryCounts.get(category);
+		categoryCounts.put(category, count == null ? 1 : count + 1);
+	}
+
+	@Override
+	public void fit() throws MLException {
+		if (mFitted) {
+			throw new MLException(MLException.INVALID_STATE, "Imputer is already fitted.");
+		}
+		for (int i=0; i<mNominal.length; i++) {
+			if (!mNominal[i]) {
+				if (mCounts[i] > 0) mSums[i] /= mCounts[i];
+			} else if (mCategoryCounts != null && mCategoryCounts.get(i) != null) {
+				int best = 0;
+				for (Map.Entry<String, Integer> entry : mCategoryCounts.get(i).entrySet()) {
+					if (entry.getValue() > best) {
+						best = entry.getValue();
+						mModes[i] = entry.getKey();
+					}
+				}
+			}
+		}
+		mCategoryCounts = null;
+		mFitted = true;
+	}
+
+	@Override
+	public void apply(int feature, double[] numbers, Value[] values) {
+		if (!mNominal[feature]) {
+			if (Double.isNaN(numbers[feature]) && mCounts[feature] > 0) numbers[feature] = mSums[feature];
+		} else if (values[feature].getValueType() == Value.MISSING_VALUE && mModes[feature] != null) {
+			if (mModeValues == null) {
+				Value[] modeValues = new Value[mModes.length];
+				for (int i=0; i<mModes.length; i++) {
+					if (mModes[i] != null) modeValues[i] = new Value(mModes[i], Value.NOMINAL_VALUE);
+				}
+				mModeValues = modeValues;
+			}
+			values[feature] = mModeValues[feature];
+		}
+	}
+
+	@Override
+	public long memoryFootprint() {
+		return 48 + arraySize(mNominal.length, 1) + 3 * arraySize(mNominal.length, 8);
+	}
+}
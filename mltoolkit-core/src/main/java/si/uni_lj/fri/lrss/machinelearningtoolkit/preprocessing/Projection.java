@@ -0,0 +1,142 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing;
+
+import java.util.ArrayList;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Instance;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Restricts instances to a subset of the features of a signature, e.g. the best ones of a
+ * {@link FeatureRanking}. A classifier created for {@link #getSignature()} stores
+ * statistics and spends time on the kept features only.
+ * <p>
+ * Instances are not copied. {@link #project(Instance)} returns a view that reads the kept
+ * values from the original instance, so projecting takes constant time and memory
+ * however many features are dropped. Only the size of the instance is checked; the types
+ * of the kept values are checked by the classifier, as usual.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class Projection {
+
+	private Signature mSignature;
+
+	// Indices of the kept features in the original signature, in their original order
+	private int[] mKept;
+
+	// Indices of the kept features in unlabelled instances, which lack the class value
+	private int[] mKeptUnlabelled;
+
+	private Signature mProjectedSignature;
+
+	/**
+	 * @param signature Signature of the instances to project.
+	 * @param features Indices of the features to keep. The class feature is always kept.
+	 * @throws MLException If an index is not within the signature.
+	 */
+	public Projection(Signature signature, int[] features) throws MLException {
+		int classIndex = signature.getClassIndex();
+		boolean[] kept = new boolean[signature.size()];
+		kept[classIndex] = true;
+		for (int index : features) {
+			if (index < 0 || index >= kept.length) {
+				throw new MLException(MLException.INVALID_PARAMETER,
+						" Invalid parameter, there is no feature at index "+index);
+			}
+			kept[index] = true;
+		}
+		int numKept = 0;
+		for (boolean k : kept) if (k) numKept++;
+
+		mSignature = signature;
+		mKept = new int[numKept];
+		mKeptUnlabelled = new int[numKept - 1];
+		ArrayList<Feature> projected = new ArrayList<Feature>(numKept);
+		int projectedClassIndex = 0;
+		for (int i=0, n=0, u=0; i<kept.length; i++) {
+			if (!kept[i]) continue;
+			if (i == classIndex) {
+				projectedClassIndex = n;
+			} else {
+				mKeptUnlabelled[u++] = i < classIndex ? i : i - 1;
+			}
+			mKept[n++] = i;
+			projected.add(signature.getFeatureAtIndex(i));
+		}
+		mProjectedSignature = new Signature(projected, projectedClassIndex);
+	}
+
+	/**
+	 * @return Signature of the projected instances. Its features are shared with the
+	 * original signature.
+	 */
+	public Signature getSignature() {
+		return mProjectedSignature;
+	}
+
+	/**
+	 * @return Indices of the kept features in the original signature, in increasing order.
+	 */
+	public int[] getFeatures() {
+		return mKept.clone();
+	}
+
+	/**
+	 * Projects a labelled or unlabelled instance of the original signature. Changes to the
+	 * instance show in the view, and values set on the view are set on the instance.
+	 * @throws MLException If the instance does not have the size of the original signature.
+	 */
+	public Instance project(Instance instance) throws MLException {
+		if (instance.size() == mSignature.size()) {
+			return new ProjectedInstance(instance, mKept);
+		}
+		if (instance.size() == mSignature.size() - 1) {
+			return new ProjectedInstance(instance, mKeptUnlabelled);
+		}
+		throw new MLException(MLException.INCOMPATIBLE_INSTANCE,
+				"Instance is not compatible with the signature of the projection.");
+	}
+
+	public ArrayList<Instance> project(ArrayList<Instance> instances) throws MLException {
+		ArrayList<Instance> result = new ArrayList<Instance>(instances.size());
+		for (Instance instance : instances) {
+			result.add(project(instance));
+		}
+		return result;
+	}
+
+	private static class ProjectedInstance extends Instance {
+
+		private Instance mInstance;
+
+		private int[] mIndices;
+
+		ProjectedInstance(Instance instance, int[] indices) {
+			mInstance = instance;
+			mIndices = indices;
+		}
+
+		@Override
+		public void addValue(Value value) {
+			throw new UnsupportedOperationException("A projected instance cannot grow.");
+		}
+
+		@Override
+		public Value getValueAtIndex(int i) {
+			return mInstance.getValueAtIndex(mIndices[i]);
+		}
+
+		@Override
+		public void setValueAtIndex(int i, Value value) throws IndexOutOfBoundsException {
+			mInstance.setValueAtIndex(mIndices[i], value);
+		}
+
+		@Override
+		public int size() {
+			return mIndices.length;
+		}
+	}
+}
@@ -0,0 +1,290 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing;
+
+import java.util.Arrays;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+
+/**
+ * Streaming quantile sketch after Karnin, Lang and Liberty (KLL). Values are kept in a
+ * stack of compactors; a value in compactor h stands for 2<sup>h</sup> values of the
+ * stream. When the sketch is full, the lowest compactor that is over its capacity is
+ * sorted, and every other value of it, starting at a random one, is promoted to the
+ * compactor above while the rest are dropped. The capacities shrink by a factor of 2/3
+ * towards the bottom of the stack, so the sketch holds about 3k values plus a few per
+ * compactor, however many values it has seen.
+ * <p>
+ * Values are added in amortized O(log k) time and no value is ever stored twice, so the
+ * stream does not have to be kept or sorted. The rank of a quantile that the sketch
+ * returns is typically off by no more than 2 / k of the number of values seen; for the
+ * default k of 200 that is one percent. Sketches of parts of a stream can
+ * be merged into a sketch of the whole stream with the same guarantee.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class QuantileSketch {
+
+	public static final int DEFAULT_SIZE = 200;
+
+	private static final double CAPACITY_RATIO = 2.0 / 3.0;
+
+	// Capacity of the lowest compactors never drops below this
+	private static final int MIN_CAPACITY = 2;
+
+	private int mK;
+
+	// Values of compactor h are mCompactors[h][0 .. mSizes[h]-1], each of weight 2^h
+	private double[][] mCompactors;
+
+	private int[] mSizes;
+
+	private int mNumCompactors;
+
+	private long mCount;
+
+	private double mMin;
+
+	private double mMax;
+
+	// State of the xorshift generator that picks the values to promote
+	private long mRandomState;
+
+	// Values held by all compactors
+	private int mRetained;
+
+	// Values the compactors can hold together before one of them is compacted; zero when unknown
+	private transient int mMaxRetained;
+
+	/**
+	 * Creates a sketch of the default size.
+	 */
+	public QuantileSketch() {
+		mK = DEFAULT_SIZE;
+		initialize();
+	}
+
+	/**
+	 * Creates a sketch of the given size.
+	 * @param k Capacity of the top compactor, larger sizes give more accurate quantiles.
+	 * @throws MLException If k is smaller than two.
+	 */
+	public QuantileSketch(int k) throws MLException {
+		if (k < MIN_CAPACITY) {
+			throw new MLException(MLException.INVALID_PARAMETER,
+					"A quantile sketch needs a size of at least "+ MIN_CAPACITY +".");
+		}
+		mK = k;
+		initialize();
+	}
+
+	private void initialize() {
+		mCompactors = new double[1][];
+		mCompactors[0] = new double[capacity(0, 1) + 1];
+		mSizes = new int[1];
+		mNumCompactors = 1;
+		mRandomState = 0x2545f4914f6cdd1dL;
+	}
+
+	/**
+	 * Adds a value of the stream. NaN values are ignored.
+	 */
+	public void add(double value) {
+		if (Double.isNaN(value)) return;
+		// The extremes are not infinite while the sketch is empty, so that it can be stored
+		if (mCount == 0 || value < mMin) mMin = value;
+		if (mCount == 0 || value > mMax) mMax = value;
+		mCount++;
+		append(0, value);
+		mRetained++;
+		if (mRetained >= maxRetained()) compress();
+	}
+
+	/**
+	 * Adds the values of the other sketch, as if this sketch had seen its stream too.
+	 * The other sketch is not changed.
+	 */
+	public void merge(QuantileSketch other) {
+		if (other.mCount == 0) return;
+		while (mNumCompactors < other.mNumCompactors) addCompactor();
+		for (int h=0; h<other.mNumCompactors; h++) {
+			for (int i=0; i<other.mSizes[h]; i++) append(h, other.mCompactors[h][i]);
+		}
+		mRetained += other.mRetained;
+		mMin = mCount == 0 ? other.mMin : Math.min(mMin, other.mMin);
+		mMax = mCount == 0 ? other.mMax : Math.max(mMax, other.mMax);
+		mCount += other.mCount;
+		while (mRetained >= maxRetained()) compress();
+	}
+
+	/**
+	 * @return Number of values seen.
+	 */
+	public long count() {
+		return mCount;
+	}
+
+	/**
+	 * @return Smallest value seen, or NaN if the sketch is empty.
+	 */
+	public double min() {
+		return mCount == 0 ? Double.NaN : mMin;
+	}
+
+	/**
+	 * @return Largest value seen, or NaN if the sketch is empty.
+	 */
+	public double max() {
+		return mCount == 0 ? Double.NaN : mMax;
+	}
+
+	/**
+	 * @return Estimate of the value below which the given fraction of values lies, or NaN if
+	 * the sketch is empty.
+	 */
+	public double quantile(double fraction) {
+		return quantiles(new double[]{fraction})[0];
+	}
+
+	/**
+	 * Estimates several quantiles at once, sorting the values of the sketch only once.
+	 * @param fractions Fractions of the values, each within [0, 1].
+	 * @return Estimate of every quantile, NaN if the sketch is empty.
+	 */
+	public double[] quantiles(double[] fractions) {
+		double[] result = new double[fractions.length];
+		if (mCount == 0) {
+			Arrays.fill(result, Double.NaN);
+			return result;
+		}
+		// Compactors are sorted separately and merged, as their values differ in weight
+		double[][] sorted = new double[mNumCompactors][];
+		int[] next = new int[mNumCompactors];
+		for (int h=0; h<mNumCompactors; h++) {
+			sorted[h] = new double[mSizes[h]];
+			System.arraycopy(mCompactors[h], 0, sorted[h], 0, mSizes[h]);
+			Arrays.sort(sorted[h]);
+		}
+		int[] order = new int[fractions.length];
+		for (int q=0; q<order.length; q++) order[q] = q;
+		sortByFraction(order, fractions);
+
+		// The weights of the retained values add up to the number of values seen
+		long cumulative = 0;
+		int q = 0;
+		while (q < order.length && fractions[order[q]] <= 0) result[order[q++]] = mMin;
+		while (q < order.length) {
+			int lowest = -1;
+			for (int h=0; h<mNumCompactors; h++) {
+				if (next[h] < sorted[h].length
+						&& (lowest < 0 || sorted[h][next[h]] < sorted[lowest][next[lowest]])) {
+					lowest = h;
+				}
+			}
+			if (lowest < 0) break;
+			double value = sorted[lowest][next[lowest]++];
+			cumulative += 1L << lowest;
+			while (q < order.length && cumulative >= fractions[order[q]] * mCount) {
+				result[order[q++]] = value;
+			}
+		}
+		while (q < order.length) result[order[q++]] = mMax;
+		return result;
+	}
+
+	/**
+	 * @return Estimate of the fraction of values that are not larger than the given value,
+	 * or NaN if the sketch is empty. The inverse of {@link #quantile(double)}.
+	 */
+	public double rank(double value) {
+		if (mCount == 0) return Double.NaN;
+		long weight = 0;
+		for (int h=0; h<mNumCompactors; h++) {
+			for (int i=0; i<mSizes[h]; i++) {
+				if (mCompactors[h][i] <= value) weight += 1L << h;
+			}
+		}
+		return weight / (double) mCount;
+	}
+
+	/**
+	 * @return Number of values the sketch holds, which bounds its memory.
+	 */
+	public int retained() {
+		return mRetained;
+	}
+
+	// Insertion sort of the indices by their fraction, there are only a few of them
+	private static void sortByFraction(int[] order, double[] fractions) {
+		for (int i=1; i<order.length; i++) {
+			int index = order[i];
+			int j = i;
+			for (; j>0 && fractions[order[j-1]] > fractions[index]; j--) order[j] = order[j-1];
+			order[j] = index;
+		}
+	}
+
+	// Capacity of compactor h when there are the given number of compactors
+	private int capacity(int h, int numCompactors) {
+		int depth = numCompactors - 1 - h;
+		return Math.max(MIN_CAPACITY, (int) Math.ceil(mK * Math.pow(CAPACITY_RATIO, depth)));
+	}
+
+	private int maxRetained() {
+		if (mMaxRetained == 0) {
+			for (int h=0; h<mNumCompactors; h++) mMaxRetained += capacity(h, mNumCompactors);
+		}
+		return mMaxRetained;
+	}
+
+	private void append(int h, double value) {
+		if (mSizes[h] == mCompactors[h].length) {
+			double[] grown = new double[2 * mCompactors[h].length];
+			System.arraycopy(mCompactors[h], 0, grown, 0, mSizes[h]);
+			mCompactors[h] = grown;
+		}
+		mCompactors[h][mSizes[h]++] = value;
+	}
+
+	private void addCompactor() {
+		if (mNumCompactors == mCompactors.length) {
+			double[][] compactors = new double[2 * mCompactors.length][];
+			System.arraycopy(mCompactors, 0, compactors, 0, mNumCompactors);
+			mCompactors = compactors;
+			int[] sizes = new int[compactors.length];
+			System.arraycopy(mSizes, 0, sizes, 0, mNumCompactors);
+			mSizes = sizes;
+		}
+		mCompactors[mNumCompactors] = new double[MIN_CAPACITY + 1];
+		mSizes[mNumCompactors] = 0;
+		mNumCompactors++;
+		mMaxRetained = 0;
+	}
+
+	// Compacts the lowest compactor that is over its capacity. Lower compactors may hold
+	// more than their capacity as long as the sketch as a whole does not, which keeps the
+	// compactions of the lowest compactor, on which every value lands, rare.
+	private void compress() {
+		for (int h=0; h<mNumCompactors; h++) {
+			if (mSizes[h] < capacity(h, mNumCompactors)) continue;
+			if (h + 1 == mNumCompactors) addCompactor();
+			double[] compactor = mCompactors[h];
+			int size = mSizes[h];
+			Arrays.sort(compactor, 0, size);
+			// An odd value out stays behind, so that the weights of the sketch add up
+			int kept = size % 2;
+			int offset = kept + (nextBit() ? 1 : 0);
+			for (int i=offset; i<size; i+=2) append(h + 1, compactor[i]);
+			mSizes[h] = kept;
+			mRetained -= (size - kept) / 2;
+			return;
+		}
+	}
+
+	private boolean nextBit() {
+		long x = mRandomState;
+		x ^= x << 13;
+		x ^= x >>> 7;
+		x ^= x << 17;
+		mRandomState = x;
+		return (x & 1) != 0;
+	}
+}
@@ -0,0 +1,91 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Signature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Shifts and scales numeric features to zero mean and unit variance, so that features
+ * measured in different units weigh the same in distances. The mean and variance are
+ * learnt in one pass with Welford's method. Features that do not vary are only shifted.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class Standardizer extends Transformer {
+
+	private boolean[] mNumeric;
+
+	private double[] mCounts;
+
+	private double[] mMeans;
+
+	// Sums of squared differences from the mean while learning, then the scales
+	private double[] mScales;
+
+	private boolean mFitted;
+
+	public Standardizer(Signature signature) {
+		mType = Constants.STAGE_STANDARDIZE;
+		mNumeric = new boolean[signature.size()];
+		for (int i=0; i<mNumeric.length; i++) {
+			mNumeric[i] = signature.getFeatureAtIndex(i).getFeatureType() == Feature.NUMERIC;
+		}
+		mCounts = new double[mNumeric.length];
+		mMeans = new double[mNumeric.length];
+		mScales = new double[mNumeric.length];
+	}
+
+	@Override
+	public boolean isFitted() {
+		return mFitted;
+	}
+
+	@Override
+	public void learn(int feature, double number, Value value) {
+		if (!mNumeric[feature] || Double.isNaN(number)) return;
+		mCounts[feature] += 1;
+		double delta = number - mMeans[feature];
+		mMeans[feature] += delta / mCounts[feature];
+		mScales[feature] += delta * (number - mMeans[feature]);
+	}
+
+	@Override
+	public void fit() throws MLException {
+		if (mFitted) {
+			throw new MLException(MLException.INVALID_STATE, "Standardizer is already fitted.");
+		}
+		for (int i=0; i<mNumeric.length; i++) {
+			double deviation = mCounts[i] > 0 ? Math.sqrt(mScales[i] / mCounts[i]) : 0;
+			mScales[i] = deviation > 0 ? 1 / deviation : 1;
+		}
+		mFitted = true;
+	}
+
+	@Override
+	public void apply(int feature, double[] numbers, Value[] values) {
+		if (mNumeric[feature]) {
+			numbers[feature] = (numbers[feature] - mMeans[feature]) * mScales[feature];
+		}
+	}
+
+	/**
+	 * @return Mean of the numeric feature, as learnt.
+	 */
+	public double getMean(int feature) {
+		return mMeans[feature];
+	}
+
+	/**
+	 * @return Factor the numeric feature is multiplied by after the mean is subtracted.
+	 */
+	public double getScale(int feature) {
+		return mScales[feature];
+	}
+
+	@Override
+	public long memoryFootprint() {
+		return 40 + arraySize(mNumeric.length, 1) + 3 * arraySize(mNumeric.length, 8);
+	}
+}
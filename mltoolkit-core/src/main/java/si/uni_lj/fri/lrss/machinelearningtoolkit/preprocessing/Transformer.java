@@ -0,0 +1,75 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.preprocessing;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Feature;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLException;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Value;
+
+/**
+ * Stage of a {@link si.uni_lj.fri.lrss.machinelearningtoolkit.classifier.Pipeline}.
+ * Stages work on one feature of a row at a time, so that the pipeline can run all of them
+ * on a feature before it moves on to the next one, and a row passes through the whole
+ * pipeline at once, without a copy per stage.
+ * <p>
+ * A row is held in two buffers indexed by the features of the pipeline input. Numeric
+ * values are kept in an array of doubles, NaN when missing, with a null {@link Value}.
+ * Nominal values are kept as {@link Value} objects, which may be missing values. Stages
+ * never see the class feature.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public abstract class Transformer {
+
+	// Immutable, so shared by all rows
+	protected static final Value MISSING = new Value(null, Value.MISSING_VALUE);
+
+	// One of the stage types in Constants
+	protected int mType;
+
+	public int getType() {
+		return mType;
+	}
+
+	/**
+	 * @return Whether the stage has learnt what it needs, and can be applied.
+	 */
+	public abstract boolean isFitted();
+
+	/**
+	 * Learns from the value a feature of a row has at the input of the stage.
+	 */
+	public abstract void learn(int feature, double number, Value value);
+
+	/**
+	 * Ends learning; the stage is applied from then on.
+	 * @throws MLException If the stage is already fitted.
+	 */
+	public abstract void fit() throws MLException;
+
+	/**
+	 * Transforms the value of a feature of a row in place.
+	 */
+	public abstract void apply(int feature, double[] numbers, Value[] values);
+
+	/**
+	 * @return Feature at the output of the stage, given the one at its input.
+	 */
+	public Feature outputFeature(int feature, Feature input) {
+		return input;
+	}
+
+	/**
+	 * @return Whether the feature is passed on by the stage.
+	 */
+	public boolean keeps(int feature) {
+		return true;
+	}
+
+	/**
+	 * @return Estimated size of the stage in bytes.
+	 */
+	public abstract long memoryFootprint();
+
+	protected static long arraySize(int length, int elementSize) {
+		return (16 + (long) length * elementSize + 7) & ~7L;
+	}
+}
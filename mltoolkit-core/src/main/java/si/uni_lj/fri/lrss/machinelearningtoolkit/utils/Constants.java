@@ -0,0 +1,141 @@
+/*
+ *  Copyright (c) 2013, University of Birmingham, UK,
+ *  Copyright (c) 2013, University of Ljubljana, Slovenia,
+ *  Veljko Pejovic,  <Veljko.Pejovic@fri.uni-lj.si>
+ *
+ *
+ *  This library was developed as part of the EPSRC Ubhave (Ubiquitous and Social
+ *  Computing for Positive Behaviour Change) Project. For more information, please visit
+ *  http://www.ubhave.org
+ *
+ *  Permission to use, copy, modify, and/or distribute this software for any purpose with
+ *  or without fee is hereby granted, provided that the above copyright notice and this
+ *  permission notice appear in all copies.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ *  WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ *  MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR
+ *  ANY SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ *  WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ *  ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF
+ *  OR IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package si.uni_lj.fri.lrss.machinelearningtoolkit.utils;
+
+public class Constants {
+	
+	public static final int TYPE_ZERO_R = 1000;
+	public static final int TYPE_NAIVE_BAYES = 1001;
+	public static final int TYPE_BAYES_NET = 1002;
+	public static final int TYPE_ID3 = 1003;
+	public static final int TYPE_DENSITY_CLUSTER = 1004;
+	public static final int TYPE_LOGISTIC_REGRESSION = 1005;
+	public static final int TYPE_K_NEAREST_NEIGHBOURS = 1006;
+	public static final int TYPE_RANDOM_FOREST = 1007;
+	public static final int TYPE_ENSEMBLE = 1008;
+	public static final int TYPE_SKETCH_NAIVE_BAYES = 1009;
+	public static final int TYPE_PIPELINE = 1010;
+	
+	public static final String DEFAULT_STORE_NAME = "classifiers";
+	public static final String CLASSIFIER_STORAGE_FILE = "classifiers.json";
+	public static final String CLASSIFIER_STORAGE_EXTENSION = ".json";
+	public static final String CLASSIFIER_CACHE_DIR = "classifier_cache";
+
+	// Memory budget for resident classifiers in bytes, zero for no limit
+	public static final long DEFAULT_MEMORY_BUDGET = 0;
+
+	// Asynchronous operations
+	public static final int ASYNC_REJECT_ABORT = 0; // fail when the queue is full
+	public static final int ASYNC_REJECT_BLOCK = 1; // wait for space in the queue
+
+	public static final int DEFAULT_ASYNC_THREADS = 0; // one per core
+	public static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 1024;
+	public static final int DEFAULT_ASYNC_REJECTION_POLICY = ASYNC_REJECT_ABORT;
+
+	// Config params
+	
+	// All classifiers
+	public static final String MAX_MEMORY_FOOTPRINT = "maxMemoryFootprint"; // in bytes
+
+	// Density clustering
+	public static final String MAX_CLUSTER_DISTANCE = "maxClusterDistance";
+	public static final String MIN_INCLUSION_PERCENT = "minInclusionPercent";
+
+	public static final double DEFAULT_MAX_CLUSTER_DISTANCE = 1; // in km if GPS
+	public static final double DEFAULT_MIN_INCLUSION_PERCENT = 50.0; 
+	
+	// Naive Bayes
+	public static final String LAPLACE_SMOOTHING = "laplaceSmoothing";
+	
+	public static final boolean DEFAULT_LAPLACE_SMOOTHING = true;
+
+	// Naive Bayes and ZeroR
+	public static final String DECAY_FACTOR = "decayFactor"; // weight kept per newer instance, 1 for no decay
+
+	public static final double DEFAULT_DECAY_FACTOR = 1.0;
+
+	// Sketched Naive Bayes, also uses the Laplace smoothing parameter
+	public static final String SKETCH_WIDTH = "sketchWidth"; // counters per row
+	public static final String SKETCH_DEPTH = "sketchDepth"; // rows
+
+	public static final int DEFAULT_SKETCH_WIDTH = 4096;
+	public static final int DEFAULT_SKETCH_DEPTH = 4;
+
+	// Logistic regression
+	public static final String LEARNING_RATE = "learningRate";
+	public static final String L2_REGULARIZATION = "l2Regularization";
+
+	public static final double DEFAULT_LEARNING_RATE = 0.1;
+	public static final double DEFAULT_L2_REGULARIZATION = 0.0;
+
+	// k-nearest neighbours
+	public static final String NUM_NEIGHBOURS = "numNeighbours";
+	public static final String GEOGRAPHIC_COORDINATES = "geographicCoordinates"; // latitude, longitude
+
+	public static final int DEFAULT_NUM_NEIGHBOURS = 5;
+
+	// Random forest
+	public static final String NUM_TREES = "numTrees";
+	public static final String FEATURES_PER_SPLIT = "featuresPerSplit"; // zero for sqrt of the features
+	public static final String RANDOM_SEED = "randomSeed";
+	public static final String PROBABILITY_VOTING = "probabilityVoting";
+
+	public static final int DEFAULT_NUM_TREES = 32;
+	public static final int DEFAULT_FEATURES_PER_SPLIT = 0;
+	public static final long DEFAULT_RANDOM_SEED = 0;
+	public static final boolean DEFAULT_PROBABILITY_VOTING = true;
+
+	// Ensemble
+	public static final String ENSEMBLE_MEMBERS = "ensembleMembers"; // classifier names
+	public static final String ENSEMBLE_WEIGHTS = "ensembleWeights"; // one per member
+	public static final String ENSEMBLE_COMBINATION = "ensembleCombination";
+	public static final String EARLY_TERMINATION = "earlyTermination";
+
+	public static final int COMBINE_WEIGHTED_VOTE = 0;
+	public static final int COMBINE_AVERAGE_PROBABILITIES = 1;
+
+	public static final int DEFAULT_ENSEMBLE_COMBINATION = COMBINE_WEIGHTED_VOTE;
+	public static final boolean DEFAULT_EARLY_TERMINATION = false;
+
+	// Pipeline, the configuration is also passed on to its classifier
+	public static final String PIPELINE_STAGES = "pipelineStages"; // stage types, in the order they are applied
+	public static final String PIPELINE_CLASSIFIER = "pipelineClassifier"; // classifier type
+	public static final String NUM_BINS = "numBins"; // per numeric feature
+	public static final String SELECTED_FEATURES = "selectedFeatures"; // names, the class feature is always kept
+
+	public static final int STAGE_IMPUTE = 0; // missing values become the mean or the most frequent category
+	public static final int STAGE_STANDARDIZE = 1; // numeric features get zero mean and unit variance
+	public static final int STAGE_DISCRETIZE = 2; // numeric features become equal-frequency bins
+	public static final int STAGE_SELECT = 3; // drops the features that are not selected
+
+	public static final int DEFAULT_PIPELINE_CLASSIFIER = TYPE_NAIVE_BAYES;
+	public static final int DEFAULT_NUM_BINS = 8;
+
+	// Feature ranking
+	public static final int RANK_INFORMATION_GAIN = 0; // in nats, as in ID3
+	public static final int RANK_CHI_SQUARED = 1; // of the contingency table of a feature and the class
+	
+	public static final boolean DEBUG = false;
+
+	
+}
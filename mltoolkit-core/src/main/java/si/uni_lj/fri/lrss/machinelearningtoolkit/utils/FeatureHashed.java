@@ -0,0 +1,115 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.utils;
+
+import java.util.ArrayList;
+
+/**
+ * A nominal feature whose values are not known in advance, such as application package
+ * names or Wi-Fi BSSIDs. Every value is hashed into one of a fixed number of buckets,
+ * and classifiers see the buckets as the categories of the feature. Any value is accepted,
+ * and the size of the classifier tables depends on the number of buckets only.
+ * Different values may share a bucket, so the number of buckets trades memory for accuracy.
+ * <p>
+ * Buckets are named "#0", "#1", ... The hash depends only on the characters of the value,
+ * thus a persisted model maps values to the same buckets after it is loaded.
+ * A hashed feature cannot be used as the class feature; classifiers reject such a signature
+ * with {@link MLException#INCOMPATIBLE_FEATURE_TYPE}.
+ *
+ * @author Veljko Pejovic, University of Ljubljana <Veljko.Pejovic@fri.uni-lj.si>
+ */
+public class FeatureHashed extends FeatureNominal {
+
+    private static final String BUCKET_PREFIX = "#";
+
+    protected int mNumBuckets;
+
+    // Bucket names are generated on demand, rather than persisted with the feature.
+    private transient ArrayList<String> mBucketNames;
+
+    /**
+     * Create a hashed feature with the given name.
+     * @param fname Feature name.
+     * @param numBuckets Number of buckets the values are hashed into.
+     * @throws MLException
+     */
+    public FeatureHashed(String fname, int numBuckets) throws MLException {
+        super(fname, new ArrayList<String>());
+        if (numBuckets < 1) {
+            throw new MLException(MLException.INVALID_PARAMETER,
+                    "A hashed feature needs at least one bucket.");
+        }
+        mNumBuckets = numBuckets;
+    }
+
+    /**
+     * @return Names of the buckets, in the order of their indices.
+     */
+    @Override
+    public synchronized ArrayList<String> getValues(){
+        if (mBucketNames == null) {
+            ArrayList<String> names = new ArrayList<String>(mNumBuckets);
+            for (int i=0; i<mNumBuckets; i++) names.add(BUCKET_PREFIX + i);
+            mBucketNames = names;
+        }
+        return mBucketNames;
+    }
+
+    /**
+     * @return Index of the bucket the value is hashed into. Bucket names map to themselves.
+     */
+    @Override
+    public int indexOfCategory(String value){
+        if (value.startsWith(BUCKET_PREFIX)) {
+            int bucket = parseBucket(value);
+            if (bucket >= 0) return bucket;
+        }
+        return bucketOf(value);
+    }
+
+    /**
+     * Every value already has a bucket, so no category is ever added.
+     * @return Index of the bucket the value is hashed into.
+     */
+    @Override
+    public int addCategory(String value){
+        return indexOfCategory(value);
+    }
+
+    @Override
+    public String categoryOfIndex(int index){
+        return BUCKET_PREFIX + index;
+    }
+
+    @Override
+    public int numberOfCategories(){
+        return mNumBuckets;
+    }
+
+    public int numberOfBuckets(){
+        return mNumBuckets;
+    }
+
+    private int bucketOf(String value){
+        // String.hashCode() is fixed by the language specification, so the buckets survive
+        // persistence. Its low bits are weak, hence the final mix from MurmurHash3.
+        int h = value.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return (int) ((h & 0xffffffffL) % mNumBuckets);
+    }
+
+    // Returns the bucket a canonical bucket name refers to, or -1 for any other value.
+    private int parseBucket(String value){
+        int length = value.length();
+        if (length < 2 || length > 11) return -1;
+        long bucket = 0;
+        for (int i=1; i<length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9' || (i == 1 && c == '0' && length > 2)) return -1;
+            bucket = bucket * 10 + (c - '0');
+        }
+        return bucket < mNumBuckets ? (int) bucket : -1;
+    }
+}
@@ -0,0 +1,144 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.utils;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Created by veljko on 04/09/15.
+ */
+public class FeatureNominal extends Feature {
+
+    // Stored form of the categories. Only ever appended to, under the lock of the feature.
+    protected ArrayList<String> mCategories;
+    protected ConcurrentHashMap<String,Integer> mCategoryIndex;
+
+    protected boolean mGrowable;
+
+    // Categories as read by the classifiers. The array grows by doubling, and the entries
+    // below mSize are never changed, so readers need no lock. Both are rebuilt from
+    // mCategories after the feature is deserialized.
+    private transient volatile String[] mValues;
+    private transient volatile int mSize;
+
+    // List returned by getValues(), until a category is added
+    private transient volatile ArrayList<String> mValueList;
+
+    /**
+     *
+     * Create a feature object with the given name and type.
+     * @param fname Feature name.
+     * @param fvalues
+     * @throws MLException
+     */
+    public FeatureNominal(String fname, ArrayList<String> fvalues) {
+        this(fname, fvalues, false);
+    }
+
+    /**
+     * Create a nominal feature with the given name and initial categories.
+     * @param fname Feature name.
+     * @param fvalues Initial categories.
+     * @param growable Whether classifiers may append the values they have not seen before
+     *                 as new categories when they learn from an instance.
+     */
+    public FeatureNominal(String fname, ArrayList<String> fvalues, boolean growable) {
+        super(fname, NOMINAL);
+        mCategories = (ArrayList<String>) fvalues.clone();
+        mCategoryIndex = new ConcurrentHashMap<String, Integer>();
+        for(int i=0;i<fvalues.size();i++) mCategoryIndex.put(fvalues.get(i), i);
+        mGrowable = growable;
+    }
+
+    /**
+     * @return Categories in the order of their indices. The list is not changed when
+     * categories are added later on, and must not be modified.
+     */
+    public ArrayList<String> getValues(){
+        ArrayList<String> list = mValueList;
+        if (list == null) {
+            int size = size();
+            String[] values = mValues;
+            list = new ArrayList<String>(size);
+            for (int i=0; i<size; i++) list.add(values[i]);
+            mValueList = list;
+        }
+        return list;
+    }
+
+    /**
+     * @return Index of the category, or -1 if the value is not one of the categories.
+     */
+    public int indexOfCategory(String value){
+        //Log.d(TAG, "feature "+mName+" going for value "+value);
+        Integer index = mCategoryIndex.get(value);
+        return index == null ? -1 : index;
+    }
+
+    public String categoryOfIndex(int index){
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("No category at index "+index);
+        }
+        return mValues[index];
+    }
+
+    public int numberOfCategories(){
+        if (mType == NOMINAL) return size();
+        else return 1;
+    }
+
+    public boolean isGrowable(){
+        return mGrowable;
+    }
+
+    /**
+     * Appends the value as a new category, unless it is a category already. Existing
+     * categories keep their indices, and lists returned by {@link #getValues()} before
+     * the call are not changed. Adding a category takes amortized constant time.
+     * @return Index of the category.
+     */
+    public synchronized int addCategory(String value){
+        Integer index = mCategoryIndex.get(value);
+        if (index != null) return index;
+
+        int size = size();
+        String[] values = mValues;
+        if (size == values.length) {
+            String[] grown = new String[Math.max(4, 2 * size)];
+            System.arraycopy(values, 0, grown, 0, size);
+            values = grown;
+            mValues = values;
+        }
+        values[size] = value;
+        mCategories.add(value);
+        mValueList = null;
+        // A reader that finds the new index has to find the category as well
+        mSize = size + 1;
+        mCategoryIndex.put(value, size);
+        return size;
+    }
+
+    /**
+     * Index of the category of a value that a classifier learns from. Unknown values become
+     * new categories if the feature is growable.
+     * @return Index of the category, or -1 if the value is unknown and cannot be added.
+     */
+    public int learnCategory(String value){
+        int index = indexOfCategory(value);
+        if (index < 0 && mGrowable) index = addCategory(value);
+        return index;
+    }
+
+    // Number of categories. Reading it before mValues guarantees that the array holds them.
+    private int size(){
+        if (mValues == null) restore();
+        return mSize;
+    }
+
+    // Builds the array from the stored categories of a new or deserialized feature
+    private synchronized void restore(){
+        if (mValues != null) return;
+        String[] values = mCategories.toArray(new String[Math.max(4, mCategories.size())]);
+        mSize = mCategories.size();
+        mValues = values;
+    }
+}
@@ -0,0 +1,44 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Storage backed by a directory of the local file system.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class FileStorage implements Storage {
+
+	private final File mDirectory;
+
+	public FileStorage(File directory) {
+		mDirectory = directory;
+	}
+
+	public File getDirectory() {
+		return mDirectory;
+	}
+
+	public boolean exists(String name) {
+		return getFile(name).isFile();
+	}
+
+	public File getFile(String name) {
+		return new File(mDirectory, name);
+	}
+
+	public OutputStream openOutput(String name) throws IOException {
+		if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+			throw new IOException("Could not create directory "+mDirectory);
+		}
+		return new FileOutputStream(getFile(name));
+	}
+
+	public File getCacheDir() {
+		return new File(mDirectory, Constants.CLASSIFIER_CACHE_DIR);
+	}
+}
@@ -0,0 +1,19 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.utils;
+
+/**
+ * Destination for the toolkit's log messages. Implementations decide which levels are
+ * written and where they go; see {@link MLLog} for how the toolkit uses them.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public interface Logger {
+
+	/**
+	 * Returns whether messages of the given level would be written. Callers check this
+	 * before building a message, so it should be cheap and must not allocate.
+	 */
+	boolean isLoggable(int level);
+
+	void log(int level, String tag, String message);
+}
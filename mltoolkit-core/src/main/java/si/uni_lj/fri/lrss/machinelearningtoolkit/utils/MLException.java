@@ -30,6 +30,8 @@ public class MLException extends Exception {
 	public static final int INVALID_STATE = 103;
 	public static final int IO_ERROR = 104;
 	public static final int IO_FILE_NOT_FOUND_ERROR = 105;
+	public static final int MEMORY_QUOTA_EXCEEDED = 106;
+	public static final int QUEUE_FULL = 107;
 	public static final int CLASSIFIER_EXISTS = 200;
 	
 	private int mErrorCode;
@@ -0,0 +1,110 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.utils;
+
+import java.io.PrintStream;
+
+/**
+ * Logging facade used throughout the toolkit. Messages go to the installed {@link Logger};
+ * until one is installed, warnings and errors are printed to standard error and everything
+ * else is dropped.
+ *
+ * Messages that are built by concatenation should be guarded, either with
+ * {@link Constants#DEBUG} on hot paths, where the compiler then removes the call altogether,
+ * or with {@link #isLoggable(int)}, so that nothing is allocated when the level is off:
+ *
+ * <pre>
+ * if (MLLog.isLoggable(MLLog.INFO)) MLLog.i(TAG, "Loaded " + count + " classifiers");
+ * </pre>
+ *
+ * Levels have the same values as those of android.util.Log.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public final class MLLog {
+
+	public static final int VERBOSE = 2;
+	public static final int DEBUG = 3;
+	public static final int INFO = 4;
+	public static final int WARN = 5;
+	public static final int ERROR = 6;
+
+	private static final Logger FALLBACK_LOGGER = new StreamLogger(System.err, WARN);
+
+	private static volatile Logger sLogger = FALLBACK_LOGGER;
+
+	private MLLog() {
+	}
+
+	public static synchronized void setLogger(Logger logger) {
+		if (logger == null) {
+			throw new NullPointerException("logger");
+		}
+		sLogger = logger;
+	}
+
+	/**
+	 * Installs the platform's logger, unless the application has already installed its own.
+	 */
+	public static synchronized void setDefaultLogger(Logger logger) {
+		if (sLogger == FALLBACK_LOGGER) {
+			setLogger(logger);
+		}
+	}
+
+	public static Logger getLogger() {
+		return sLogger;
+	}
+
+	public static boolean isLoggable(int level) {
+		return sLogger.isLoggable(level);
+	}
+
+	public static void d(String tag, String message) {
+		log(DEBUG, tag, message);
+	}
+
+	public static void i(String tag, String message) {
+		log(INFO, tag, message);
+	}
+
+	public static void w(String tag, String message) {
+		log(WARN, tag, message);
+	}
+
+	public static void e(String tag, String message) {
+		log(ERROR, tag, message);
+	}
+
+	public static void log(int level, String tag, String message) {
+		Logger logger = sLogger;
+		if (logger.isLoggable(level)) {
+			logger.log(level, tag, message);
+		}
+	}
+
+	/**
+	 * Writes messages at or above a minimum level to a {@link PrintStream}.
+	 */
+	public static class StreamLogger implements Logger {
+
+		private static final String[] LEVEL_NAMES = {"V", "V", "V", "D", "I", "W", "E"};
+
+		private final PrintStream mStream;
+
+		private final int mMinLevel;
+
+		public StreamLogger(PrintStream stream, int minLevel) {
+			mStream = stream;
+			mMinLevel = minLevel;
+		}
+
+		public boolean isLoggable(int level) {
+			return level >= mMinLevel;
+		}
+
+		public void log(int level, String tag, String message) {
+			String levelName = level >= 0 && level < LEVEL_NAMES.length ? LEVEL_NAMES[level] : "E";
+			mStream.println(levelName + "/" + tag + ": " + message);
+		}
+	}
+}
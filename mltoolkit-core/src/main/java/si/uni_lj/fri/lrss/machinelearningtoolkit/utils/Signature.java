@@ -24,8 +24,6 @@ package si.uni_lj.fri.lrss.machinelearningtoolkit.utils;
 
 import java.util.ArrayList;
 
-import android.util.Log;
-
 /**
  * Signature defines features used by a classifier, their names and the 
  * index of the class feature. Instances of data (which consist of values) 
@@ -77,8 +75,26 @@ public class Signature {
 		return mFeatures.size();
 	}
 
+	/**
+	 * @return Signature with its own copies of the growable nominal features, so that the
+	 * categories learnt through one of the signatures do not show in the other. Other
+	 * features never change and are shared.
+	 */
+	public Signature copy() {
+		ArrayList<Feature> features = new ArrayList<Feature>(mFeatures.size());
+		for (Feature feature : mFeatures) {
+			if (feature instanceof FeatureNominal && ((FeatureNominal) feature).isGrowable()) {
+				FeatureNominal nominal = (FeatureNominal) feature;
+				features.add(new FeatureNominal(nominal.name(), nominal.getValues(), true));
+			} else {
+				features.add(feature);
+			}
+		}
+		return new Signature(features, mClassIndex);
+	}
+
 	public boolean checkCompliance(Instance instance, boolean training) {
-		Log.d(TAG, "checkInstanceCompliance");
+		if (Constants.DEBUG) MLLog.d(TAG, "checkInstanceCompliance");
 		int checkSize = instance.size();
 		
 		// Instances that are used for training should have the exact same features as the signature.
@@ -88,15 +104,17 @@ public class Signature {
 		}
 		
 		if (checkSize != this.getFeatures().size()){
-			Log.d(TAG, "Expected number of features: "+this.getFeatures().size()+" got "+checkSize);
-			for (int i=0; i<instance.size(); i++){
-				Log.d(TAG, "instance value "+instance.getValueAtIndex(i).getValue());
+			if (Constants.DEBUG) {
+				MLLog.d(TAG, "Expected number of features: "+this.getFeatures().size()+" got "+checkSize);
+				for (int i=0; i<instance.size(); i++){
+					MLLog.d(TAG, "instance value "+instance.getValueAtIndex(i).getValue());
+				}
 			}
 			return false;
 		}
 		
 		for (int i=0; i<instance.size(); i++){
-			Log.d(TAG, "instance type: "+instance.getValueAtIndex(i).getValueType()+" feature type: "+this.getFeatureAtIndex(i).getFeatureType());
+			if (Constants.DEBUG) MLLog.d(TAG, "instance type: "+instance.getValueAtIndex(i).getValueType()+" feature type: "+this.getFeatureAtIndex(i).getFeatureType());
 			
 			if (this.getFeatureAtIndex(i).getFeatureType() != instance.getValueAtIndex(i).getValueType()
 					&& (instance.getValueAtIndex(i).getValueType() != Value.MISSING_VALUE)){
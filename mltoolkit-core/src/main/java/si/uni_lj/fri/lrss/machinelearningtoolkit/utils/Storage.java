@@ -0,0 +1,34 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Private storage in which a classifier manager keeps its stores and the classifiers it
+ * evicts from memory. On Android it is backed by the application's internal files,
+ * elsewhere by a plain directory; see {@link FileStorage}.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public interface Storage {
+
+	boolean exists(String name);
+
+	/**
+	 * Returns the file with the given name, whether or not it exists. Stores are read by
+	 * streaming this file.
+	 */
+	File getFile(String name);
+
+	/**
+	 * Opens the file with the given name for writing, replacing its contents.
+	 */
+	OutputStream openOutput(String name) throws IOException;
+
+	/**
+	 * Returns the directory in which classifiers evicted from memory are kept.
+	 */
+	File getCacheDir();
+}
@@ -0,0 +1,60 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared pool of worker threads for work that can be split into independent tasks,
+ * such as deserializing classifiers. The pool has one thread per available core. Its threads
+ * are daemon threads, so the pool never keeps the application process alive.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class WorkerPool {
+
+	private static ExecutorService sExecutor;
+
+	private static final Object sLock = new Object();
+
+	private WorkerPool() {
+	}
+
+	public static ExecutorService getExecutor() {
+		synchronized (sLock) {
+			if (sExecutor == null) {
+				sExecutor = Executors.newFixedThreadPool(size(), new ThreadFactory() {
+					private final AtomicInteger mCount = new AtomicInteger();
+
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new WorkerThread(runnable, "mltoolkit-worker-" + mCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+			}
+			return sExecutor;
+		}
+	}
+
+	public static int size() {
+		return Math.max(1, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @return Whether the calling thread belongs to the pool. Such threads must not wait for
+	 * other tasks of the pool, as all of its threads might be waiting.
+	 */
+	public static boolean isWorkerThread() {
+		return Thread.currentThread() instanceof WorkerThread;
+	}
+
+	private static class WorkerThread extends Thread {
+
+		WorkerThread(Runnable runnable, String name) {
+			super(runnable, name);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit;
+
+import android.util.Log;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Logger;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.MLLog;
+
+/**
+ * Sends the toolkit's log messages to logcat. Debug messages are written only when
+ * {@link Constants#DEBUG} is set, unless a different minimum level is given.
+ * MachineLearningManager installs an instance of this logger when it is first used.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class AndroidLogger implements Logger {
+
+    private final int mMinLevel;
+
+    public AndroidLogger() {
+        this(Constants.DEBUG ? MLLog.DEBUG : MLLog.INFO);
+    }
+
+    public AndroidLogger(int minLevel) {
+        mMinLevel = minLevel;
+    }
+
+    public boolean isLoggable(int level) {
+        return level >= mMinLevel;
+    }
+
+    public void log(int level, String tag, String message) {
+        Log.println(level, tag, message);
+    }
+}
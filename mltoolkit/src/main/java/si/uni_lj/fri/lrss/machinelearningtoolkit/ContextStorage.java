@@ -0,0 +1,43 @@
+package si.uni_lj.fri.lrss.machinelearningtoolkit;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Constants;
+import si.uni_lj.fri.lrss.machinelearningtoolkit.utils.Storage;
+
+/**
+ * Storage backed by the internal files of an Android application.
+ *
+ * @author Veljko Pejovic, University of Birmingham, UK <v.pejovic@cs.bham.ac.uk>
+ *
+ */
+public class ContextStorage implements Storage {
+
+    private final Context mContext;
+
+    public ContextStorage(Context context) {
+        Context appContext = context.getApplicationContext();
+        mContext = (appContext != null) ? appContext : context;
+    }
+
+    public boolean exists(String name) {
+        return Arrays.asList(mContext.fileList()).contains(name);
+    }
+
+    public File getFile(String name) {
+        return mContext.getFileStreamPath(name);
+    }
+
+    public OutputStream openOutput(String name) throws IOException {
+        return mContext.openFileOutput(name, Context.MODE_PRIVATE);
+    }
+
+    public File getCacheDir() {
+        return new File(mContext.getFilesDir(), Constants.CLASSIFIER_CACHE_DIR);
+    }
+}